@@ -0,0 +1,148 @@
+package org.cooney.evolution;
+
+import org.cooney.neural.Brain;
+import org.cooney.world.items.Breeder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Breeds new generations with a genetic algorithm over the breeders' brains.
+ *
+ * The best few breeders (the elite) are copied into the next generation untouched. Every other child gets its
+ * parents by tournament or rank selection, has their parameters crossed over uniformly, and then has some of its
+ * weights nudged with gaussian noise. Building the children - the crossover, mutation and new brains - is spread over
+ * a fork join pool.
+ *
+ * Each child is given its own random stream, split off in order before the parallel work starts, so a generation only
+ * depends on the population and the stream passed in, not on how the pool schedules the work.
+ */
+public class EvolutionEngine {
+    private final EvolutionSettings settings;
+    private final ForkJoinPool pool;
+
+    public EvolutionEngine(EvolutionSettings settings, ForkJoinPool pool) {
+        this.settings = settings;
+        this.pool = pool;
+    }
+
+    /**
+     * @param population The breeders to choose parents from.
+     * @param childCount How many children to create.
+     * @param random The stream to split the children's streams from.
+     * @return The new generation, elite first.
+     */
+    public List<Breeder> breedNextGeneration(List<Breeder> population, int childCount, SplittableGenerator random) {
+        if (population.isEmpty() || childCount <= 0) {
+            return List.of();
+        }
+
+        List<Breeder> ranked = population.stream()
+                .sorted(Comparator.comparingInt(Breeder::getFitnessScore).reversed())
+                .toList();
+
+        int eliteCount = Math.min(Math.min(settings.eliteCount(), childCount), ranked.size());
+
+        List<Breeder> nextGeneration = new ArrayList<>(childCount);
+        for (int x = 0; x < eliteCount; x++) {
+            nextGeneration.add(ranked.get(x).copy());
+        }
+
+        int bredCount = childCount - eliteCount;
+        List<SplittableGenerator> childStreams = new ArrayList<>(bredCount);
+        for (int x = 0; x < bredCount; x++) {
+            childStreams.add(random.split());
+        }
+
+        List<double[]> genomes = pool.submit(() -> ranked.parallelStream()
+                .map(breeder -> breeder.getBrain().toParameterVector())
+                .toList()).join();
+
+        List<Breeder> bred = pool.submit(() -> IntStream.range(0, bredCount).parallel()
+                .mapToObj(x -> breedChild(ranked, genomes, childStreams.get(x)))
+                .toList()).join();
+
+        nextGeneration.addAll(bred);
+        return nextGeneration;
+    }
+
+    private Breeder breedChild(List<Breeder> ranked, List<double[]> genomes, SplittableGenerator random) {
+        int firstParent = selectParent(ranked.size(), random);
+        double[] childGenome;
+
+        if (ranked.size() > 1 && random.nextDouble() < settings.crossoverRate()) {
+            int secondParent = selectParent(ranked.size(), random);
+            childGenome = crossover(genomes.get(firstParent), genomes.get(secondParent), random);
+        } else {
+            childGenome = genomes.get(firstParent).clone();
+        }
+
+        mutate(childGenome, random);
+
+        Breeder parent = ranked.get(firstParent);
+        Brain childBrain = parent.getBrain().withParameterVector(childGenome);
+
+        return parent.offspringWith(childBrain, random.split());
+    }
+
+    /**
+     * @return The index, in the ranked population, of the selected parent.
+     */
+    int selectParent(int populationSize, RandomGenerator random) {
+        if (settings.selectionStrategy() == SelectionStrategy.RANK) {
+            return selectByRank(populationSize, random);
+        }
+
+        return selectByTournament(populationSize, random);
+    }
+
+    private int selectByTournament(int populationSize, RandomGenerator random) {
+        // The population is ranked best first, so the fittest entrant is the one with the lowest index.
+        int best = populationSize;
+
+        for (int x = 0; x < Math.max(1, settings.tournamentSize()); x++) {
+            best = Math.min(best, random.nextInt(populationSize));
+        }
+
+        return best;
+    }
+
+    private int selectByRank(int populationSize, RandomGenerator random) {
+        // Rank r (0 is best) has weight populationSize - r.
+        long totalWeight = (long) populationSize * (populationSize + 1) / 2;
+        long ticket = random.nextLong(totalWeight);
+
+        for (int rank = 0; rank < populationSize; rank++) {
+            ticket -= populationSize - rank;
+
+            if (ticket < 0) {
+                return rank;
+            }
+        }
+
+        return populationSize - 1;
+    }
+
+    private static double[] crossover(double[] firstGenome, double[] secondGenome, RandomGenerator random) {
+        double[] child = new double[firstGenome.length];
+
+        for (int x = 0; x < child.length; x++) {
+            child[x] = random.nextBoolean() ? firstGenome[x] : secondGenome[x];
+        }
+
+        return child;
+    }
+
+    private void mutate(double[] genome, RandomGenerator random) {
+        for (int x = 0; x < genome.length; x++) {
+            if (random.nextDouble() < settings.mutationRate()) {
+                genome[x] += random.nextGaussian() * settings.mutationStandardDeviation();
+            }
+        }
+    }
+}
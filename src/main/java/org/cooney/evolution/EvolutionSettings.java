@@ -0,0 +1,14 @@
+package org.cooney.evolution;
+
+/**
+ * The knobs for breeding a new generation.
+ * @param selectionStrategy How parents are picked.
+ * @param tournamentSize How many breeders take part in each tournament, when selecting by tournament.
+ * @param eliteCount How many of the very best breeders are carried into the new generation unchanged.
+ * @param crossoverRate The chance that a child is a crossover of two parents rather than a mutated copy of one.
+ * @param mutationRate The chance that any one weight of a child is mutated.
+ * @param mutationStandardDeviation The spread of the gaussian noise added to a mutated weight.
+ */
+public record EvolutionSettings(SelectionStrategy selectionStrategy, int tournamentSize, int eliteCount, double crossoverRate, double mutationRate, double mutationStandardDeviation) {
+    public static final EvolutionSettings DEFAULT = new EvolutionSettings(SelectionStrategy.TOURNAMENT, 3, 1, 0.7, 0.05, 0.1);
+}
@@ -0,0 +1,16 @@
+package org.cooney.evolution;
+
+/**
+ * How parents are picked from a population that has already been ranked, best first.
+ */
+public enum SelectionStrategy {
+    /**
+     * Pick a handful of breeders at random and take the fittest of them.
+     */
+    TOURNAMENT,
+    /**
+     * Pick with a probability that falls off linearly with rank, so the best breeder is the most likely and the worst
+     * is the least likely, no matter how far apart their scores are.
+     */
+    RANK
+}
@@ -0,0 +1,282 @@
+package org.cooney.matrix;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Single precision twin of {@link Matrix}. Same operations, same shapes, but the values are held as floats, so a
+ * matrix takes half the memory and half the bandwidth to stream through.
+ */
+public class FloatMatrix {
+    private float[][] data;
+    private final int rows;
+    private final int columns;
+
+    protected FloatMatrix(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.data = new float[rows][columns];
+    }
+
+    public FloatMatrix(int rows, int columns, boolean autoSeed) {
+        this(rows, columns);
+
+        if (autoSeed) {
+            randomlyInitialiseData(rows, columns, -1, 1, ThreadLocalRandom.current());
+        }
+    }
+
+    public FloatMatrix(int rows, int columns, RandomGenerator random) {
+        this(rows, columns);
+        randomlyInitialiseData(rows, columns, -1, 1, random);
+    }
+
+    public FloatMatrix(float[] seedArray) {
+        this(seedArray.length, 1);
+
+        for(int x = 0; x < seedArray.length; x++) {
+            this.data[x][0] = seedArray[x];
+        }
+    }
+
+    public FloatMatrix(double[] seedArray) {
+        this(seedArray.length, 1);
+
+        for(int x = 0; x < seedArray.length; x++) {
+            this.data[x][0] = (float) seedArray[x];
+        }
+    }
+
+    public FloatMatrix(int rows, int columns, float[][] data) {
+        this(rows, columns);
+
+        for(int x = 0; x < this.rows; x++) {
+            System.arraycopy(data[x], 0, this.data[x], 0, this.columns);
+        }
+    }
+
+    /**
+     * Narrows a double precision matrix down to floats.
+     */
+    public static FloatMatrix fromMatrix(Matrix m) {
+        FloatMatrix output = new FloatMatrix(m.getRows(), m.getColumns());
+
+        for(int x = 0; x < m.getRows(); x++) {
+            for(int y = 0; y < m.getColumns(); y++) {
+                output.data[x][y] = (float) m.getData()[x][y];
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Builds a matrix from a row major run of values inside a larger array, narrowing them to floats.
+     */
+    public static FloatMatrix fromFlatArray(int rows, int columns, double[] values, int offset) {
+        FloatMatrix output = new FloatMatrix(rows, columns);
+
+        for(int x = 0; x < rows; x++) {
+            for(int y = 0; y < columns; y++) {
+                output.data[x][y] = (float) values[offset + x * columns + y];
+            }
+        }
+
+        return output;
+    }
+
+    public FloatMatrix add(FloatMatrix m) throws InvalidMatrixShapeException {
+        if (m.getRows() != this.rows || m.getColumns() != this.columns){
+            throw new InvalidMatrixShapeException("Invalid Shape for Matrix Add");
+        }
+
+        FloatMatrix outputMatrix = new FloatMatrix(this.rows, this.columns);
+
+        for(int x = 0; x < rows; x++) {
+            for(int y = 0; y < columns; y++) {
+                outputMatrix.data[x][y] = this.data[x][y] + m.data[x][y];
+            }
+        }
+
+        return outputMatrix;
+    }
+
+    public FloatMatrix multiply(float factor) {
+        FloatMatrix outputMatrix = new FloatMatrix(this.rows, this.columns);
+
+        for(int x = 0; x < this.rows; x++) {
+            for(int y = 0; y < this.columns; y++) {
+                outputMatrix.data[x][y] = this.data[x][y] * factor;
+            }
+        }
+
+        return outputMatrix;
+    }
+
+    public FloatMatrix multiply(FloatMatrix m) throws InvalidMatrixShapeException {
+        if (m.getRows() != this.rows || m.getColumns() != this.columns){
+            throw new InvalidMatrixShapeException(String.format("Invalid Shape for Matrix Multiply - This = [%d, %d], m = [%d, %d]", this.rows, this.columns, m.getRows(), m.getColumns()));
+        }
+
+        FloatMatrix outputMatrix = new FloatMatrix(this.rows, this.columns);
+
+        for(int x = 0; x < rows; x++) {
+            for(int y = 0; y < columns; y++) {
+                outputMatrix.data[x][y] = this.data[x][y] * m.data[x][y];
+            }
+        }
+
+        return outputMatrix;
+    }
+
+    public FloatMatrix subtract(FloatMatrix m) throws InvalidMatrixShapeException {
+        if (m.getRows() != this.rows || m.getColumns() != this.columns){
+            throw new InvalidMatrixShapeException("Invalid Shape for Matrix Subtract");
+        }
+
+        FloatMatrix outputMatrix = new FloatMatrix(this.rows, this.columns);
+
+        for(int x = 0; x < rows; x++) {
+            for(int y = 0; y < columns; y++) {
+                outputMatrix.data[x][y] = this.data[x][y] - m.data[x][y];
+            }
+        }
+
+        return outputMatrix;
+    }
+
+    public FloatMatrix sigmoid() {
+        return sigmoid(Activation.EXACT);
+    }
+
+    /**
+     * Applies the sigmoid to every value, worked out the given way.
+     */
+    public FloatMatrix sigmoid(Activation activation) {
+        FloatMatrix outputMatrix = new FloatMatrix(this.rows, this.columns);
+
+        for(int x = 0; x < this.rows; x++) {
+            for(int y = 0; y < this.columns; y++) {
+                outputMatrix.data[x][y] = activation.sigmoid(this.data[x][y]);
+            }
+        }
+
+        return outputMatrix;
+    }
+
+    public FloatMatrix derivativeSigmoid() {
+        FloatMatrix outputMatrix = new FloatMatrix(this.rows, this.columns);
+
+        for(int x = 0; x < this.rows; x++) {
+            for(int y = 0; y < this.columns; y++) {
+                outputMatrix.data[x][y] = this.data[x][y] * (1 - this.data[x][y]);
+            }
+        }
+
+        return outputMatrix;
+    }
+
+    public FloatMatrix transpose() {
+        FloatMatrix output = new FloatMatrix(this.columns, this.rows);
+
+        for(int x = 0; x < this.rows; x++) {
+            for(int y = 0; y < this.columns; y++) {
+                output.data[y][x] = this.data[x][y];
+            }
+        }
+
+        return output;
+    }
+
+    public FloatMatrix dotProduct(FloatMatrix m2) throws InvalidMatrixShapeException {
+        if (this.columns != m2.getRows()) {
+            throw new InvalidMatrixShapeException(String.format("Columns of m1 must equal rows of m2 for dot product. m1.columns = %d & m2.rows = %d", this.columns, m2.getRows()));
+        }
+
+        FloatMatrix outputMatrix = new FloatMatrix(this.rows, m2.getColumns());
+
+        for(int x = 0; x < outputMatrix.getRows(); x++) {
+            for(int y = 0; y < outputMatrix.getColumns(); y++) {
+                float total = 0;
+                for(int k = 0; k < this.columns; k++) {
+                    total += this.data[x][k] * m2.data[k][y];
+                }
+                outputMatrix.data[x][y] = total;
+            }
+        }
+
+        return outputMatrix;
+    }
+
+    /**
+     * Runs a whole dense layer in one pass, writing sigmoid(weights . input + bias) into the output. See
+     * {@link Matrix#denseLayer}.
+     */
+    public void denseLayer(float[] input, FloatMatrix bias, Activation activation, float[] output) throws InvalidMatrixShapeException {
+        if (input.length != this.columns || bias.getRows() != this.rows || bias.getColumns() != 1 || output.length != this.rows) {
+            throw new InvalidMatrixShapeException(String.format("Invalid Shape for Dense Layer - This = [%d, %d], input = %d, bias = [%d, %d], output = %d", this.rows, this.columns, input.length, bias.getRows(), bias.getColumns(), output.length));
+        }
+
+        for(int x = 0; x < this.rows; x++) {
+            float[] row = this.data[x];
+            float total = 0;
+            for(int k = 0; k < this.columns; k++) {
+                total += row[k] * input[k];
+            }
+            output[x] = activation.sigmoid(total + bias.data[x][0]);
+        }
+    }
+
+    private void randomlyInitialiseData(int rows, int cols, int seedMin, int seedMax, RandomGenerator random) {
+        for(int x = 0; x < rows; x++) {
+            for(int y = 0; y < cols; y++) {
+                this.data[x][y] = random.nextFloat()*(seedMax - seedMin) + seedMin;
+            }
+        }
+    }
+
+    public float[][] getData() {
+        return data;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public float[] toFlatArray() {
+        float[] outputArray = new float[rows * columns];
+
+        int pointer = 0;
+        for(int x = 0; x < this.rows; x++) {
+            for(int y = 0; y < this.columns; y++) {
+                outputArray[pointer++] = this.data[x][y];
+            }
+        }
+
+        return outputArray;
+    }
+
+    /**
+     * Widens the values back out to doubles, e.g. to hand predictions back to code that works in double precision.
+     */
+    public double[] toFlatDoubleArray() {
+        double[] outputArray = new double[rows * columns];
+
+        int pointer = 0;
+        for(int x = 0; x < this.rows; x++) {
+            for(int y = 0; y < this.columns; y++) {
+                outputArray[pointer++] = this.data[x][y];
+            }
+        }
+
+        return outputArray;
+    }
+
+    public FloatMatrix copy() {
+        return new FloatMatrix(this.rows, this.columns, this.data);
+    }
+}
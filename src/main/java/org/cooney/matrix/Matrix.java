@@ -1,7 +1,7 @@
 package org.cooney.matrix;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class Matrix {
     private double[][] data;
@@ -18,13 +18,22 @@ public class Matrix {
         this(rows, columns);
 
         if (autoSeed) {
-            randomlyInitialiseData(rows, columns, -1, 1);
+            randomlyInitialiseData(rows, columns, -1, 1, ThreadLocalRandom.current());
         }
     }
 
+    /**
+     * Builds a matrix seeded with values between -1 and 1, drawn from the given stream.
+     * @param random The stream to draw from. Use this when the values need to be reproducible from a world seed.
+     */
+    public Matrix(int rows, int columns, RandomGenerator random) {
+        this(rows, columns);
+        randomlyInitialiseData(rows, columns, -1, 1, random);
+    }
+
     public Matrix(int rows, int columns, int seedValueMinimum, int seedValueMaximum) {
         this(rows, columns);
-        randomlyInitialiseData(rows, columns, seedValueMinimum, seedValueMaximum);
+        randomlyInitialiseData(rows, columns, seedValueMinimum, seedValueMaximum, ThreadLocalRandom.current());
     }
 
     public Matrix(double[] seedArray) {
@@ -47,6 +56,21 @@ public class Matrix {
         }
     }
 
+    /**
+     * Builds a matrix from a row major run of values inside a larger array.
+     * @param values The array holding the values.
+     * @param offset Where in the array the first value of the matrix sits.
+     */
+    public static Matrix fromFlatArray(int rows, int columns, double[] values, int offset) {
+        Matrix output = new Matrix(rows, columns);
+
+        for(int x = 0; x < rows; x++) {
+            System.arraycopy(values, offset + x * columns, output.data[x], 0, columns);
+        }
+
+        return output;
+    }
+
     public Matrix add(double scalar) {
         Matrix outputMatrix = new Matrix(this.rows, this.columns);
 
@@ -59,6 +83,56 @@ public class Matrix {
         return outputMatrix;
     }
 
+    /**
+     * Builds a matrix with one column per array, e.g. to push a whole batch of inputs through a network at once.
+     */
+    public static Matrix fromColumns(double[][] columns) {
+        Matrix output = new Matrix(columns[0].length, columns.length);
+
+        for(int y = 0; y < columns.length; y++) {
+            for(int x = 0; x < output.rows; x++) {
+                output.data[x][y] = columns[y][x];
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Adds a single column to every column of this matrix, e.g. a layer's bias to each input in a batch.
+     */
+    public Matrix addToEachColumn(Matrix column) throws InvalidMatrixShapeException {
+        if (column.getRows() != this.rows || column.getColumns() != 1) {
+            throw new InvalidMatrixShapeException(String.format("Invalid Shape for Column Add - This = [%d, %d], column = [%d, %d]", this.rows, this.columns, column.getRows(), column.getColumns()));
+        }
+
+        Matrix outputMatrix = new Matrix(this.rows, this.columns);
+
+        for(int x = 0; x < rows; x++) {
+            double value = column.data[x][0];
+            for(int y = 0; y < columns; y++) {
+                outputMatrix.data[x][y] = this.data[x][y] + value;
+            }
+        }
+
+        return outputMatrix;
+    }
+
+    /**
+     * The columns of the matrix, each as its own array - the opposite of {@link #fromColumns(double[][])}.
+     */
+    public double[][] toColumnArrays() {
+        double[][] output = new double[columns][rows];
+
+        for(int x = 0; x < rows; x++) {
+            for(int y = 0; y < columns; y++) {
+                output[y][x] = this.data[x][y];
+            }
+        }
+
+        return output;
+    }
+
     public Matrix add(Matrix m) throws InvalidMatrixShapeException {
         if (m.getRows() != this.rows || m.getColumns() != this.columns){
             throw new InvalidMatrixShapeException("Invalid Shape for Matrix Add");
@@ -75,6 +149,27 @@ public class Matrix {
         return outputMatrix;
     }
 
+    /**
+     * Adds the given matrix into this one rather than into a new matrix, e.g. to keep a running total without
+     * allocating for every term.
+     * @return This matrix.
+     */
+    public Matrix addInPlace(Matrix m) throws InvalidMatrixShapeException {
+        if (m.getRows() != this.rows || m.getColumns() != this.columns){
+            throw new InvalidMatrixShapeException("Invalid Shape for Matrix Add");
+        }
+
+        for(int x = 0; x < rows; x++) {
+            double[] target = this.data[x];
+            double[] source = m.data[x];
+            for(int y = 0; y < columns; y++) {
+                target[y] += source[y];
+            }
+        }
+
+        return this;
+    }
+
     public Matrix multiply(double factor) {
         Matrix outputMatrix = new Matrix(this.rows, this.columns);
 
@@ -132,11 +227,18 @@ public class Matrix {
     }
 
     public Matrix sigmoid() {
+        return sigmoid(Activation.EXACT);
+    }
+
+    /**
+     * Applies the sigmoid to every value, worked out the given way.
+     */
+    public Matrix sigmoid(Activation activation) {
         Matrix outputMatrix = new Matrix(this.rows, this.columns);
 
         for(int x = 0; x < this.rows; x++) {
             for(int y = 0; y < this.columns; y++) {
-                outputMatrix.getData()[x][y] = 1/(1 +Math.exp(-this.data[x][y]));
+                outputMatrix.getData()[x][y] = activation.sigmoid(this.data[x][y]);
             }
         }
 
@@ -172,7 +274,7 @@ public class Matrix {
             throw new InvalidMatrixShapeException(String.format("Columns of m1 must equal rows of m2 for dot product. m1.columns = %d & m2.rows = %d", this.columns, m2.getRows()));
         }
 
-        Matrix outputMatrix = new Matrix(this.rows, m2.getColumns(), true);
+        Matrix outputMatrix = new Matrix(this.rows, m2.getColumns());
 
         for(int x = 0; x < outputMatrix.getRows(); x++) {
             for(int y = 0; y < outputMatrix.getColumns(); y++) {
@@ -187,14 +289,96 @@ public class Matrix {
         return outputMatrix;
     }
 
+    /**
+     * Runs a whole dense layer in one pass: treats this matrix as the layer's weights and writes
+     * sigmoid(weights . input + bias) into the output, without building the product, the sum or the activations as
+     * matrices of their own. Gives exactly the same values as {@code dotProduct(new Matrix(input)).add(bias).sigmoid(activation)}.
+     * @param input One value per column of this matrix.
+     * @param bias A single column with one value per row of this matrix.
+     * @param output Where to write the activations, one per row of this matrix. Can be reused between calls.
+     */
+    public void denseLayer(double[] input, Matrix bias, Activation activation, double[] output) throws InvalidMatrixShapeException {
+        if (input.length != this.columns || bias.getRows() != this.rows || bias.getColumns() != 1 || output.length != this.rows) {
+            throw new InvalidMatrixShapeException(String.format("Invalid Shape for Dense Layer - This = [%d, %d], input = %d, bias = [%d, %d], output = %d", this.rows, this.columns, input.length, bias.getRows(), bias.getColumns(), output.length));
+        }
+
+        for(int x = 0; x < this.rows; x++) {
+            double[] row = this.data[x];
+            double total = 0;
+            for(int k = 0; k < this.columns; k++) {
+                total += row[k] * input[k];
+            }
+            output[x] = activation.sigmoid(total + bias.data[x][0]);
+        }
+    }
+
+    /**
+     * The transpose of this matrix dotted with the column, worked out without building the transpose.
+     */
+    public double[] transposeDotProduct(double[] column) throws InvalidMatrixShapeException {
+        if (column.length != this.rows) {
+            throw new InvalidMatrixShapeException(String.format("Rows of m1 must equal the length of the column for transpose dot product. m1.rows = %d & column.length = %d", this.rows, column.length));
+        }
+
+        double[] output = new double[this.columns];
+
+        for(int y = 0; y < this.columns; y++) {
+            double total = 0;
+            for(int x = 0; x < this.rows; x++) {
+                total += this.data[x][y] * column[x];
+            }
+            output[y] = total;
+        }
+
+        return output;
+    }
+
+    /**
+     * The outer product of a column and a row, i.e. {@code new Matrix(column).dotProduct(new Matrix(row).transpose())}.
+     */
+    public static Matrix outerProduct(double[] column, double[] row) {
+        Matrix output = new Matrix(column.length, row.length);
+
+        for(int x = 0; x < column.length; x++) {
+            for(int y = 0; y < row.length; y++) {
+                output.data[x][y] = column[x] * row[y];
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Adds the outer product of the column and the row to this matrix, in one pass and into a new matrix, e.g. to
+     * apply a layer's weight change straight from its gradient and its inputs.
+     */
+    public Matrix addOuterProduct(double[] column, double[] row) throws InvalidMatrixShapeException {
+        if (column.length != this.rows || row.length != this.columns) {
+            throw new InvalidMatrixShapeException(String.format("Invalid Shape for Outer Product Add - This = [%d, %d], column = %d, row = %d", this.rows, this.columns, column.length, row.length));
+        }
+
+        Matrix outputMatrix = new Matrix(this.rows, this.columns);
+
+        for(int x = 0; x < this.rows; x++) {
+            double[] source = this.data[x];
+            double[] target = outputMatrix.data[x];
+            double factor = column[x];
+            for(int y = 0; y < this.columns; y++) {
+                target[y] = source[y] + factor * row[y];
+            }
+        }
+
+        return outputMatrix;
+    }
+
     private static boolean isMatricesDefined(Matrix m1, Matrix m2) {
         return m1.getColumns() == m2.getRows();
     }
 
-    private void randomlyInitialiseData(int rows, int cols, int seedMin, int seedMax) {
+    private void randomlyInitialiseData(int rows, int cols, int seedMin, int seedMax, RandomGenerator random) {
         for(int x = 0; x < rows; x++) {
             for(int y = 0; y < cols; y++) {
-                this.data[x][y] = Math.random()*(seedMax - seedMin) + seedMin;
+                this.data[x][y] = random.nextDouble()*(seedMax - seedMin) + seedMin;
             }
         }
     }
@@ -0,0 +1,109 @@
+package org.cooney.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free latency histogram in the style of HdrHistogram.
+ *
+ * Values below 16 get a bucket each. Above that, every power of two range is split into 16 equal buckets, so any
+ * recorded value is known to within about 6% no matter how big it is, using fewer than a thousand counters to cover
+ * the whole range of a long. Recording is a couple of shifts and one atomic increment, so it is cheap enough to sit
+ * on the hot path of every actor step.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param value The value to record, e.g. a duration in nanoseconds. Negative values are counted as zero.
+     */
+    public void record(long value) {
+        long safeValue = Math.max(0, value);
+        counts.incrementAndGet(bucketIndex(safeValue));
+        totalCount.increment();
+        totalValue.add(safeValue);
+        maxValue.accumulate(safeValue);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) totalValue.sum() / count;
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * @param percentile Between 0 and 100, e.g. 99 for the p99.
+     * @return The highest value that could have landed in the bucket holding the requested percentile.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(count * Math.min(100, percentile) / 100));
+        long seen = 0;
+
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            seen += counts.get(index);
+
+            if (seen >= target) {
+                return Math.min(highestValueInBucket(index), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    public void reset() {
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            counts.set(index, 0);
+        }
+
+        totalCount.reset();
+        totalValue.reset();
+        maxValue.reset();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+        long highest = ((subBucket + 1) << shift) - 1;
+
+        // The very top bucket runs past the end of a long.
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
@@ -0,0 +1,106 @@
+package org.cooney.metrics;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds the named counters, latency histograms and gauges for one world.
+ *
+ * Metrics are created the first time they are asked for, so instrumented code just asks for the metric by name
+ * wherever it needs it. Everything can be read at any time from any thread, and {@link #startPeriodicDump} prints a
+ * report on a background thread.
+ */
+public class MetricsRegistry {
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService dumpExecutor;
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, ignored -> new LongAdder());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, ignored -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers a value which is read whenever a report is made, e.g. the current population size.
+     */
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Records how long has passed since the given start time into the named histogram.
+     * @param startNanos A value previously returned by {@link System#nanoTime()}.
+     */
+    public void recordSince(String histogramName, long startNanos) {
+        histogram(histogramName).record(System.nanoTime() - startNanos);
+    }
+
+    public Map<String, Long> getCounterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    public Map<String, Long> getGaugeValues() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    public Map<String, LatencyHistogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    /**
+     * @return A human readable report of every metric. Latencies are reported in microseconds.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+
+        getGaugeValues().forEach((name, value) -> report.append(String.format("%-28s %d%n", name, value)));
+        getCounterValues().forEach((name, value) -> report.append(String.format("%-28s %d%n", name, value)));
+        getHistograms().forEach((name, histogram) -> report.append(String.format(
+                "%-28s count=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus%n",
+                name,
+                histogram.getCount(),
+                histogram.getMean() / 1000,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getMax() / 1000.0)));
+
+        return report.toString();
+    }
+
+    /**
+     * Prints {@link #report()} to the given stream every period, on a background daemon thread.
+     */
+    public synchronized void startPeriodicDump(long periodInMillis, PrintStream out) {
+        stopPeriodicDump();
+
+        dumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpExecutor.scheduleAtFixedRate(() -> out.print(report()), periodInMillis, periodInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (dumpExecutor != null) {
+            dumpExecutor.shutdownNow();
+            dumpExecutor = null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.cooney.metrics;
+
+/**
+ * The names of the metrics the simulation records.
+ */
+public class SimulationMetrics {
+    public static final String ACTOR_STEP = "actor.step";
+    public static final String ACTOR_PERCEIVE = "actor.perceive";
+    public static final String ACTOR_DECIDE = "actor.decide";
+    public static final String ACTOR_MOVE = "actor.move";
+    public static final String ACTOR_CONSUME = "actor.consume";
+    public static final String ACTOR_ATTACK = "actor.attack";
+    public static final String ACTOR_REMEMBER = "actor.remember";
+    public static final String ACTOR_LEARN = "actor.learn";
+
+    public static final String WORLD_MOVE_ACTOR = "world.moveActor";
+    public static final String WORLD_MOVE_COLLISIONS = "world.moveActor.collisions";
+    public static final String WORLD_REPRODUCE_CYCLE = "world.reproduce.cycle";
+    public static final String WORLD_CHILDREN_BORN = "world.reproduce.children";
+    public static final String WORLD_POPULATION = "world.population";
+
+    public static final String RESOURCES_CONSUMED = "resources.consumed";
+    public static final String RESOURCES_REGENERATED = "resources.regenerated";
+    public static final String RESOURCES_PENDING_REGENERATION = "resources.pendingRegeneration";
+
+    public static final String WORLD_REGION_TICK = "world.region.tick";
+    public static final String WORLD_REGION_HANDOFFS = "world.region.handoffs";
+
+    public static final String VECTOR_STEP = "vector.step";
+    public static final String VECTOR_DECIDE = "vector.decide";
+
+    public static final String BRAIN_CACHE_HITS = "brain.cache.hits";
+    public static final String BRAIN_CACHE_MISSES = "brain.cache.misses";
+    public static final String BRAIN_CACHE_HIT_RATE_PERCENT = "brain.cache.hitRatePercent";
+}
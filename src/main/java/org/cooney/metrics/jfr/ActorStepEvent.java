@@ -0,0 +1,29 @@
+package org.cooney.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.cooney.ActorStep")
+@Label("Actor Step")
+@Description("One tick of an actor: perceive, decide, move and remember, or learn")
+@Category({"DeepQ Civ", "Actors"})
+@Threshold("10 ms")
+@StackTrace(false)
+public class ActorStepEvent extends jdk.jfr.Event {
+    @Label("Actor Id")
+    public long actorId;
+
+    @Label("Tick")
+    public int tick;
+
+    @Label("Actor Type")
+    public String actorType;
+
+    @Label("Learned")
+    @Description("True if the actor spent this tick learning rather than moving")
+    public boolean learned;
+}
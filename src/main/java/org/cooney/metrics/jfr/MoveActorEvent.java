@@ -0,0 +1,38 @@
+package org.cooney.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.cooney.MoveActor")
+@Label("Move Actor")
+@Description("The world moving an actor from one cell to another")
+@Category({"DeepQ Civ", "World"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class MoveActorEvent extends jdk.jfr.Event {
+    @Label("Actor Id")
+    public long actorId;
+
+    @Label("Tick")
+    public int tick;
+
+    @Label("From Y")
+    public int fromY;
+
+    @Label("From X")
+    public int fromX;
+
+    @Label("To Y")
+    public int toY;
+
+    @Label("To X")
+    public int toX;
+
+    @Label("Collision")
+    @Description("True if another actor was already in the destination cell")
+    public boolean collision;
+}
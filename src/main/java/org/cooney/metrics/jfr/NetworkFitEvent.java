@@ -0,0 +1,29 @@
+package org.cooney.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.cooney.NetworkFit")
+@Label("Network Fit")
+@Description("Fitting a brain to a batch of remembered experiences with Q-Learning")
+@Category({"DeepQ Civ", "Training"})
+@Threshold("5 ms")
+@StackTrace(false)
+public class NetworkFitEvent extends jdk.jfr.Event {
+    @Label("Brain Type")
+    public String brainType;
+
+    @Label("Epochs")
+    public int epochs;
+
+    @Label("Data Size")
+    @Description("The number of experiences the samples were drawn from")
+    public int dataSize;
+
+    @Label("Input Count")
+    public int inputCount;
+}
@@ -0,0 +1,25 @@
+package org.cooney.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.cooney.NetworkTrain")
+@Label("Network Train")
+@Description("A single backpropagation step of a neural network")
+@Category({"DeepQ Civ", "Training"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class NetworkTrainEvent extends jdk.jfr.Event {
+    @Label("Input Count")
+    public int inputCount;
+
+    @Label("Hidden Count")
+    public int hiddenCount;
+
+    @Label("Output Count")
+    public int outputCount;
+}
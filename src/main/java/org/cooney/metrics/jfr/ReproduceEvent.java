@@ -0,0 +1,26 @@
+package org.cooney.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.cooney.Reproduce")
+@Label("Reproduce Cycle")
+@Description("Breeding a new generation and adding it to the world")
+@Category({"DeepQ Civ", "World"})
+@Threshold("0 ms")
+@StackTrace(false)
+public class ReproduceEvent extends jdk.jfr.Event {
+    @Label("Breeders")
+    public int breeders;
+
+    @Label("Children")
+    public int children;
+
+    @Label("Population")
+    @Description("The population before the children were added")
+    public int population;
+}
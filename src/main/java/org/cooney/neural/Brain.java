@@ -0,0 +1,153 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.metrics.jfr.NetworkFitEvent;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Anything an agent can think with. The agents only ever predict, train and copy their brain, so this is all they
+ * see - which lets a world swap in a different kind of network (see {@link BrainKind}) without the agents noticing.
+ */
+public interface Brain {
+    double DISCOUNT = 0.95;
+
+    /**
+     * Uses the current weights to predict an outcome.
+     * @param inputs The desired input parameters
+     * @return The predicted output parameters
+     * @throws InvalidMatrixShapeException If the inputs don't fit the input layer.
+     */
+    double[] predict(double[] inputs) throws InvalidMatrixShapeException;
+
+    /**
+     * Predicts outcomes for a whole batch of inputs at once. Implementations can do this in one pass over their
+     * weights rather than one pass per input.
+     * @param inputs One set of input parameters per row.
+     * @return The predicted output parameters, one row per input.
+     * @throws InvalidMatrixShapeException If any of the inputs don't fit the input layer.
+     */
+    default double[][] predictBatch(double[][] inputs) throws InvalidMatrixShapeException {
+        double[][] outputs = new double[inputs.length][];
+
+        for (int i = 0; i < inputs.length; i++) {
+            outputs[i] = predict(inputs[i]);
+        }
+
+        return outputs;
+    }
+
+    /**
+     * Updates the weights based on the error between the prediction for the input and the target.
+     * @throws InvalidMatrixShapeException The input or target is not in the right format for the network.
+     */
+    void train(double[] input, double[] target) throws InvalidMatrixShapeException;
+
+    /**
+     * Whether the brain learns from each transition offered with {@link #offerTransition} rather than by being
+     * trained on an agent's memories. Agents with such a brain don't stop to learn.
+     */
+    default boolean learnsFromTransitions() {
+        return false;
+    }
+
+    /**
+     * Hands the brain a transition to learn from in its own time. Ignored unless {@link #learnsFromTransitions()}.
+     * @param state The input the brain was given.
+     * @param action The index of the action taken.
+     * @param reward The score the action earned.
+     * @param nextState The input the brain would be given in the state the action led to.
+     */
+    default void offerTransition(double[] state, int action, double reward, double[] nextState) {
+    }
+
+    /**
+     * Copies the brain. Copies are cheap: implementations share their weights with the original until either side
+     * trains, so breeding a generation doesn't duplicate identical weights.
+     */
+    Brain copy();
+
+    /**
+     * Flattens every weight and bias into one vector, in the same order the {@link BrainSerializer} writes them:
+     * input to hidden weights, hidden bias, hidden to output weights, output bias.
+     */
+    double[] toParameterVector();
+
+    /**
+     * Builds a brain of the same kind and shape as this one, but with the given parameters.
+     * @param parameters A vector laid out like the one returned by {@link #toParameterVector()}.
+     */
+    Brain withParameterVector(double[] parameters);
+
+    /**
+     * Fits the brain to the data using Q-Learning, training on one randomly picked sample per epoch.
+     * @param trainingData an object containing neural network training data for fitness to work on this network.
+     * @param epochs The number of times to train the network, i.e. the number of iterations.
+     * @param random The stream used to pick which samples to train on.
+     */
+    default void fit(NeuralNetworkTrainingData trainingData, int epochs, RandomGenerator random) throws InvalidMatrixShapeException {
+        fit(trainingData, epochs, random, DISCOUNT);
+    }
+
+    /**
+     * Fits the brain like {@link #fit(NeuralNetworkTrainingData, int, RandomGenerator)}, discounting the value of
+     * the next state by the given amount rather than {@link #DISCOUNT}.
+     */
+    default void fit(NeuralNetworkTrainingData trainingData, int epochs, RandomGenerator random, double discount) throws InvalidMatrixShapeException {
+        NetworkFitEvent fitEvent = new NetworkFitEvent();
+        fitEvent.begin();
+
+        for(int iterationCount = 0; iterationCount < epochs; iterationCount++) {
+            int randomIndex = random.nextInt(trainingData.getDataSize());
+
+            double[] input = trainingData.getInputAtIndex(randomIndex);
+            double[] newState = trainingData.getNewStateAtIndex(randomIndex);
+            double score = trainingData.getRewardAtIndex(randomIndex);
+            int action = trainingData.getActionAtIndex(randomIndex);
+
+            trainOnTransition(input, action, score, newState, discount);
+        }
+
+        fitEvent.end();
+        if (fitEvent.shouldCommit()) {
+            fitEvent.brainType = getClass().getSimpleName();
+            fitEvent.epochs = epochs;
+            fitEvent.dataSize = trainingData.getDataSize();
+            fitEvent.inputCount = trainingData.getDataSize() == 0 ? 0 : trainingData.getInputAtIndex(0).length;
+            fitEvent.commit();
+        }
+    }
+
+    /**
+     * Trains on a single transition with Q-Learning, towards its {@link #qLearningTarget Q-Learning target}.
+     * Implementations which can reuse the prediction for the old state when training on it should override this.
+     */
+    default void trainOnTransition(double[] oldState, int action, double score, double[] newState, double discount) throws InvalidMatrixShapeException {
+        train(oldState, qLearningTarget(oldState, action, score, newState, discount));
+    }
+
+    /**
+     * The Q-Learning target for a transition: the current Q values for the state, with the one for the action taken
+     * replaced by the reward plus the discounted best Q value of the state it led to.
+     */
+    default double[] qLearningTarget(double[] state, int action, double reward, double[] nextState, double discount) throws InvalidMatrixShapeException {
+        return qLearningTargetFrom(predict(state), action, reward, predict(nextState), discount);
+    }
+
+    /**
+     * The Q-Learning target for a transition, from Q values already worked out for both states. Every brain's
+     * Q-Learning comes down to this, whichever way it gets the Q values.
+     * @param qValues The Q values for the state the action was taken in. Left as they are.
+     * @param nextQValues The Q values for the state it led to.
+     */
+    static double[] qLearningTargetFrom(double[] qValues, int action, double reward, double[] nextQValues, double discount) {
+        double bestNextQValue = nextQValues[0];
+        for (double qValue : nextQValues) {
+            bestNextQValue = Math.max(bestNextQValue, qValue);
+        }
+
+        double[] target = qValues.clone();
+        target[action] = reward + discount * bestNextQValue;
+        return target;
+    }
+}
@@ -0,0 +1,102 @@
+package org.cooney.neural;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The kinds of brain a world can hand out to its agents. Chosen per world through the seeder.
+ */
+public enum BrainKind {
+    DOUBLE {
+        @Override
+        public Brain create(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random) {
+            return new NeuralNetwork(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, random);
+        }
+
+        @Override
+        public Brain from(NeuralNetwork network) {
+            return network.copy();
+        }
+    },
+    FLOAT {
+        @Override
+        public Brain create(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random) {
+            return new FloatNeuralNetwork(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, random);
+        }
+
+        @Override
+        public Brain from(NeuralNetwork network) {
+            return FloatNeuralNetwork.fromNeuralNetwork(network);
+        }
+    },
+    /**
+     * Double precision, with the weights kept off the heap.
+     */
+    OFF_HEAP {
+        @Override
+        public Brain create(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random) {
+            return OffHeapNeuralNetwork.from(new NeuralNetwork(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, random));
+        }
+
+        @Override
+        public Brain from(NeuralNetwork network) {
+            return OffHeapNeuralNetwork.from(network);
+        }
+    },
+    /**
+     * Double precision, with the agent's categorical inputs (e.g. what it can see) one-hot encoded - see
+     * {@link CategoricalInputNetwork}. A brain built without knowing which inputs are categorical is an ordinary
+     * double one.
+     */
+    CATEGORICAL {
+        @Override
+        public Brain create(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random) {
+            return DOUBLE.create(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, random);
+        }
+
+        @Override
+        public Brain create(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random, CategoricalInputs categoricalInputs) {
+            if (categoricalInputs.isEmpty()) {
+                return create(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, random);
+            }
+
+            return new CategoricalInputNetwork(inputValuesCount, hiddenValuesCount, outputValuesCount, categoricalInputs, learningRate, random);
+        }
+
+        /**
+         * A network trained on the raw inputs has no weights for the encoded ones, so it is used as it is.
+         */
+        @Override
+        public Brain from(NeuralNetwork network) {
+            return network.copy();
+        }
+    },
+    /**
+     * Learns in double precision but acts through an int8 snapshot of the network.
+     */
+    INT8_ACTING {
+        @Override
+        public Brain create(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random) {
+            return new QuantizedActingBrain(new NeuralNetwork(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, random));
+        }
+
+        @Override
+        public Brain from(NeuralNetwork network) {
+            return new QuantizedActingBrain(network.copy());
+        }
+    };
+
+    public abstract Brain create(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random);
+
+    /**
+     * Builds a fresh brain for inputs some of which are categorical. Only kinds which encode categories differently
+     * care which ones they are.
+     */
+    public Brain create(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random, CategoricalInputs categoricalInputs) {
+        return create(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, random);
+    }
+
+    /**
+     * Builds a brain of this kind which starts out with the given network's weights, e.g. one trained offline.
+     */
+    public abstract Brain from(NeuralNetwork network);
+}
@@ -0,0 +1,191 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.FloatMatrix;
+import org.cooney.matrix.Matrix;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads and writes brains in a small binary format. All values are big endian:
+ *
+ * <pre>
+ * int    magic ("DQBR")
+ * int    format version
+ * byte   precision (0 = double, 1 = float, 2 = double with categorical inputs)
+ * double learning rate
+ * int    input count, hidden count, output count
+ * then, as one contiguous block of doubles or floats:
+ *        input -> hidden weights (row major), hidden bias, hidden -> output weights (row major), output bias
+ * </pre>
+ *
+ * Brains with categorical inputs count their inputs before encoding, and between the header and the weights add:
+ *
+ * <pre>
+ * int    category count, categorical input count
+ * int[categorical input count] categorical input positions
+ * </pre>
+ *
+ * and their input -> hidden weights cover the encoded inputs (see {@link CategoricalInputNetwork#toParameterVector()}).
+ *
+ * Float brains are written as floats, so a saved float brain is half the size of a double one. Brains which act
+ * through an int8 snapshot or a prediction cache are saved as the double network behind them, and off heap brains as
+ * ordinary double ones - which {@link OffHeapNeuralNetwork#map} can then map straight back off the disk.
+ */
+public class BrainSerializer {
+    public static final int MAGIC = 0x44514252;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE_IN_BYTES = 4 + 4 + 1 + 8 + 4 + 4 + 4;
+
+    public static final byte DOUBLE_PRECISION = 0;
+    public static final byte FLOAT_PRECISION = 1;
+    public static final byte CATEGORICAL_DOUBLE_PRECISION = 2;
+
+    public static void write(Brain brain, DataOutputStream out) throws IOException {
+        if (brain instanceof NeuralNetwork neuralNetwork) {
+            Matrix inputHiddenLayerWeights = neuralNetwork.getInputHiddenLayerWeights();
+            writeHeader(out, DOUBLE_PRECISION, neuralNetwork.getLearningRate(), inputHiddenLayerWeights.getColumns(), inputHiddenLayerWeights.getRows(), neuralNetwork.getOutputLayerBias().getRows());
+            writeDoubles(out, neuralNetwork.getInputHiddenLayerWeights().toFlatArray());
+            writeDoubles(out, neuralNetwork.getHiddenLayerBias().toFlatArray());
+            writeDoubles(out, neuralNetwork.getHiddenOutputLayerWeights().toFlatArray());
+            writeDoubles(out, neuralNetwork.getOutputLayerBias().toFlatArray());
+        } else if (brain instanceof FloatNeuralNetwork floatNeuralNetwork) {
+            FloatMatrix inputHiddenLayerWeights = floatNeuralNetwork.getInputHiddenLayerWeights();
+            writeHeader(out, FLOAT_PRECISION, floatNeuralNetwork.getLearningRate(), inputHiddenLayerWeights.getColumns(), inputHiddenLayerWeights.getRows(), floatNeuralNetwork.getOutputLayerBias().getRows());
+            writeFloats(out, inputHiddenLayerWeights.toFlatArray());
+            writeFloats(out, floatNeuralNetwork.getHiddenLayerBias().toFlatArray());
+            writeFloats(out, floatNeuralNetwork.getHiddenOutputLayerWeights().toFlatArray());
+            writeFloats(out, floatNeuralNetwork.getOutputLayerBias().toFlatArray());
+        } else if (brain instanceof OffHeapNeuralNetwork offHeapNeuralNetwork) {
+            writeHeader(out, DOUBLE_PRECISION, offHeapNeuralNetwork.getLearningRate(), offHeapNeuralNetwork.getInputCount(), offHeapNeuralNetwork.getHiddenCount(), offHeapNeuralNetwork.getOutputCount());
+            writeDoubles(out, offHeapNeuralNetwork.toParameterVector());
+        } else if (brain instanceof CategoricalInputNetwork categoricalInputNetwork) {
+            CategoricalInputs categoricalInputs = categoricalInputNetwork.getCategoricalInputs();
+            writeHeader(out, CATEGORICAL_DOUBLE_PRECISION, categoricalInputNetwork.getLearningRate(), categoricalInputNetwork.getInputCount(), categoricalInputNetwork.getHiddenCount(), categoricalInputNetwork.getOutputCount());
+            out.writeInt(categoricalInputs.categoryCount());
+            out.writeInt(categoricalInputs.positions().length);
+            for (int position : categoricalInputs.positions()) {
+                out.writeInt(position);
+            }
+            writeDoubles(out, categoricalInputNetwork.toParameterVector());
+        } else if (brain instanceof CachingBrain cachingBrain) {
+            write(cachingBrain.getNetwork(), out);
+        } else if (brain instanceof QuantizedActingBrain quantizedActingBrain) {
+            // The int8 snapshot can always be rebuilt, so only the network it was built from is saved.
+            write(quantizedActingBrain.getLearningNetwork(), out);
+        } else {
+            throw new IllegalArgumentException("Don't know how to write a brain of type " + brain.getClass().getSimpleName());
+        }
+    }
+
+    public static Brain read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a brain file - bad magic number");
+        }
+
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported brain file version " + version);
+        }
+
+        byte precision = in.readByte();
+        double learningRate = in.readDouble();
+        int inputCount = in.readInt();
+        int hiddenCount = in.readInt();
+        int outputCount = in.readInt();
+
+        if (precision == DOUBLE_PRECISION) {
+            Matrix inputHiddenLayerWeights = new Matrix(hiddenCount, inputCount, readDoubles(in, hiddenCount, inputCount));
+            Matrix hiddenLayerBias = new Matrix(hiddenCount, 1, readDoubles(in, hiddenCount, 1));
+            Matrix hiddenOutputLayerWeights = new Matrix(outputCount, hiddenCount, readDoubles(in, outputCount, hiddenCount));
+            Matrix outputLayerBias = new Matrix(outputCount, 1, readDoubles(in, outputCount, 1));
+            return new NeuralNetwork(inputHiddenLayerWeights, hiddenOutputLayerWeights, hiddenLayerBias, outputLayerBias, learningRate);
+        } else if (precision == FLOAT_PRECISION) {
+            FloatMatrix inputHiddenLayerWeights = new FloatMatrix(hiddenCount, inputCount, readFloats(in, hiddenCount, inputCount));
+            FloatMatrix hiddenLayerBias = new FloatMatrix(hiddenCount, 1, readFloats(in, hiddenCount, 1));
+            FloatMatrix hiddenOutputLayerWeights = new FloatMatrix(outputCount, hiddenCount, readFloats(in, outputCount, hiddenCount));
+            FloatMatrix outputLayerBias = new FloatMatrix(outputCount, 1, readFloats(in, outputCount, 1));
+            return new FloatNeuralNetwork(inputHiddenLayerWeights, hiddenOutputLayerWeights, hiddenLayerBias, outputLayerBias, learningRate);
+        } else if (precision == CATEGORICAL_DOUBLE_PRECISION) {
+            int categoryCount = in.readInt();
+            int[] positions = new int[in.readInt()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = in.readInt();
+            }
+
+            CategoricalInputs categoricalInputs = new CategoricalInputs(positions, categoryCount);
+            int encodedInputCount = inputCount + positions.length * (categoryCount - 1);
+            double[] parameters = new double[hiddenCount * encodedInputCount + hiddenCount + outputCount * hiddenCount + outputCount];
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = in.readDouble();
+            }
+
+            return CategoricalInputNetwork.fromParameterVector(inputCount, hiddenCount, outputCount, categoricalInputs, learningRate, parameters);
+        }
+
+        throw new IOException("Unknown brain precision " + precision);
+    }
+
+    public static void save(Brain brain, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            write(brain, out);
+        }
+    }
+
+    public static Brain load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return read(in);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, byte precision, double learningRate, int inputCount, int hiddenCount, int outputCount) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeByte(precision);
+        out.writeDouble(learningRate);
+        out.writeInt(inputCount);
+        out.writeInt(hiddenCount);
+        out.writeInt(outputCount);
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+
+    private static double[][] readDoubles(DataInputStream in, int rows, int columns) throws IOException {
+        double[][] values = new double[rows][columns];
+
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < columns; y++) {
+                values[x][y] = in.readDouble();
+            }
+        }
+
+        return values;
+    }
+
+    private static float[][] readFloats(DataInputStream in, int rows, int columns) throws IOException {
+        float[][] values = new float[rows][columns];
+
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < columns; y++) {
+                values[x][y] = in.readFloat();
+            }
+        }
+
+        return values;
+    }
+}
@@ -0,0 +1,144 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+/**
+ * Remembers a network's recent predictions, so an agent which keeps seeing the same thing - most often a view full of
+ * empty cells - doesn't run the same forward pass again and again.
+ *
+ * An agent's inputs are a handful of small discrete values (the ids of what it can see, plus a couple of counters), so
+ * the same inputs turn up often. Each prediction is kept in a fixed size table, in the slot picked by a hash of its
+ * inputs, along with the inputs themselves and the network's {@link NeuralNetwork#getWeightVersion() weight version}.
+ * A prediction is only reused if the inputs match exactly and the network hasn't trained since, so the cache never
+ * changes what the brain decides. A new prediction simply takes over its slot, so the cache never grows.
+ */
+public class CachingBrain implements Brain {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final NeuralNetwork network;
+    private final Entry[] entries;
+    private final int mask;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    private record Entry(double[] inputs, long weightVersion, double[] outputs) {}
+
+    public CachingBrain(NeuralNetwork network, int capacity) {
+        this(network, capacity, new LongAdder(), new LongAdder());
+    }
+
+    /**
+     * @param capacity How many predictions to keep. Rounded up to a power of two.
+     * @param hits Counted up on every prediction answered from the cache - e.g. a world's metrics counter, shared by
+     *             all its agents' caches.
+     * @param misses Counted up on every prediction that needed a forward pass.
+     */
+    public CachingBrain(NeuralNetwork network, int capacity, LongAdder hits, LongAdder misses) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A prediction cache has to hold at least one prediction, not " + capacity);
+        }
+
+        int slots = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+
+        this.network = network;
+        this.entries = new Entry[slots];
+        this.mask = slots - 1;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    @Override
+    public double[] predict(double[] inputs) throws InvalidMatrixShapeException {
+        int slot = (int) hash(inputs) & mask;
+        long weightVersion = network.getWeightVersion();
+        Entry entry = entries[slot];
+
+        if (entry != null && entry.weightVersion() == weightVersion && Arrays.equals(entry.inputs(), inputs)) {
+            hits.increment();
+            // Callers are free to change what they're given, e.g. to build a training target from it.
+            return entry.outputs().clone();
+        }
+
+        misses.increment();
+        double[] outputs = network.predict(inputs);
+        entries[slot] = new Entry(inputs.clone(), weightVersion, outputs.clone());
+        return outputs;
+    }
+
+    /**
+     * Packs the inputs into one well mixed 64 bit hash.
+     */
+    static long hash(double[] inputs) {
+        long hash = inputs.length;
+
+        for (double input : inputs) {
+            hash = hash * 31 + Double.doubleToLongBits(input);
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public void train(double[] input, double[] target) throws InvalidMatrixShapeException {
+        network.train(input, target);
+    }
+
+    @Override
+    public void trainOnTransition(double[] oldState, int action, double score, double[] newState, double discount) throws InvalidMatrixShapeException {
+        network.trainOnTransition(oldState, action, score, newState, discount);
+    }
+
+    @Override
+    public void fit(NeuralNetworkTrainingData trainingData, int epochs, RandomGenerator random, double discount) throws InvalidMatrixShapeException {
+        network.fit(trainingData, epochs, random, discount);
+    }
+
+    public NeuralNetwork getNetwork() {
+        return network;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * The share of predictions answered from the cache, between 0 and 1.
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public double[] toParameterVector() {
+        return network.toParameterVector();
+    }
+
+    @Override
+    public CachingBrain withParameterVector(double[] parameters) {
+        return new CachingBrain(network.withParameterVector(parameters), entries.length, hits, misses);
+    }
+
+    /**
+     * Copies the network (sharing its weights, see {@link NeuralNetwork#copy()}) behind a new, empty cache which counts
+     * towards the same hits and misses.
+     */
+    @Override
+    public CachingBrain copy() {
+        return new CachingBrain(network.copy(), entries.length, hits, misses);
+    }
+}
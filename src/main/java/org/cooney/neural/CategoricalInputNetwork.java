@@ -0,0 +1,355 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.Activation;
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.matrix.Matrix;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A {@link NeuralNetwork} whose categorical inputs (see {@link CategoricalInputs}) are one-hot encoded, so each
+ * category gets weights of its own rather than all of them sharing one weight scaled by an arbitrary id.
+ *
+ * The network is exactly a dense network over the encoded input, but never builds that input: each raw input picks
+ * out one column of the first layer's weights - the one for its category, or for a plain input, its own column scaled
+ * by its value - and the hidden layer is the sum of those columns, like looking up embeddings. Training only touches
+ * the columns that were picked. So working out the first layer costs the same however many categories there are.
+ *
+ * Like {@link NeuralNetwork}, training swaps in new weights rather than changing them, so copies can share them.
+ * Only the columns that changed are copied.
+ */
+public final class CategoricalInputNetwork implements Brain {
+    private final CategoricalInputs categoricalInputs;
+    private final int inputCount;
+    private final int hiddenCount;
+
+    /**
+     * For each raw input, the first encoded column it fills, and whether it is categorical.
+     */
+    private final int[] columnOffsets;
+    private final boolean[] categorical;
+
+    /**
+     * The input to hidden weights, one array per encoded input holding its weight into each hidden node.
+     */
+    private double[][] inputColumns;
+    private double[] hiddenLayerBias;
+    private Matrix hiddenOutputLayerWeights;
+    private Matrix outputLayerBias;
+
+    private final double learningRate;
+    private final Activation activation;
+
+    private static final double[] BIAS_INPUT = {1};
+
+    private record ForwardPass(int[] columns, double[] values, double[] hiddenOutput, double[] output) {}
+
+    /**
+     * Builds a network with random weights, drawn exactly as a {@link NeuralNetwork} over the encoded inputs would
+     * draw them.
+     */
+    public CategoricalInputNetwork(int inputCount, int hiddenCount, int outputCount, CategoricalInputs categoricalInputs, double learningRate, RandomGenerator random) {
+        this(inputCount, hiddenCount, categoricalInputs, null, null, null, null, learningRate, Activation.EXACT);
+        setParameters(new NeuralNetwork(encodedInputCount(), hiddenCount, outputCount, learningRate, random).toParameterVector(), outputCount);
+    }
+
+    /**
+     * Builds a network with the given weights, laid out like {@link #toParameterVector()}.
+     */
+    public static CategoricalInputNetwork fromParameterVector(int inputCount, int hiddenCount, int outputCount, CategoricalInputs categoricalInputs, double learningRate, double[] parameters) {
+        CategoricalInputNetwork network = new CategoricalInputNetwork(inputCount, hiddenCount, categoricalInputs, null, null, null, null, learningRate, Activation.EXACT);
+        network.setParameters(parameters, outputCount);
+        return network;
+    }
+
+    private CategoricalInputNetwork(int inputCount, int hiddenCount, CategoricalInputs categoricalInputs, double[][] inputColumns, double[] hiddenLayerBias, Matrix hiddenOutputLayerWeights, Matrix outputLayerBias, double learningRate, Activation activation) {
+        this.categoricalInputs = categoricalInputs;
+        this.inputCount = inputCount;
+        this.hiddenCount = hiddenCount;
+        this.inputColumns = inputColumns;
+        this.hiddenLayerBias = hiddenLayerBias;
+        this.hiddenOutputLayerWeights = hiddenOutputLayerWeights;
+        this.outputLayerBias = outputLayerBias;
+        this.learningRate = learningRate;
+        this.activation = activation;
+
+        this.columnOffsets = new int[inputCount];
+        this.categorical = new boolean[inputCount];
+        for (int position : categoricalInputs.positions()) {
+            if (position < 0 || position >= inputCount) {
+                throw new IllegalArgumentException(String.format("Categorical input %d is outside the %d inputs", position, inputCount));
+            }
+            categorical[position] = true;
+        }
+
+        int offset = 0;
+        for (int position = 0; position < inputCount; position++) {
+            columnOffsets[position] = offset;
+            offset += categorical[position] ? categoricalInputs.categoryCount() : 1;
+        }
+    }
+
+    /**
+     * How many inputs the network would have if its categorical inputs were actually one-hot encoded.
+     */
+    public int encodedInputCount() {
+        return inputCount + categoricalInputs.positions().length * (categoricalInputs.categoryCount() - 1);
+    }
+
+    /**
+     * One-hot encodes the input, i.e. builds the input the equivalent dense network (see {@link #toNeuralNetwork()})
+     * takes.
+     */
+    public double[] encode(double[] input) throws InvalidMatrixShapeException {
+        double[] encoded = new double[encodedInputCount()];
+        int[] columns = new int[inputCount];
+        double[] values = new double[inputCount];
+        pickColumns(input, columns, values);
+
+        for (int position = 0; position < inputCount; position++) {
+            encoded[columns[position]] = values[position];
+        }
+
+        return encoded;
+    }
+
+    /**
+     * Works out which encoded column each raw input lands in and the value it has there.
+     */
+    private void pickColumns(double[] input, int[] columns, double[] values) throws InvalidMatrixShapeException {
+        if (input.length != inputCount) {
+            throw new InvalidMatrixShapeException(String.format("The network takes %d inputs, not %d", inputCount, input.length));
+        }
+
+        for (int position = 0; position < inputCount; position++) {
+            if (categorical[position]) {
+                int category = (int) input[position];
+
+                if (category != input[position] || category < 0 || category >= categoricalInputs.categoryCount()) {
+                    throw new InvalidMatrixShapeException(String.format("Input %d should be a category from 0 to %d, not %s", position, categoricalInputs.categoryCount() - 1, input[position]));
+                }
+
+                columns[position] = columnOffsets[position] + category;
+                values[position] = 1;
+            } else {
+                columns[position] = columnOffsets[position];
+                values[position] = input[position];
+            }
+        }
+    }
+
+    @Override
+    public double[] predict(double[] inputs) throws InvalidMatrixShapeException {
+        return feedForward(inputs).output();
+    }
+
+    private ForwardPass feedForward(double[] input) throws InvalidMatrixShapeException {
+        int[] columns = new int[inputCount];
+        double[] values = new double[inputCount];
+        pickColumns(input, columns, values);
+
+        double[] totals = new double[hiddenCount];
+        for (int position = 0; position < inputCount; position++) {
+            double value = values[position];
+
+            if (value == 0) {
+                continue;
+            }
+
+            double[] column = inputColumns[columns[position]];
+            if (categorical[position]) {
+                for (int hidden = 0; hidden < hiddenCount; hidden++) {
+                    totals[hidden] += column[hidden];
+                }
+            } else {
+                for (int hidden = 0; hidden < hiddenCount; hidden++) {
+                    totals[hidden] += column[hidden] * value;
+                }
+            }
+        }
+
+        double[] hiddenOutput = new double[hiddenCount];
+        for (int hidden = 0; hidden < hiddenCount; hidden++) {
+            hiddenOutput[hidden] = activation.sigmoid(totals[hidden] + hiddenLayerBias[hidden]);
+        }
+
+        double[] output = new double[hiddenOutputLayerWeights.getRows()];
+        hiddenOutputLayerWeights.denseLayer(hiddenOutput, outputLayerBias, activation, output);
+
+        return new ForwardPass(columns, values, hiddenOutput, output);
+    }
+
+    @Override
+    public void train(double[] input, double[] target) throws InvalidMatrixShapeException {
+        train(feedForward(input), target);
+    }
+
+    @Override
+    public void trainOnTransition(double[] state, int action, double reward, double[] nextState, double discount) throws InvalidMatrixShapeException {
+        ForwardPass pass = feedForward(state);
+        train(pass, Brain.qLearningTargetFrom(pass.output(), action, reward, predict(nextState), discount));
+    }
+
+    /**
+     * Backpropagates as {@link NeuralNetwork} does, but only changes the first layer columns the input picked out -
+     * the rest would have been multiplied by a zero input.
+     */
+    private void train(ForwardPass pass, double[] target) throws InvalidMatrixShapeException {
+        double[] output = pass.output();
+        double[] hiddenOutput = pass.hiddenOutput();
+
+        if (target.length != output.length) {
+            throw new InvalidMatrixShapeException("Invalid Shape for Matrix Subtract");
+        }
+
+        double[] errorFromHiddenToOutputLayer = new double[output.length];
+        double[] gradient = new double[output.length];
+
+        for (int k = 0; k < output.length; k++) {
+            errorFromHiddenToOutputLayer[k] = target[k] - output[k];
+            gradient[k] = output[k] * (1 - output[k]) * errorFromHiddenToOutputLayer[k] * learningRate;
+        }
+
+        this.hiddenOutputLayerWeights = this.hiddenOutputLayerWeights.addOuterProduct(gradient, hiddenOutput);
+        this.outputLayerBias = this.outputLayerBias.addOuterProduct(gradient, BIAS_INPUT);
+
+        double[] errorFromInputToHiddenLayer = hiddenOutputLayerWeights.transposeDotProduct(errorFromHiddenToOutputLayer);
+        double[] hiddenGradient = new double[hiddenCount];
+
+        for (int j = 0; j < hiddenCount; j++) {
+            hiddenGradient[j] = hiddenOutput[j] * (1 - hiddenOutput[j]) * errorFromInputToHiddenLayer[j] * learningRate;
+        }
+
+        double[][] newInputColumns = inputColumns.clone();
+        for (int position = 0; position < inputCount; position++) {
+            double value = pass.values()[position];
+
+            if (value == 0) {
+                continue;
+            }
+
+            double[] column = inputColumns[pass.columns()[position]].clone();
+            for (int hidden = 0; hidden < hiddenCount; hidden++) {
+                column[hidden] += hiddenGradient[hidden] * value;
+            }
+            newInputColumns[pass.columns()[position]] = column;
+        }
+
+        double[] newHiddenLayerBias = new double[hiddenCount];
+        for (int hidden = 0; hidden < hiddenCount; hidden++) {
+            newHiddenLayerBias[hidden] = hiddenLayerBias[hidden] + hiddenGradient[hidden];
+        }
+
+        this.inputColumns = newInputColumns;
+        this.hiddenLayerBias = newHiddenLayerBias;
+    }
+
+    public CategoricalInputs getCategoricalInputs() {
+        return categoricalInputs;
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    public int getHiddenCount() {
+        return hiddenCount;
+    }
+
+    public int getOutputCount() {
+        return outputLayerBias.getRows();
+    }
+
+    public double getLearningRate() {
+        return learningRate;
+    }
+
+    public Activation getActivation() {
+        return activation;
+    }
+
+    /**
+     * Copies the network, sharing its weights, but works the sigmoid out the given way.
+     */
+    public CategoricalInputNetwork withActivation(Activation activation) {
+        return new CategoricalInputNetwork(inputCount, hiddenCount, categoricalInputs, inputColumns, hiddenLayerBias, hiddenOutputLayerWeights, outputLayerBias, learningRate, activation);
+    }
+
+    /**
+     * The equivalent dense network, which takes {@link #encode encoded} inputs.
+     */
+    public NeuralNetwork toNeuralNetwork() {
+        double[] parameters = toParameterVector();
+        int encodedInputCount = encodedInputCount();
+        int outputCount = getOutputCount();
+
+        int offset = 0;
+        Matrix inputHiddenLayerWeights = Matrix.fromFlatArray(hiddenCount, encodedInputCount, parameters, offset);
+        offset += hiddenCount * encodedInputCount;
+        Matrix newHiddenLayerBias = Matrix.fromFlatArray(hiddenCount, 1, parameters, offset);
+        offset += hiddenCount;
+        Matrix newHiddenOutputLayerWeights = Matrix.fromFlatArray(outputCount, hiddenCount, parameters, offset);
+        offset += outputCount * hiddenCount;
+        Matrix newOutputLayerBias = Matrix.fromFlatArray(outputCount, 1, parameters, offset);
+
+        return new NeuralNetwork(inputHiddenLayerWeights, newHiddenOutputLayerWeights, newHiddenLayerBias, newOutputLayerBias, learningRate, activation);
+    }
+
+    /**
+     * Laid out like the equivalent dense network's, so the input to hidden weights come row by row over the encoded
+     * inputs.
+     */
+    @Override
+    public double[] toParameterVector() {
+        int encodedInputCount = encodedInputCount();
+        double[] firstLayer = new double[hiddenCount * encodedInputCount];
+
+        for (int hidden = 0; hidden < hiddenCount; hidden++) {
+            for (int column = 0; column < encodedInputCount; column++) {
+                firstLayer[hidden * encodedInputCount + column] = inputColumns[column][hidden];
+            }
+        }
+
+        return NeuralNetwork.concatenate(firstLayer, hiddenLayerBias, hiddenOutputLayerWeights.toFlatArray(), outputLayerBias.toFlatArray());
+    }
+
+    @Override
+    public CategoricalInputNetwork withParameterVector(double[] parameters) {
+        CategoricalInputNetwork network = new CategoricalInputNetwork(inputCount, hiddenCount, categoricalInputs, null, null, null, null, learningRate, activation);
+        network.setParameters(parameters, getOutputCount());
+        return network;
+    }
+
+    private void setParameters(double[] parameters, int outputCount) {
+        int encodedInputCount = encodedInputCount();
+        int parameterCount = hiddenCount * encodedInputCount + hiddenCount + outputCount * hiddenCount + outputCount;
+
+        if (parameters.length != parameterCount) {
+            throw new IllegalArgumentException(String.format("A %d-%d-%d network has %d parameters, not %d", encodedInputCount, hiddenCount, outputCount, parameterCount, parameters.length));
+        }
+
+        double[][] newInputColumns = new double[encodedInputCount][hiddenCount];
+        for (int hidden = 0; hidden < hiddenCount; hidden++) {
+            for (int column = 0; column < encodedInputCount; column++) {
+                newInputColumns[column][hidden] = parameters[hidden * encodedInputCount + column];
+            }
+        }
+
+        int offset = hiddenCount * encodedInputCount;
+        this.inputColumns = newInputColumns;
+        this.hiddenLayerBias = new double[hiddenCount];
+        System.arraycopy(parameters, offset, hiddenLayerBias, 0, hiddenCount);
+        offset += hiddenCount;
+        this.hiddenOutputLayerWeights = Matrix.fromFlatArray(outputCount, hiddenCount, parameters, offset);
+        offset += outputCount * hiddenCount;
+        this.outputLayerBias = Matrix.fromFlatArray(outputCount, 1, parameters, offset);
+    }
+
+    /**
+     * Copies the network, sharing the weights with the original until one of them trains.
+     */
+    @Override
+    public CategoricalInputNetwork copy() {
+        return new CategoricalInputNetwork(inputCount, hiddenCount, categoricalInputs, inputColumns, hiddenLayerBias, hiddenOutputLayerWeights, outputLayerBias, learningRate, activation);
+    }
+}
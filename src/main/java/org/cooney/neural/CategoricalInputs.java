@@ -0,0 +1,49 @@
+package org.cooney.neural;
+
+import java.util.Arrays;
+
+/**
+ * Which of a brain's inputs name a category (e.g. the id of what's in a cell) rather than measure an amount, and how
+ * many categories there are. A {@link CategoricalInputNetwork} one-hot encodes those inputs instead of multiplying
+ * its weights by the category's number.
+ * @param positions The indexes of the categorical inputs, in ascending order.
+ * @param categoryCount How many categories each can name: its value must be a whole number from 0 up to this.
+ */
+public record CategoricalInputs(int[] positions, int categoryCount) {
+    public static final CategoricalInputs NONE = new CategoricalInputs(new int[0], 0);
+
+    public CategoricalInputs {
+        positions = positions.clone();
+
+        for (int i = 1; i < positions.length; i++) {
+            if (positions[i] <= positions[i - 1]) {
+                throw new IllegalArgumentException("Categorical input positions must be in ascending order: " + Arrays.toString(positions));
+            }
+        }
+    }
+
+    public static CategoricalInputs of(int categoryCount, int... positions) {
+        return new CategoricalInputs(positions, categoryCount);
+    }
+
+    public boolean isEmpty() {
+        return positions.length == 0;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CategoricalInputs that
+                && categoryCount == that.categoryCount
+                && Arrays.equals(positions, that.positions);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(positions) + categoryCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoricalInputs[positions=" + Arrays.toString(positions) + ", categoryCount=" + categoryCount + "]";
+    }
+}
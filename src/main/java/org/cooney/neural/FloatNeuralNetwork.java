@@ -0,0 +1,226 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.FloatMatrix;
+import org.cooney.matrix.Activation;
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.metrics.jfr.NetworkTrainEvent;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Single precision version of {@link NeuralNetwork}. The layout and the maths are identical, but every weight, bias
+ * and intermediate value is a float, halving the memory each agent's brain (and every copy of it) takes up.
+ */
+public class FloatNeuralNetwork implements Brain {
+
+    private FloatMatrix inputHiddenLayerWeights;
+    private FloatMatrix hiddenOutputLayerWeights;
+    private FloatMatrix hiddenLayerBias;
+    private FloatMatrix outputLayerBias;
+
+    private final float learningRate;
+    private final Activation activation;
+
+    private record ForwardPass(float[] input, float[] hiddenOutput, float[] output) {}
+
+    public FloatNeuralNetwork(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random) {
+        inputHiddenLayerWeights = new FloatMatrix(hiddenValuesCount, inputValuesCount, random);
+        hiddenOutputLayerWeights = new FloatMatrix(outputValuesCount, hiddenValuesCount, random);
+        hiddenLayerBias = new FloatMatrix(hiddenValuesCount, 1, random);
+        outputLayerBias = new FloatMatrix(outputValuesCount, 1, random);
+        this.learningRate = (float) learningRate;
+        this.activation = Activation.EXACT;
+    }
+
+    public FloatNeuralNetwork(FloatMatrix inputHiddenLayerWeights, FloatMatrix hiddenOutputLayerWeights, FloatMatrix hiddenLayerBias, FloatMatrix outputLayerBias, double learningRate) {
+        this(inputHiddenLayerWeights, hiddenOutputLayerWeights, hiddenLayerBias, outputLayerBias, learningRate, Activation.EXACT);
+    }
+
+    /**
+     * As above, with the sigmoid worked out the given way (see {@link Activation}).
+     */
+    public FloatNeuralNetwork(FloatMatrix inputHiddenLayerWeights, FloatMatrix hiddenOutputLayerWeights, FloatMatrix hiddenLayerBias, FloatMatrix outputLayerBias, double learningRate, Activation activation) {
+        this.inputHiddenLayerWeights = inputHiddenLayerWeights;
+        this.hiddenOutputLayerWeights = hiddenOutputLayerWeights;
+        this.hiddenLayerBias = hiddenLayerBias;
+        this.outputLayerBias = outputLayerBias;
+        this.learningRate = (float) learningRate;
+        this.activation = activation;
+    }
+
+    /**
+     * Narrows an existing double precision network down to floats.
+     */
+    public static FloatNeuralNetwork fromNeuralNetwork(NeuralNetwork neuralNetwork) {
+        return new FloatNeuralNetwork(
+                FloatMatrix.fromMatrix(neuralNetwork.getInputHiddenLayerWeights()),
+                FloatMatrix.fromMatrix(neuralNetwork.getHiddenOutputLayerWeights()),
+                FloatMatrix.fromMatrix(neuralNetwork.getHiddenLayerBias()),
+                FloatMatrix.fromMatrix(neuralNetwork.getOutputLayerBias()),
+                neuralNetwork.getLearningRate(),
+                neuralNetwork.getActivation());
+    }
+
+    @Override
+    public double[] predict(double[] inputs) throws InvalidMatrixShapeException {
+        return widen(feedForward(inputs).output());
+    }
+
+    private static double[] widen(float[] values) {
+        double[] widened = new double[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            widened[i] = values[i];
+        }
+
+        return widened;
+    }
+
+    /**
+     * Runs the input through both layers with the fused kernel, keeping each layer's activations for training. Like
+     * {@link NeuralNetwork}'s, each pass writes into arrays of its own so it's safe from several threads at once.
+     */
+    private ForwardPass feedForward(double[] inputs) throws InvalidMatrixShapeException {
+        float[] input = new float[inputs.length];
+
+        for (int i = 0; i < inputs.length; i++) {
+            input[i] = (float) inputs[i];
+        }
+
+        float[] hiddenOutput = new float[inputHiddenLayerWeights.getRows()];
+        inputHiddenLayerWeights.denseLayer(input, hiddenLayerBias, activation, hiddenOutput);
+
+        float[] output = new float[hiddenOutputLayerWeights.getRows()];
+        hiddenOutputLayerWeights.denseLayer(hiddenOutput, outputLayerBias, activation, output);
+
+        return new ForwardPass(input, hiddenOutput, output);
+    }
+
+    @Override
+    public void train(double[] input, double[] target) throws InvalidMatrixShapeException {
+        train(feedForward(input), target);
+    }
+
+    /**
+     * Trains on a transition with Q-Learning, feeding the old state forward once for both the target and the
+     * training step that follows.
+     */
+    @Override
+    public void trainOnTransition(double[] state, int action, double reward, double[] nextState, double discount) throws InvalidMatrixShapeException {
+        ForwardPass pass = feedForward(state);
+        train(pass, Brain.qLearningTargetFrom(widen(pass.output()), action, reward, predict(nextState), discount));
+    }
+
+    private void train(ForwardPass pass, double[] target) throws InvalidMatrixShapeException {
+        NetworkTrainEvent trainEvent = new NetworkTrainEvent();
+        trainEvent.begin();
+
+        FloatMatrix inputsMatrix = new FloatMatrix(pass.input());
+        FloatMatrix hiddenOutput = new FloatMatrix(pass.hiddenOutput());
+        FloatMatrix output = new FloatMatrix(pass.output());
+
+        FloatMatrix errorFromHiddenToOutputLayer = new FloatMatrix(target).subtract(output);
+
+        FloatMatrix gradient = output
+                .derivativeSigmoid()
+                .multiply(errorFromHiddenToOutputLayer)
+                .multiply(learningRate);
+
+        FloatMatrix hiddenToOutputWeightChange = gradient.dotProduct(hiddenOutput.transpose());
+
+        this.hiddenOutputLayerWeights = this.hiddenOutputLayerWeights.add(hiddenToOutputWeightChange);
+        this.outputLayerBias = this.outputLayerBias.add(gradient);
+
+        FloatMatrix errorFromInputToHiddenLayer = hiddenOutputLayerWeights.transpose().dotProduct(errorFromHiddenToOutputLayer);
+
+        FloatMatrix hiddenGradient = hiddenOutput
+                .derivativeSigmoid()
+                .multiply(errorFromInputToHiddenLayer)
+                .multiply(learningRate);
+
+        FloatMatrix inputToHiddenWeightChange = hiddenGradient.dotProduct(inputsMatrix.transpose());
+
+        this.inputHiddenLayerWeights = this.inputHiddenLayerWeights.add(inputToHiddenWeightChange);
+        this.hiddenLayerBias = this.hiddenLayerBias.add(hiddenGradient);
+
+        trainEvent.end();
+        if (trainEvent.shouldCommit()) {
+            trainEvent.inputCount = inputHiddenLayerWeights.getColumns();
+            trainEvent.hiddenCount = inputHiddenLayerWeights.getRows();
+            trainEvent.outputCount = hiddenOutputLayerWeights.getRows();
+            trainEvent.commit();
+        }
+    }
+
+    public FloatMatrix getInputHiddenLayerWeights() {
+        return inputHiddenLayerWeights;
+    }
+
+    public FloatMatrix getHiddenOutputLayerWeights() {
+        return hiddenOutputLayerWeights;
+    }
+
+    public FloatMatrix getHiddenLayerBias() {
+        return hiddenLayerBias;
+    }
+
+    public FloatMatrix getOutputLayerBias() {
+        return outputLayerBias;
+    }
+
+    public float getLearningRate() {
+        return learningRate;
+    }
+
+    public Activation getActivation() {
+        return activation;
+    }
+
+    /**
+     * Copies the network, sharing its weights, but works the sigmoid out the given way. See
+     * {@link NeuralNetwork#withActivation(Activation)}.
+     */
+    public FloatNeuralNetwork withActivation(Activation activation) {
+        return new FloatNeuralNetwork(this.inputHiddenLayerWeights, this.hiddenOutputLayerWeights, this.hiddenLayerBias, this.outputLayerBias, this.learningRate, activation);
+    }
+
+    @Override
+    public double[] toParameterVector() {
+        return NeuralNetwork.concatenate(
+                inputHiddenLayerWeights.toFlatDoubleArray(),
+                hiddenLayerBias.toFlatDoubleArray(),
+                hiddenOutputLayerWeights.toFlatDoubleArray(),
+                outputLayerBias.toFlatDoubleArray());
+    }
+
+    @Override
+    public FloatNeuralNetwork withParameterVector(double[] parameters) {
+        int hiddenCount = inputHiddenLayerWeights.getRows();
+        int inputCount = inputHiddenLayerWeights.getColumns();
+        int outputCount = hiddenOutputLayerWeights.getRows();
+
+        int offset = 0;
+        FloatMatrix newInputHiddenLayerWeights = FloatMatrix.fromFlatArray(hiddenCount, inputCount, parameters, offset);
+        offset += hiddenCount * inputCount;
+        FloatMatrix newHiddenLayerBias = FloatMatrix.fromFlatArray(hiddenCount, 1, parameters, offset);
+        offset += hiddenCount;
+        FloatMatrix newHiddenOutputLayerWeights = FloatMatrix.fromFlatArray(outputCount, hiddenCount, parameters, offset);
+        offset += outputCount * hiddenCount;
+        FloatMatrix newOutputLayerBias = FloatMatrix.fromFlatArray(outputCount, 1, parameters, offset);
+
+        return new FloatNeuralNetwork(newInputHiddenLayerWeights, newHiddenOutputLayerWeights, newHiddenLayerBias, newOutputLayerBias, learningRate, activation);
+    }
+
+    /**
+     * Copies the network, sharing the weights with the original until one of them trains. See
+     * {@link NeuralNetwork#copy()}.
+     */
+    @Override
+    public FloatNeuralNetwork copy() {
+        return new FloatNeuralNetwork(this.inputHiddenLayerWeights, this.hiddenOutputLayerWeights, this.hiddenLayerBias, this.outputLayerBias, this.learningRate, this.activation);
+    }
+
+    public FloatNeuralNetwork deepCopy() {
+        return new FloatNeuralNetwork(this.inputHiddenLayerWeights.copy(), this.hiddenOutputLayerWeights.copy(), this.hiddenLayerBias.copy(), this.outputLayerBias.copy(), this.learningRate, this.activation);
+    }
+}
@@ -0,0 +1,258 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.matrix.Matrix;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A network which many threads can train at once, without locks, by updating its weights in place (Hogwild).
+ *
+ * The weights and biases live in flat arrays, laid out like {@link #toParameterVector()}. Training works out the
+ * changes for one sample from whatever the weights are at the time and adds them straight into the arrays, skipping
+ * the columns for inputs which are zero. Updates from different threads can interleave and occasionally overwrite one
+ * another; with small, mostly sparse updates that costs far less than having the threads take turns.
+ *
+ * Predictions read the live weights, so can see a half-applied update. For a consistent view, take a
+ * {@link #snapshot()}: it briefly holds off new updates, waits for those in flight to finish, and copies the weights.
+ */
+public class HogwildNetwork implements Brain {
+    private final int inputCount;
+    private final int hiddenCount;
+    private final int outputCount;
+
+    private final double[] inputHiddenLayerWeights;
+    private final double[] hiddenLayerBias;
+    private final double[] hiddenOutputLayerWeights;
+    private final double[] outputLayerBias;
+
+    private final double learningRate;
+
+    private final AtomicInteger updatesInFlight = new AtomicInteger();
+    private volatile boolean paused;
+    private volatile NeuralNetwork publishedSnapshot;
+
+    public HogwildNetwork(int inputCount, int hiddenCount, int outputCount, double[] parameters, double learningRate) {
+        if (parameters.length != parameterCount(inputCount, hiddenCount, outputCount)) {
+            throw new IllegalArgumentException(String.format("A %d-%d-%d network has %d parameters, not %d", inputCount, hiddenCount, outputCount, parameterCount(inputCount, hiddenCount, outputCount), parameters.length));
+        }
+
+        this.inputCount = inputCount;
+        this.hiddenCount = hiddenCount;
+        this.outputCount = outputCount;
+        this.learningRate = learningRate;
+
+        int offset = 0;
+        this.inputHiddenLayerWeights = slice(parameters, offset, hiddenCount * inputCount);
+        offset += hiddenCount * inputCount;
+        this.hiddenLayerBias = slice(parameters, offset, hiddenCount);
+        offset += hiddenCount;
+        this.hiddenOutputLayerWeights = slice(parameters, offset, outputCount * hiddenCount);
+        offset += outputCount * hiddenCount;
+        this.outputLayerBias = slice(parameters, offset, outputCount);
+    }
+
+    /**
+     * Starts from a copy of an existing network's weights.
+     */
+    public static HogwildNetwork from(NeuralNetwork network) {
+        return new HogwildNetwork(
+                network.getInputHiddenLayerWeights().getColumns(),
+                network.getInputHiddenLayerWeights().getRows(),
+                network.getOutputLayerBias().getRows(),
+                network.toParameterVector(),
+                network.getLearningRate());
+    }
+
+    private static int parameterCount(int inputCount, int hiddenCount, int outputCount) {
+        return hiddenCount * inputCount + hiddenCount + outputCount * hiddenCount + outputCount;
+    }
+
+    private static double[] slice(double[] values, int offset, int length) {
+        double[] slice = new double[length];
+        System.arraycopy(values, offset, slice, 0, length);
+        return slice;
+    }
+
+    @Override
+    public double[] predict(double[] inputs) throws InvalidMatrixShapeException {
+        checkInputs(inputs);
+        return feedForwardHiddenToOutput(feedForwardInputToHidden(inputs));
+    }
+
+    private double[] feedForwardInputToHidden(double[] inputs) {
+        double[] hidden = new double[hiddenCount];
+
+        for (int h = 0; h < hiddenCount; h++) {
+            double total = hiddenLayerBias[h];
+            int row = h * inputCount;
+            for (int i = 0; i < inputCount; i++) {
+                total += inputHiddenLayerWeights[row + i] * inputs[i];
+            }
+            hidden[h] = sigmoid(total);
+        }
+
+        return hidden;
+    }
+
+    private double[] feedForwardHiddenToOutput(double[] hidden) {
+        double[] output = new double[outputCount];
+
+        for (int o = 0; o < outputCount; o++) {
+            double total = outputLayerBias[o];
+            int row = o * hiddenCount;
+            for (int h = 0; h < hiddenCount; h++) {
+                total += hiddenOutputLayerWeights[row + h] * hidden[h];
+            }
+            output[o] = sigmoid(total);
+        }
+
+        return output;
+    }
+
+    private static double sigmoid(double value) {
+        return 1 / (1 + Math.exp(-value));
+    }
+
+    /**
+     * Moves the prediction for the input towards the target, adding the changes straight into the shared weights.
+     * Safe to call from many threads at once.
+     */
+    @Override
+    public void train(double[] input, double[] target) throws InvalidMatrixShapeException {
+        checkInputs(input);
+        if (target.length != outputCount) {
+            throw new InvalidMatrixShapeException(String.format("Target has %d values but the network has %d outputs", target.length, outputCount));
+        }
+
+        beginUpdate();
+        try {
+            double[] hidden = feedForwardInputToHidden(input);
+            double[] output = feedForwardHiddenToOutput(hidden);
+
+            double[] outputGradient = new double[outputCount];
+            double[] hiddenError = new double[hiddenCount];
+
+            for (int o = 0; o < outputCount; o++) {
+                double error = target[o] - output[o];
+                outputGradient[o] = output[o] * (1 - output[o]) * error * learningRate;
+
+                int row = o * hiddenCount;
+                for (int h = 0; h < hiddenCount; h++) {
+                    hiddenError[h] += hiddenOutputLayerWeights[row + h] * error;
+                }
+            }
+
+            for (int o = 0; o < outputCount; o++) {
+                int row = o * hiddenCount;
+                for (int h = 0; h < hiddenCount; h++) {
+                    hiddenOutputLayerWeights[row + h] += outputGradient[o] * hidden[h];
+                }
+                outputLayerBias[o] += outputGradient[o];
+            }
+
+            for (int h = 0; h < hiddenCount; h++) {
+                double hiddenGradient = hidden[h] * (1 - hidden[h]) * hiddenError[h] * learningRate;
+                int row = h * inputCount;
+                for (int i = 0; i < inputCount; i++) {
+                    if (input[i] != 0) {
+                        inputHiddenLayerWeights[row + i] += hiddenGradient * input[i];
+                    }
+                }
+                hiddenLayerBias[h] += hiddenGradient;
+            }
+        } finally {
+            updatesInFlight.decrementAndGet();
+        }
+    }
+
+    private void beginUpdate() {
+        while (true) {
+            while (paused) {
+                Thread.onSpinWait();
+            }
+
+            updatesInFlight.incrementAndGet();
+            if (!paused) {
+                return;
+            }
+
+            // A snapshot started between the check and the increment - back off until it's done.
+            updatesInFlight.decrementAndGet();
+        }
+    }
+
+    private void checkInputs(double[] inputs) throws InvalidMatrixShapeException {
+        if (inputs.length != inputCount) {
+            throw new InvalidMatrixShapeException(String.format("Input has %d values but the network takes %d", inputs.length, inputCount));
+        }
+    }
+
+    /**
+     * Copies the weights as they are between updates: new updates wait while the copy is made, and updates already
+     * under way are allowed to finish first.
+     */
+    public synchronized NeuralNetwork snapshot() {
+        paused = true;
+        try {
+            while (updatesInFlight.get() != 0) {
+                Thread.onSpinWait();
+            }
+            return toNeuralNetwork();
+        } finally {
+            paused = false;
+        }
+    }
+
+    /**
+     * Takes a snapshot and makes it the one returned by {@link #getPublishedSnapshot()}, e.g. for agents to act on
+     * while training carries on.
+     */
+    public NeuralNetwork publishSnapshot() {
+        NeuralNetwork snapshot = snapshot();
+        this.publishedSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * The last snapshot published, or null if none has been.
+     */
+    public NeuralNetwork getPublishedSnapshot() {
+        return publishedSnapshot;
+    }
+
+    private NeuralNetwork toNeuralNetwork() {
+        return new NeuralNetwork(
+                toMatrix(hiddenCount, inputCount, inputHiddenLayerWeights),
+                toMatrix(outputCount, hiddenCount, hiddenOutputLayerWeights),
+                toMatrix(hiddenCount, 1, hiddenLayerBias),
+                toMatrix(outputCount, 1, outputLayerBias),
+                learningRate);
+    }
+
+    private static Matrix toMatrix(int rows, int columns, double[] values) {
+        return Matrix.fromFlatArray(rows, columns, values, 0);
+    }
+
+    /**
+     * A consistent snapshot of the weights, as an ordinary network.
+     */
+    @Override
+    public NeuralNetwork copy() {
+        return snapshot();
+    }
+
+    @Override
+    public double[] toParameterVector() {
+        return snapshot().toParameterVector();
+    }
+
+    @Override
+    public HogwildNetwork withParameterVector(double[] parameters) {
+        return new HogwildNetwork(inputCount, hiddenCount, outputCount, parameters, learningRate);
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+}
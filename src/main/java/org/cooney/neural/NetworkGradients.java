@@ -0,0 +1,49 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.matrix.Matrix;
+
+/**
+ * The changes training would make to each of a {@link NeuralNetwork}'s weights and biases, already scaled by its
+ * learning rate. Changes worked out on different samples can be added together and averaged before being applied,
+ * which is what lets a batch be worked on in parallel.
+ */
+public record NetworkGradients(Matrix inputHiddenLayerWeights, Matrix hiddenLayerBias, Matrix hiddenOutputLayerWeights, Matrix outputLayerBias) {
+
+    public NetworkGradients add(NetworkGradients other) throws InvalidMatrixShapeException {
+        return new NetworkGradients(
+                inputHiddenLayerWeights.add(other.inputHiddenLayerWeights),
+                hiddenLayerBias.add(other.hiddenLayerBias),
+                hiddenOutputLayerWeights.add(other.hiddenOutputLayerWeights),
+                outputLayerBias.add(other.outputLayerBias));
+    }
+
+    /**
+     * Adds the other changes into these, without allocating. Only for changes nobody else holds on to, such as a
+     * running total from {@link #copy()}.
+     * @return These changes.
+     */
+    public NetworkGradients addInPlace(NetworkGradients other) throws InvalidMatrixShapeException {
+        inputHiddenLayerWeights.addInPlace(other.inputHiddenLayerWeights);
+        hiddenLayerBias.addInPlace(other.hiddenLayerBias);
+        hiddenOutputLayerWeights.addInPlace(other.hiddenOutputLayerWeights);
+        outputLayerBias.addInPlace(other.outputLayerBias);
+        return this;
+    }
+
+    public NetworkGradients copy() {
+        return new NetworkGradients(
+                inputHiddenLayerWeights.copy(),
+                hiddenLayerBias.copy(),
+                hiddenOutputLayerWeights.copy(),
+                outputLayerBias.copy());
+    }
+
+    public NetworkGradients multiply(double factor) {
+        return new NetworkGradients(
+                inputHiddenLayerWeights.multiply(factor),
+                hiddenLayerBias.multiply(factor),
+                hiddenOutputLayerWeights.multiply(factor),
+                outputLayerBias.multiply(factor));
+    }
+}
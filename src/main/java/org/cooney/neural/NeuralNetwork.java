@@ -1,11 +1,15 @@
 package org.cooney.neural;
 
+import org.cooney.matrix.Activation;
 import org.cooney.matrix.InvalidMatrixShapeException;
 import org.cooney.matrix.Matrix;
+import org.cooney.metrics.jfr.NetworkTrainEvent;
 
-import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
-public class NeuralNetwork {
+public class NeuralNetwork implements Brain {
 
     private Matrix inputHiddenLayerWeights;
     private Matrix hiddenOutputLayerWeights;
@@ -13,6 +17,23 @@ public class NeuralNetwork {
     private Matrix outputLayerBias;
 
     private final double learningRate;
+    private final Activation activation;
+
+    /**
+     * Goes up every time the weights change, so anything remembering this network's predictions can tell when they've
+     * gone stale (see {@link CachingBrain}).
+     */
+    private volatile long weightVersion;
+
+    /**
+     * A bias is a weight on an input that is always one, so it changes like any other weight with this as its input.
+     */
+    private static final double[] BIAS_INPUT = {1};
+
+    /**
+     * The activations of each layer for one input, kept so that training on that input doesn't work them out again.
+     */
+    private record ForwardPass(double[] input, double[] hiddenOutput, double[] output) {}
 
     /**
      * Auto-generate constructor that will build the Matrices in the correct way, using desired input values.
@@ -22,19 +43,36 @@ public class NeuralNetwork {
      * @param learningRate The sensitivity of the Neural Network to errors in predictions when training.
      */
     public NeuralNetwork(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate) {
-        inputHiddenLayerWeights = new Matrix(hiddenValuesCount, inputValuesCount, true);
-        hiddenOutputLayerWeights = new Matrix(outputValuesCount, hiddenValuesCount, true);
-        hiddenLayerBias = new Matrix(hiddenValuesCount, 1, true);
-        outputLayerBias = new Matrix(outputValuesCount, 1, true);
+        this(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, ThreadLocalRandom.current());
+    }
+
+    /**
+     * As above, but the initial weights are drawn from the given stream so that they can be reproduced from a seed.
+     * @param random The stream to draw the initial weights and biases from.
+     */
+    public NeuralNetwork(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random) {
+        inputHiddenLayerWeights = new Matrix(hiddenValuesCount, inputValuesCount, random);
+        hiddenOutputLayerWeights = new Matrix(outputValuesCount, hiddenValuesCount, random);
+        hiddenLayerBias = new Matrix(hiddenValuesCount, 1, random);
+        outputLayerBias = new Matrix(outputValuesCount, 1, random);
         this.learningRate = learningRate;
+        this.activation = Activation.EXACT;
     }
 
     public NeuralNetwork(Matrix inputHiddenLayerWeights, Matrix hiddenOutputLayerWeights, Matrix hiddenLayerBias, Matrix outputLayerBias, double learningRate) {
+        this(inputHiddenLayerWeights, hiddenOutputLayerWeights, hiddenLayerBias, outputLayerBias, learningRate, Activation.EXACT);
+    }
+
+    /**
+     * As above, with the sigmoid worked out the given way (see {@link Activation}).
+     */
+    public NeuralNetwork(Matrix inputHiddenLayerWeights, Matrix hiddenOutputLayerWeights, Matrix hiddenLayerBias, Matrix outputLayerBias, double learningRate, Activation activation) {
         this.inputHiddenLayerWeights = inputHiddenLayerWeights;
         this.hiddenOutputLayerWeights = hiddenOutputLayerWeights;
         this.hiddenLayerBias = hiddenLayerBias;
         this.outputLayerBias = outputLayerBias;
         this.learningRate = learningRate;
+        this.activation = activation;
     }
 
     /**
@@ -43,42 +81,49 @@ public class NeuralNetwork {
      * @return The predicted output parameters
      * @throws InvalidMatrixShapeException If the inputs can't be matrix multiplied (dot product) with the input -> hidden layer weights
      */
+    @Override
     public double[] predict(double[] inputs) throws InvalidMatrixShapeException {
-        Matrix inputsMatrix = new Matrix(inputs);
-        Matrix finalOutput = predictMatrix(inputsMatrix);
-        return finalOutput.toFlatArray();
+        return feedForward(inputs).output();
     }
 
-    private Matrix predictMatrix(Matrix inputsMatrix) throws InvalidMatrixShapeException {
-        Matrix hiddenOutput = feedForwardInputToHidden(inputsMatrix);
-        return feedForwardHiddenToOutput(hiddenOutput);
-    }
+    /**
+     * Predicts every input in the batch with one pass through each layer: the inputs are stacked side by side as the
+     * columns of one matrix, so each weight is read once for the whole batch rather than once per input.
+     */
+    @Override
+    public double[][] predictBatch(double[][] inputs) throws InvalidMatrixShapeException {
+        if (inputs.length == 0) {
+            return new double[0][];
+        }
 
-    private Matrix feedForwardInputToHidden(Matrix inputsMatrix) throws InvalidMatrixShapeException {
-        return inputHiddenLayerWeights
-                .dotProduct(inputsMatrix)
-                .add(hiddenLayerBias)
-                .sigmoid();
-    }
+        Matrix hiddenOutput = inputHiddenLayerWeights
+                .dotProduct(Matrix.fromColumns(inputs))
+                .addToEachColumn(hiddenLayerBias)
+                .sigmoid(activation);
 
-    private Matrix feedForwardHiddenToOutput(Matrix hiddenOutput) throws InvalidMatrixShapeException {
         return hiddenOutputLayerWeights
                 .dotProduct(hiddenOutput)
-                .add(outputLayerBias)
-                .sigmoid();
+                .addToEachColumn(outputLayerBias)
+                .sigmoid(activation)
+                .toColumnArrays();
     }
 
+    /**
+     * Runs the input through both layers, each as a single fused pass (see {@link Matrix#denseLayer}), and keeps
+     * every layer's activations so training on the same input can reuse them rather than working them out again.
+     *
+     * Each pass writes into arrays of its own rather than a buffer kept with the network. The same network is often
+     * predicted with from several threads at once (a shared brain's snapshot by every agent), the output is handed to
+     * the caller to keep, and a training step holds on to one pass while it works out another for the next state.
+     */
+    private ForwardPass feedForward(double[] input) throws InvalidMatrixShapeException {
+        double[] hiddenOutput = new double[inputHiddenLayerWeights.getRows()];
+        inputHiddenLayerWeights.denseLayer(input, hiddenLayerBias, activation, hiddenOutput);
 
-    private void qLearning(double[] oldState, double score, double[] newState, int action) throws InvalidMatrixShapeException {
-        // Then we estimate the Q Value for the next action we're going to take
-        double[] estimatedQValuesFromOldState = predict(oldState);
-        double[] expectedQValueForNextAction = predict(newState);
-
-        double discount = 0.95;
-
-        estimatedQValuesFromOldState[action] = score + (discount * Arrays.stream(expectedQValueForNextAction).max().getAsDouble());
+        double[] output = new double[hiddenOutputLayerWeights.getRows()];
+        hiddenOutputLayerWeights.denseLayer(hiddenOutput, outputLayerBias, activation, output);
 
-        train(oldState, estimatedQValuesFromOldState);
+        return new ForwardPass(input, hiddenOutput, output);
     }
 
     /**
@@ -89,39 +134,112 @@ public class NeuralNetwork {
      *
      * @throws InvalidMatrixShapeException The input or target is not in the right format for dot product.
      */
+    @Override
     public void train(double[] input, double[] target) throws InvalidMatrixShapeException {
-        Matrix inputsMatrix = new Matrix(input);
+        train(feedForward(input), target);
+    }
+
+    /**
+     * Trains on a transition with Q-Learning, feeding the old state forward once for both the target and the
+     * training step that follows.
+     */
+    @Override
+    public void trainOnTransition(double[] state, int action, double reward, double[] nextState, double discount) throws InvalidMatrixShapeException {
+        ForwardPass pass = feedForward(state);
+        train(pass, qLearningTarget(pass, action, reward, nextState, discount));
+    }
+
+    private void train(ForwardPass pass, double[] target) throws InvalidMatrixShapeException {
+        NetworkTrainEvent trainEvent = new NetworkTrainEvent();
+        trainEvent.begin();
 
-        Matrix hiddenOutput = feedForwardInputToHidden(inputsMatrix);
-        Matrix output = feedForwardHiddenToOutput(hiddenOutput);
+        double[] output = pass.output();
+        double[] hiddenOutput = pass.hiddenOutput();
 
-        Matrix targetMatrix = new Matrix(target);
-        Matrix errorFromHiddenToOutputLayer = targetMatrix.subtract(output);
+        if (target.length != output.length) {
+            throw new InvalidMatrixShapeException("Invalid Shape for Matrix Subtract");
+        }
 
-        Matrix gradient = output
-                .derivativeSigmoid()
-                .multiply(errorFromHiddenToOutputLayer)
-                .multiply(learningRate);
+        double[] errorFromHiddenToOutputLayer = new double[output.length];
+        double[] gradient = new double[output.length];
 
-        Matrix transposedHiddenValues = hiddenOutput.transpose();
-        Matrix hiddenToOutputWeightChange = gradient.dotProduct(transposedHiddenValues);
+        for (int k = 0; k < output.length; k++) {
+            errorFromHiddenToOutputLayer[k] = target[k] - output[k];
+            gradient[k] = output[k] * (1 - output[k]) * errorFromHiddenToOutputLayer[k] * learningRate;
+        }
 
-        this.hiddenOutputLayerWeights = this.hiddenOutputLayerWeights.add(hiddenToOutputWeightChange);
-        this.outputLayerBias = this.outputLayerBias.add(gradient);
+        this.hiddenOutputLayerWeights = this.hiddenOutputLayerWeights.addOuterProduct(gradient, hiddenOutput);
+        this.outputLayerBias = this.outputLayerBias.addOuterProduct(gradient, BIAS_INPUT);
 
-        Matrix transposedHiddenOutputWeights = hiddenOutputLayerWeights.transpose();
-        Matrix errorFromInputToHiddenLayer = transposedHiddenOutputWeights.dotProduct(errorFromHiddenToOutputLayer);
+        double[] errorFromInputToHiddenLayer = hiddenOutputLayerWeights.transposeDotProduct(errorFromHiddenToOutputLayer);
+        double[] hiddenGradient = new double[hiddenOutput.length];
 
-        Matrix hiddenGradient = hiddenOutput
-                .derivativeSigmoid()
-                .multiply(errorFromInputToHiddenLayer)
-                .multiply(learningRate);
+        for (int j = 0; j < hiddenOutput.length; j++) {
+            hiddenGradient[j] = hiddenOutput[j] * (1 - hiddenOutput[j]) * errorFromInputToHiddenLayer[j] * learningRate;
+        }
 
-        Matrix transposedInput = inputsMatrix.transpose();
-        Matrix inputToHiddenWeightChange = hiddenGradient.dotProduct(transposedInput);
+        this.inputHiddenLayerWeights = this.inputHiddenLayerWeights.addOuterProduct(hiddenGradient, pass.input());
+        this.hiddenLayerBias = this.hiddenLayerBias.addOuterProduct(hiddenGradient, BIAS_INPUT);
+        weightVersion++;
 
-        this.inputHiddenLayerWeights = this.inputHiddenLayerWeights.add(inputToHiddenWeightChange);
-        this.hiddenLayerBias = this.hiddenLayerBias.add(hiddenGradient);
+        trainEvent.end();
+        if (trainEvent.shouldCommit()) {
+            trainEvent.inputCount = inputHiddenLayerWeights.getColumns();
+            trainEvent.hiddenCount = inputHiddenLayerWeights.getRows();
+            trainEvent.outputCount = hiddenOutputLayerWeights.getRows();
+            trainEvent.commit();
+        }
+    }
+
+    /**
+     * Works out how the weights should change to move the prediction for the input towards the target, without
+     * changing them. Unlike {@link #train}, both layers' changes are worked out from the current weights, so the
+     * changes for many samples can be worked out at once against the same network and summed.
+     */
+    public NetworkGradients computeGradients(double[] input, double[] target) throws InvalidMatrixShapeException {
+        return computeGradients(feedForward(input), target);
+    }
+
+    private NetworkGradients computeGradients(ForwardPass pass, double[] target) throws InvalidMatrixShapeException {
+        double[] output = pass.output();
+        double[] hiddenOutput = pass.hiddenOutput();
+
+        if (target.length != output.length) {
+            throw new InvalidMatrixShapeException("Invalid Shape for Matrix Subtract");
+        }
+
+        double[] errorFromHiddenToOutputLayer = new double[output.length];
+        double[] gradient = new double[output.length];
+
+        for (int k = 0; k < output.length; k++) {
+            errorFromHiddenToOutputLayer[k] = target[k] - output[k];
+            gradient[k] = output[k] * (1 - output[k]) * errorFromHiddenToOutputLayer[k] * learningRate;
+        }
+
+        double[] errorFromInputToHiddenLayer = hiddenOutputLayerWeights.transposeDotProduct(errorFromHiddenToOutputLayer);
+        double[] hiddenGradient = new double[hiddenOutput.length];
+
+        for (int j = 0; j < hiddenOutput.length; j++) {
+            hiddenGradient[j] = hiddenOutput[j] * (1 - hiddenOutput[j]) * errorFromInputToHiddenLayer[j] * learningRate;
+        }
+
+        return new NetworkGradients(
+                Matrix.outerProduct(hiddenGradient, pass.input()),
+                new Matrix(hiddenGradient),
+                Matrix.outerProduct(gradient, hiddenOutput),
+                new Matrix(gradient));
+    }
+
+    /**
+     * Adds the changes onto the weights. Like {@link #train}, new matrices are swapped in, so copies sharing the old
+     * weights are left alone.
+     */
+    public void applyGradients(NetworkGradients gradients) throws InvalidMatrixShapeException {
+        this.inputHiddenLayerWeights = this.inputHiddenLayerWeights.add(gradients.inputHiddenLayerWeights());
+        this.hiddenLayerBias = this.hiddenLayerBias.add(gradients.hiddenLayerBias());
+        this.hiddenOutputLayerWeights = this.hiddenOutputLayerWeights.add(gradients.hiddenOutputLayerWeights());
+        this.outputLayerBias = this.outputLayerBias.add(gradients.outputLayerBias());
+        weightVersion++;
     }
 
     /**
@@ -130,18 +248,48 @@ public class NeuralNetwork {
      * @param epochs The number of times to train the network, i.e. the number of iterations.
      */
     public void fit(NeuralNetworkTrainingData trainingData, int epochs) throws InvalidMatrixShapeException {
-        for(int iterationCount = 0; iterationCount < epochs; iterationCount++) {
-            int randomIndex = (int)(Math.random() * trainingData.getDataSize());
-
-            double[] input = trainingData.getInputAtIndex(randomIndex);
-            double[] newState = trainingData.getNewStateAtIndex(randomIndex);
-            double score = trainingData.getRewardAtIndex(randomIndex);
-            int action = trainingData.getActionAtIndex(randomIndex);
+        fit(trainingData, epochs, ThreadLocalRandom.current());
+    }
 
-            this.qLearning(input, score, newState, action);
+    /**
+     * Fits the network like {@link #fit(NeuralNetworkTrainingData, int, RandomGenerator, double)}, but with a
+     * mini-batch of samples per epoch rather than one, spread over a fork join pool. The batch's changes are worked out
+     * against the same weights, summed (see {@link ShardedGradients}) and their mean applied in one update. For the
+     * same random stream and shard count, the result is exactly the same however many threads the pool has.
+     * @param batchSize How many samples, picked at random, each epoch trains on.
+     * @param shards How many parts to split each batch into.
+     */
+    public void fitDataParallel(NeuralNetworkTrainingData trainingData, int epochs, int batchSize, ForkJoinPool pool, int shards, RandomGenerator random, double discount) throws InvalidMatrixShapeException {
+        int[] batch = new int[batchSize];
+
+        for (int iterationCount = 0; iterationCount < epochs; iterationCount++) {
+            for (int i = 0; i < batchSize; i++) {
+                batch[i] = random.nextInt(trainingData.getDataSize());
+            }
+
+            NetworkGradients total = ShardedGradients.sum(pool, 0, batchSize, shards, position -> {
+                int index = batch[position];
+                ForwardPass pass = feedForward(trainingData.getInputAtIndex(index));
+                double[] target = qLearningTarget(pass, trainingData.getActionAtIndex(index), trainingData.getRewardAtIndex(index), trainingData.getNewStateAtIndex(index), discount);
+                return computeGradients(pass, target);
+            });
+
+            applyGradients(total.multiply(1.0 / batchSize));
         }
     }
 
+    /**
+     * Works out the target like {@link Brain#qLearningTarget}, from one pass through the network for the state.
+     */
+    @Override
+    public double[] qLearningTarget(double[] state, int action, double reward, double[] nextState, double discount) throws InvalidMatrixShapeException {
+        return qLearningTarget(feedForward(state), action, reward, nextState, discount);
+    }
+
+    private double[] qLearningTarget(ForwardPass pass, int action, double reward, double[] nextState, double discount) throws InvalidMatrixShapeException {
+        return Brain.qLearningTargetFrom(pass.output(), action, reward, predict(nextState), discount);
+    }
+
     public Matrix getInputHiddenLayerWeights() {
         return inputHiddenLayerWeights;
     }
@@ -150,7 +298,90 @@ public class NeuralNetwork {
         return hiddenOutputLayerWeights;
     }
 
+    public Matrix getHiddenLayerBias() {
+        return hiddenLayerBias;
+    }
+
+    public Matrix getOutputLayerBias() {
+        return outputLayerBias;
+    }
+
+    public double getLearningRate() {
+        return learningRate;
+    }
+
+    public Activation getActivation() {
+        return activation;
+    }
+
+    public long getWeightVersion() {
+        return weightVersion;
+    }
+
+    /**
+     * Copies the network like {@link #copy()}, but works the sigmoid out the given way, e.g. to swap the exact
+     * sigmoid for a cheaper approximation once a brain is trained.
+     */
+    public NeuralNetwork withActivation(Activation activation) {
+        return new NeuralNetwork(this.inputHiddenLayerWeights, this.hiddenOutputLayerWeights, this.hiddenLayerBias, this.outputLayerBias, this.learningRate, activation);
+    }
+
+    @Override
+    public double[] toParameterVector() {
+        return concatenate(inputHiddenLayerWeights.toFlatArray(), hiddenLayerBias.toFlatArray(), hiddenOutputLayerWeights.toFlatArray(), outputLayerBias.toFlatArray());
+    }
+
+    @Override
+    public NeuralNetwork withParameterVector(double[] parameters) {
+        int hiddenCount = inputHiddenLayerWeights.getRows();
+        int inputCount = inputHiddenLayerWeights.getColumns();
+        int outputCount = hiddenOutputLayerWeights.getRows();
+
+        int offset = 0;
+        Matrix newInputHiddenLayerWeights = Matrix.fromFlatArray(hiddenCount, inputCount, parameters, offset);
+        offset += hiddenCount * inputCount;
+        Matrix newHiddenLayerBias = Matrix.fromFlatArray(hiddenCount, 1, parameters, offset);
+        offset += hiddenCount;
+        Matrix newHiddenOutputLayerWeights = Matrix.fromFlatArray(outputCount, hiddenCount, parameters, offset);
+        offset += outputCount * hiddenCount;
+        Matrix newOutputLayerBias = Matrix.fromFlatArray(outputCount, 1, parameters, offset);
+
+        return new NeuralNetwork(newInputHiddenLayerWeights, newHiddenOutputLayerWeights, newHiddenLayerBias, newOutputLayerBias, learningRate, activation);
+    }
+
+    static double[] concatenate(double[]... arrays) {
+        int totalLength = 0;
+        for (double[] array : arrays) {
+            totalLength += array.length;
+        }
+
+        double[] output = new double[totalLength];
+        int offset = 0;
+        for (double[] array : arrays) {
+            System.arraycopy(array, 0, output, offset, array.length);
+            offset += array.length;
+        }
+
+        return output;
+    }
+
+    /**
+     * Copies the network, sharing the weights with the original until one of them trains.
+     *
+     * Training never writes into a weight matrix - it always builds a new one and swaps it in - so the shared matrices
+     * are never changed underneath either network. The first train on either side gives that side its own weights,
+     * and the other side keeps the originals.
+     * @return A new network which behaves exactly like this one.
+     */
+    @Override
     public NeuralNetwork copy() {
-        return new NeuralNetwork(this.inputHiddenLayerWeights.copy(), this.hiddenOutputLayerWeights.copy(), this.hiddenLayerBias.copy(), this.outputLayerBias.copy(), this.learningRate);
+        return new NeuralNetwork(this.inputHiddenLayerWeights, this.hiddenOutputLayerWeights, this.hiddenLayerBias, this.outputLayerBias, this.learningRate, this.activation);
+    }
+
+    /**
+     * Copies the network along with all of its weights, for callers that want to change the weight matrices directly.
+     */
+    public NeuralNetwork deepCopy() {
+        return new NeuralNetwork(this.inputHiddenLayerWeights.copy(), this.hiddenOutputLayerWeights.copy(), this.hiddenLayerBias.copy(), this.outputLayerBias.copy(), this.learningRate, this.activation);
     }
 }
@@ -0,0 +1,338 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.Activation;
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.matrix.Matrix;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link NeuralNetwork} whose weights live outside the Java heap, in a direct buffer, so that a population of tens of
+ * thousands of brains doesn't leave the garbage collector millions of weights to walk on every full collection. The
+ * maths is the same as {@link NeuralNetwork}'s, step for step, so both give exactly the same predictions and training.
+ *
+ * The weights and biases sit in one block laid out like {@link #toParameterVector()}, which is also how
+ * {@link BrainSerializer} writes a double precision brain - so a saved brain can be {@link #map mapped} straight from
+ * disk rather than read onto the heap.
+ *
+ * Copies share a block until one of them trains, like {@link NeuralNetwork#copy()}. Each block counts the networks
+ * using it; training on a shared (or mapped) block first copies it into a new one of the network's own, and training
+ * on a block nobody else uses updates it in place. Networks that are dropped without training don't give up their
+ * share, so a block can be copied once more than it strictly needed to be, but is never changed under another network.
+ */
+public class OffHeapNeuralNetwork implements Brain {
+    private static final int DOUBLE_SIZE_IN_BYTES = Double.BYTES;
+    private static final double[] BIAS_INPUT = {1};
+
+    private final int inputCount;
+    private final int hiddenCount;
+    private final int outputCount;
+
+    private final double learningRate;
+    private final Activation activation;
+
+    private WeightBlock weights;
+
+    private OffHeapNeuralNetwork(int inputCount, int hiddenCount, int outputCount, double learningRate, Activation activation, WeightBlock weights) {
+        this.inputCount = inputCount;
+        this.hiddenCount = hiddenCount;
+        this.outputCount = outputCount;
+        this.learningRate = learningRate;
+        this.activation = activation;
+        this.weights = weights;
+    }
+
+    /**
+     * Moves a copy of an existing network's weights off the heap.
+     */
+    public static OffHeapNeuralNetwork from(NeuralNetwork network) {
+        int inputCount = network.getInputHiddenLayerWeights().getColumns();
+        int hiddenCount = network.getInputHiddenLayerWeights().getRows();
+        int outputCount = network.getOutputLayerBias().getRows();
+
+        return new OffHeapNeuralNetwork(inputCount, hiddenCount, outputCount, network.getLearningRate(), network.getActivation(), WeightBlock.of(network.toParameterVector()));
+    }
+
+    /**
+     * Maps a double precision brain saved by {@link BrainSerializer} straight from the file. The weights are only read
+     * from disk as they are used, and aren't copied into memory of their own until the network first trains.
+     * @throws IOException If the file isn't a double precision brain.
+     */
+    public static OffHeapNeuralNetwork map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            if (channel.size() < BrainSerializer.HEADER_SIZE_IN_BYTES || buffer.getInt(0) != BrainSerializer.MAGIC) {
+                throw new IOException("Not a brain file - bad magic number");
+            }
+
+            int version = buffer.getInt(4);
+            if (version != BrainSerializer.VERSION) {
+                throw new IOException("Unsupported brain file version " + version);
+            }
+
+            byte precision = buffer.get(8);
+            if (precision != BrainSerializer.DOUBLE_PRECISION) {
+                throw new IOException("Only double precision brains can be mapped, not precision " + precision);
+            }
+
+            double learningRate = buffer.getDouble(9);
+            int inputCount = buffer.getInt(17);
+            int hiddenCount = buffer.getInt(21);
+            int outputCount = buffer.getInt(25);
+
+            long expectedSize = BrainSerializer.HEADER_SIZE_IN_BYTES + (long) parameterCount(inputCount, hiddenCount, outputCount) * DOUBLE_SIZE_IN_BYTES;
+            if (channel.size() != expectedSize) {
+                throw new IOException(String.format("A %d-%d-%d brain file should be %d bytes, not %d", inputCount, hiddenCount, outputCount, expectedSize, channel.size()));
+            }
+
+            DoubleBuffer values = buffer
+                    .slice(BrainSerializer.HEADER_SIZE_IN_BYTES, (int) (expectedSize - BrainSerializer.HEADER_SIZE_IN_BYTES))
+                    .order(ByteOrder.BIG_ENDIAN)
+                    .asDoubleBuffer();
+
+            return new OffHeapNeuralNetwork(inputCount, hiddenCount, outputCount, learningRate, Activation.EXACT, new WeightBlock(values, false));
+        }
+    }
+
+    private static int parameterCount(int inputCount, int hiddenCount, int outputCount) {
+        return hiddenCount * inputCount + hiddenCount + outputCount * hiddenCount + outputCount;
+    }
+
+    private int hiddenLayerBiasOffset() {
+        return hiddenCount * inputCount;
+    }
+
+    private int hiddenOutputLayerWeightsOffset() {
+        return hiddenLayerBiasOffset() + hiddenCount;
+    }
+
+    private int outputLayerBiasOffset() {
+        return hiddenOutputLayerWeightsOffset() + outputCount * hiddenCount;
+    }
+
+    @Override
+    public double[] predict(double[] inputs) throws InvalidMatrixShapeException {
+        return feedForward(inputs).output();
+    }
+
+    private ForwardPass feedForward(double[] input) throws InvalidMatrixShapeException {
+        if (input.length != inputCount) {
+            throw new InvalidMatrixShapeException(String.format("Columns of m1 must equal rows of m2 for dot product. m1.columns = %d & m2.rows = %d", inputCount, input.length));
+        }
+
+        DoubleBuffer values = weights.values;
+
+        double[] hiddenOutput = new double[hiddenCount];
+        denseLayer(values, 0, hiddenLayerBiasOffset(), input, hiddenOutput);
+
+        double[] output = new double[outputCount];
+        denseLayer(values, hiddenOutputLayerWeightsOffset(), outputLayerBiasOffset(), hiddenOutput, output);
+
+        return new ForwardPass(input, hiddenOutput, output);
+    }
+
+    private void denseLayer(DoubleBuffer values, int weightsOffset, int biasOffset, double[] input, double[] output) {
+        for (int x = 0; x < output.length; x++) {
+            int rowOffset = weightsOffset + x * input.length;
+            double total = 0;
+            for (int k = 0; k < input.length; k++) {
+                total += values.get(rowOffset + k) * input[k];
+            }
+            output[x] = activation.sigmoid(total + values.get(biasOffset + x));
+        }
+    }
+
+    @Override
+    public void train(double[] input, double[] target) throws InvalidMatrixShapeException {
+        train(feedForward(input), target);
+    }
+
+    @Override
+    public void trainOnTransition(double[] state, int action, double reward, double[] nextState, double discount) throws InvalidMatrixShapeException {
+        ForwardPass pass = feedForward(state);
+        train(pass, Brain.qLearningTargetFrom(pass.output(), action, reward, predict(nextState), discount));
+    }
+
+    /**
+     * Backpropagates exactly as {@link NeuralNetwork} does, writing the new weights into this network's own block.
+     */
+    private void train(ForwardPass pass, double[] target) throws InvalidMatrixShapeException {
+        double[] output = pass.output();
+        double[] hiddenOutput = pass.hiddenOutput();
+        double[] input = pass.input();
+
+        if (target.length != outputCount) {
+            throw new InvalidMatrixShapeException("Invalid Shape for Matrix Subtract");
+        }
+
+        DoubleBuffer values = ownWeights().values;
+
+        double[] errorFromHiddenToOutputLayer = new double[outputCount];
+        double[] gradient = new double[outputCount];
+
+        for (int k = 0; k < outputCount; k++) {
+            errorFromHiddenToOutputLayer[k] = target[k] - output[k];
+            gradient[k] = output[k] * (1 - output[k]) * errorFromHiddenToOutputLayer[k] * learningRate;
+        }
+
+        addOuterProduct(values, hiddenOutputLayerWeightsOffset(), gradient, hiddenOutput);
+        addOuterProduct(values, outputLayerBiasOffset(), gradient, BIAS_INPUT);
+
+        // Like NeuralNetwork, the hidden layer's error is passed back through the freshly updated weights.
+        double[] hiddenGradient = new double[hiddenCount];
+        for (int j = 0; j < hiddenCount; j++) {
+            double error = 0;
+            for (int k = 0; k < outputCount; k++) {
+                error += values.get(hiddenOutputLayerWeightsOffset() + k * hiddenCount + j) * errorFromHiddenToOutputLayer[k];
+            }
+            hiddenGradient[j] = hiddenOutput[j] * (1 - hiddenOutput[j]) * error * learningRate;
+        }
+
+        addOuterProduct(values, 0, hiddenGradient, input);
+        addOuterProduct(values, hiddenLayerBiasOffset(), hiddenGradient, BIAS_INPUT);
+    }
+
+    private static void addOuterProduct(DoubleBuffer values, int offset, double[] column, double[] row) {
+        for (int x = 0; x < column.length; x++) {
+            int rowOffset = offset + x * row.length;
+            for (int y = 0; y < row.length; y++) {
+                values.put(rowOffset + y, values.get(rowOffset + y) + column[x] * row[y]);
+            }
+        }
+    }
+
+    /**
+     * The block to train into: this network's current one if nobody else uses it and it can be written to, otherwise
+     * a fresh copy of it.
+     */
+    private WeightBlock ownWeights() {
+        if (!weights.writable || weights.users.get() > 1) {
+            WeightBlock shared = weights;
+            weights = WeightBlock.copyOf(shared.values);
+            shared.users.decrementAndGet();
+        }
+
+        return weights;
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    public int getHiddenCount() {
+        return hiddenCount;
+    }
+
+    public int getOutputCount() {
+        return outputCount;
+    }
+
+    public double getLearningRate() {
+        return learningRate;
+    }
+
+    public Activation getActivation() {
+        return activation;
+    }
+
+    /**
+     * Whether the weights are currently read straight from a mapped file.
+     */
+    public boolean isMapped() {
+        return !weights.writable;
+    }
+
+    /**
+     * Copies the network, sharing the weights like {@link #copy()}, but working the sigmoid out the given way.
+     */
+    public OffHeapNeuralNetwork withActivation(Activation activation) {
+        weights.users.incrementAndGet();
+        return new OffHeapNeuralNetwork(inputCount, hiddenCount, outputCount, learningRate, activation, weights);
+    }
+
+    /**
+     * Brings the weights back onto the heap as an ordinary network.
+     */
+    public NeuralNetwork toNeuralNetwork() {
+        double[] parameters = toParameterVector();
+
+        return new NeuralNetwork(
+                Matrix.fromFlatArray(hiddenCount, inputCount, parameters, 0),
+                Matrix.fromFlatArray(outputCount, hiddenCount, parameters, hiddenOutputLayerWeightsOffset()),
+                Matrix.fromFlatArray(hiddenCount, 1, parameters, hiddenLayerBiasOffset()),
+                Matrix.fromFlatArray(outputCount, 1, parameters, outputLayerBiasOffset()),
+                learningRate,
+                activation);
+    }
+
+    @Override
+    public double[] toParameterVector() {
+        double[] parameters = new double[weights.values.capacity()];
+        weights.values.get(0, parameters);
+        return parameters;
+    }
+
+    @Override
+    public OffHeapNeuralNetwork withParameterVector(double[] parameters) {
+        if (parameters.length != parameterCount(inputCount, hiddenCount, outputCount)) {
+            throw new IllegalArgumentException(String.format("A %d-%d-%d network has %d parameters, not %d", inputCount, hiddenCount, outputCount, parameterCount(inputCount, hiddenCount, outputCount), parameters.length));
+        }
+
+        return new OffHeapNeuralNetwork(inputCount, hiddenCount, outputCount, learningRate, activation, WeightBlock.of(parameters));
+    }
+
+    /**
+     * Copies the network, sharing the weights with the original until one of them trains.
+     */
+    @Override
+    public OffHeapNeuralNetwork copy() {
+        weights.users.incrementAndGet();
+        return new OffHeapNeuralNetwork(inputCount, hiddenCount, outputCount, learningRate, activation, weights);
+    }
+
+    private record ForwardPass(double[] input, double[] hiddenOutput, double[] output) {}
+
+    /**
+     * One block of weights off the heap, and how many networks are using it.
+     */
+    private static final class WeightBlock {
+        private final DoubleBuffer values;
+        private final boolean writable;
+        private final AtomicInteger users = new AtomicInteger(1);
+
+        private WeightBlock(DoubleBuffer values, boolean writable) {
+            this.values = values;
+            this.writable = writable;
+        }
+
+        private static WeightBlock allocate(int count) {
+            DoubleBuffer values = ByteBuffer
+                    .allocateDirect(count * DOUBLE_SIZE_IN_BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asDoubleBuffer();
+            return new WeightBlock(values, true);
+        }
+
+        private static WeightBlock of(double[] parameters) {
+            WeightBlock block = allocate(parameters.length);
+            block.values.put(0, parameters);
+            return block;
+        }
+
+        private static WeightBlock copyOf(DoubleBuffer source) {
+            WeightBlock block = allocate(source.capacity());
+            block.values.put(0, source, 0, source.capacity());
+            return block;
+        }
+    }
+}
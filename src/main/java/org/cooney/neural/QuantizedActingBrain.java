@@ -0,0 +1,93 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A brain which acts with an int8 snapshot of its network but learns in full precision.
+ *
+ * Acting only needs the index of the best Q value, which survives quantization, so every prediction runs through the
+ * {@link QuantizedNeuralNetwork}. Learning needs the real values, so the full precision network is kept for training
+ * and the snapshot is rebuilt whenever training finishes publishing new weights.
+ */
+public class QuantizedActingBrain implements Brain {
+    private final NeuralNetwork learningNetwork;
+    private volatile QuantizedNeuralNetwork actingNetwork;
+
+    public QuantizedActingBrain(NeuralNetwork learningNetwork) {
+        this(learningNetwork, QuantizedNeuralNetwork.quantize(learningNetwork));
+    }
+
+    private QuantizedActingBrain(NeuralNetwork learningNetwork, QuantizedNeuralNetwork actingNetwork) {
+        this.learningNetwork = learningNetwork;
+        this.actingNetwork = actingNetwork;
+    }
+
+    @Override
+    public double[] predict(double[] inputs) throws InvalidMatrixShapeException {
+        return actingNetwork.predict(inputs);
+    }
+
+    @Override
+    public void train(double[] input, double[] target) throws InvalidMatrixShapeException {
+        learningNetwork.train(input, target);
+        requantize();
+    }
+
+    /**
+     * Trains the full precision network on the transition, with the target worked out from its real Q values rather
+     * than the int8 ones, then publishes a new snapshot.
+     */
+    @Override
+    public void trainOnTransition(double[] oldState, int action, double score, double[] newState, double discount) throws InvalidMatrixShapeException {
+        learningNetwork.trainOnTransition(oldState, action, score, newState, discount);
+        requantize();
+    }
+
+    /**
+     * Works the target out with the full precision network - int8 is only good enough for picking an action.
+     */
+    @Override
+    public double[] qLearningTarget(double[] state, int action, double reward, double[] nextState, double discount) throws InvalidMatrixShapeException {
+        return learningNetwork.qLearningTarget(state, action, reward, nextState, discount);
+    }
+
+    /**
+     * Fits the full precision network (so the Q-Learning targets are worked out with real values), then publishes a
+     * new int8 snapshot for acting on - once for the whole fit, not once per sample.
+     */
+    @Override
+    public void fit(NeuralNetworkTrainingData trainingData, int epochs, RandomGenerator random, double discount) throws InvalidMatrixShapeException {
+        learningNetwork.fit(trainingData, epochs, random, discount);
+        requantize();
+    }
+
+    private void requantize() {
+        this.actingNetwork = QuantizedNeuralNetwork.quantize(learningNetwork);
+    }
+
+    public NeuralNetwork getLearningNetwork() {
+        return learningNetwork;
+    }
+
+    public QuantizedNeuralNetwork getActingNetwork() {
+        return actingNetwork;
+    }
+
+    @Override
+    public double[] toParameterVector() {
+        return learningNetwork.toParameterVector();
+    }
+
+    @Override
+    public QuantizedActingBrain withParameterVector(double[] parameters) {
+        return new QuantizedActingBrain(learningNetwork.withParameterVector(parameters));
+    }
+
+    @Override
+    public QuantizedActingBrain copy() {
+        // The snapshot is never modified, only replaced, so the copy can share it.
+        return new QuantizedActingBrain(learningNetwork.copy(), actingNetwork);
+    }
+}
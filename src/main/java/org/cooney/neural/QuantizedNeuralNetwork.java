@@ -0,0 +1,118 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.matrix.Matrix;
+
+/**
+ * A read-only int8 snapshot of a {@link NeuralNetwork}, good for acting but not for learning.
+ *
+ * Each weight layer is quantized symmetrically with its own scale, so a weight w is stored as round(w / scale) in a
+ * byte. Biases stay in full precision as there are so few of them.
+ *
+ * The raw observations fed into the first layer have wildly different ranges (cell ids next to an energy level in the
+ * hundreds), so they are not quantized - the first layer multiplies int8 weights by the raw inputs. The hidden layer's
+ * activations are always between 0 and 1 though, so they are quantized onto a fixed 0..127 grid and the second layer
+ * runs as a pure integer dot product, only going back to floating point for the bias and the activation.
+ */
+public class QuantizedNeuralNetwork {
+    private static final int INT8_MAX = 127;
+
+    private final byte[] inputHiddenLayerWeights;
+    private final double inputHiddenLayerScale;
+    private final double[] hiddenLayerBias;
+
+    private final byte[] hiddenOutputLayerWeights;
+    private final double hiddenOutputLayerScale;
+    private final double[] outputLayerBias;
+
+    private final int inputCount;
+    private final int hiddenCount;
+    private final int outputCount;
+
+    private QuantizedNeuralNetwork(NeuralNetwork neuralNetwork) {
+        Matrix inputHidden = neuralNetwork.getInputHiddenLayerWeights();
+        Matrix hiddenOutput = neuralNetwork.getHiddenOutputLayerWeights();
+
+        this.hiddenCount = inputHidden.getRows();
+        this.inputCount = inputHidden.getColumns();
+        this.outputCount = hiddenOutput.getRows();
+
+        this.inputHiddenLayerScale = scaleFor(inputHidden);
+        this.inputHiddenLayerWeights = quantize(inputHidden, inputHiddenLayerScale);
+        this.hiddenLayerBias = neuralNetwork.getHiddenLayerBias().toFlatArray();
+
+        this.hiddenOutputLayerScale = scaleFor(hiddenOutput);
+        this.hiddenOutputLayerWeights = quantize(hiddenOutput, hiddenOutputLayerScale);
+        this.outputLayerBias = neuralNetwork.getOutputLayerBias().toFlatArray();
+    }
+
+    public static QuantizedNeuralNetwork quantize(NeuralNetwork neuralNetwork) {
+        return new QuantizedNeuralNetwork(neuralNetwork);
+    }
+
+    public double[] predict(double[] inputs) throws InvalidMatrixShapeException {
+        if (inputs.length != inputCount) {
+            throw new InvalidMatrixShapeException(String.format("Expected %d inputs for quantized network but got %d", inputCount, inputs.length));
+        }
+
+        byte[] quantizedHidden = new byte[hiddenCount];
+
+        for (int h = 0; h < hiddenCount; h++) {
+            int rowOffset = h * inputCount;
+            double total = 0;
+            for (int i = 0; i < inputCount; i++) {
+                total += inputHiddenLayerWeights[rowOffset + i] * inputs[i];
+            }
+            double activation = sigmoid(total * inputHiddenLayerScale + hiddenLayerBias[h]);
+            quantizedHidden[h] = (byte) Math.round(activation * INT8_MAX);
+        }
+
+        double[] output = new double[outputCount];
+        double outputScale = hiddenOutputLayerScale / INT8_MAX;
+
+        for (int o = 0; o < outputCount; o++) {
+            int rowOffset = o * hiddenCount;
+            int total = 0;
+            for (int h = 0; h < hiddenCount; h++) {
+                total += hiddenOutputLayerWeights[rowOffset + h] * quantizedHidden[h];
+            }
+            output[o] = sigmoid(total * outputScale + outputLayerBias[o]);
+        }
+
+        return output;
+    }
+
+    /**
+     * @return The number of bytes used by the quantized weights, for comparing against the full precision network.
+     */
+    public int getWeightSizeInBytes() {
+        return inputHiddenLayerWeights.length + hiddenOutputLayerWeights.length;
+    }
+
+    private static double scaleFor(Matrix weights) {
+        double maxMagnitude = 0;
+
+        for (double weight : weights.toFlatArray()) {
+            maxMagnitude = Math.max(maxMagnitude, Math.abs(weight));
+        }
+
+        // An all zero layer can have any scale, but it mustn't be zero or we'll divide by it.
+        return maxMagnitude == 0 ? 1 : maxMagnitude / INT8_MAX;
+    }
+
+    private static byte[] quantize(Matrix weights, double scale) {
+        double[] flatWeights = weights.toFlatArray();
+        byte[] quantized = new byte[flatWeights.length];
+
+        for (int x = 0; x < flatWeights.length; x++) {
+            long rounded = Math.round(flatWeights[x] / scale);
+            quantized[x] = (byte) Math.max(-INT8_MAX, Math.min(INT8_MAX, rounded));
+        }
+
+        return quantized;
+    }
+
+    private static double sigmoid(double value) {
+        return 1 / (1 + Math.exp(-value));
+    }
+}
@@ -0,0 +1,112 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Works out the summed changes for a batch of samples on a fork join pool, one shard of the batch per task.
+ *
+ * The batch is cut into the given number of contiguous shards. Each shard sums its own samples' changes in order, in
+ * place into its own buffer, and the shards' sums are then added up pairwise as a fixed tree: the first half of the
+ * shards with the second, recursively. Since the shards and the tree only depend on the batch and the shard count -
+ * never on which thread got to what first - the total comes out the same to the last bit every time.
+ */
+public final class ShardedGradients {
+    private ShardedGradients() {
+    }
+
+    @FunctionalInterface
+    public interface SampleGradients {
+        /**
+         * The changes for the sample at the given position in the batch.
+         */
+        NetworkGradients compute(int position) throws InvalidMatrixShapeException;
+    }
+
+    /**
+     * @param from The first position in the batch.
+     * @param to One past the last position in the batch.
+     * @param shards How many shards to split the batch into. Capped at the batch size.
+     * @return The sum of the changes for every sample in the batch.
+     */
+    public static NetworkGradients sum(ForkJoinPool pool, int from, int to, int shards, SampleGradients sampleGradients) throws InvalidMatrixShapeException {
+        if (to <= from) {
+            throw new IllegalArgumentException("Can't sum the gradients of an empty batch");
+        }
+
+        int shardCount = Math.max(1, Math.min(shards, to - from));
+
+        try {
+            return pool.invoke(new ShardRange(from, to, 0, shardCount, shardCount, sampleGradients));
+        } catch (WrappedShapeException e) {
+            throw e.cause;
+        }
+    }
+
+    private static class ShardRange extends RecursiveTask<NetworkGradients> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int firstShard;
+        private final int lastShard;
+        private final int shardCount;
+        private final transient SampleGradients sampleGradients;
+
+        ShardRange(int from, int to, int firstShard, int lastShard, int shardCount, SampleGradients sampleGradients) {
+            this.from = from;
+            this.to = to;
+            this.firstShard = firstShard;
+            this.lastShard = lastShard;
+            this.shardCount = shardCount;
+            this.sampleGradients = sampleGradients;
+        }
+
+        @Override
+        protected NetworkGradients compute() {
+            try {
+                if (lastShard - firstShard == 1) {
+                    return sumShard(shardStart(firstShard), shardStart(lastShard));
+                }
+
+                int middleShard = (firstShard + lastShard) >>> 1;
+                ShardRange left = new ShardRange(from, to, firstShard, middleShard, shardCount, sampleGradients);
+                ShardRange right = new ShardRange(from, to, middleShard, lastShard, shardCount, sampleGradients);
+
+                left.fork();
+                NetworkGradients rightSum = right.compute();
+                return left.join().addInPlace(rightSum);
+            } catch (InvalidMatrixShapeException e) {
+                throw new WrappedShapeException(e);
+            }
+        }
+
+        private int shardStart(int shard) {
+            return from + (int) ((long) (to - from) * shard / shardCount);
+        }
+
+        private NetworkGradients sumShard(int shardFrom, int shardTo) throws InvalidMatrixShapeException {
+            // A copy, so the samples' own changes are never written to.
+            NetworkGradients total = sampleGradients.compute(shardFrom).copy();
+
+            for (int position = shardFrom + 1; position < shardTo; position++) {
+                total.addInPlace(sampleGradients.compute(position));
+            }
+
+            return total;
+        }
+    }
+
+    private static class WrappedShapeException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final InvalidMatrixShapeException cause;
+
+        WrappedShapeException(InvalidMatrixShapeException cause) {
+            super(cause);
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * One brain for a whole population, trained centrally rather than by each agent.
+ *
+ * Agents offer up every transition they make (see {@link #offerTransition}) onto a lock-free queue, and carry on. A
+ * single learner thread drains the queue into a replay buffer and trains on random batches from it, working out each
+ * batch's changes across a fork join pool (see {@link ShardedGradients}) and averaging them into one update. Every
+ * few updates it publishes a fresh snapshot of the weights, which is what the agents predict with, so acting never
+ * waits on learning. Snapshots share the weight matrices with the learner until it next trains (see
+ * {@link NeuralNetwork#copy()}), so publishing costs next to nothing.
+ *
+ * Agents sharing the brain don't train it themselves - {@link #train} and {@link #fit} do nothing. If the learner
+ * thread fails, the failure is thrown from the next {@link #offerTransition} or {@link #close}.
+ */
+public class SharedBrain implements Brain, AutoCloseable {
+    public static final int DEFAULT_REPLAY_CAPACITY = 100_000;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int DEFAULT_PUBLISH_EVERY = 10;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final NeuralNetwork learner;
+    private final double discount;
+    private final int batchSize;
+    private final int publishEvery;
+    private final int maxPending;
+    private final ForkJoinPool pool;
+
+    private final ConcurrentLinkedQueue<Experience> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Only touched by the learner thread.
+    private final Experience[] replay;
+    private final SplittableRandom random;
+    private int replaySize;
+    private int replayNext;
+
+    private volatile NeuralNetwork published;
+    private volatile long version;
+    private volatile long trainingSteps;
+    private volatile boolean running = true;
+    private volatile Exception learnerFailure;
+    private final Thread learnerThread;
+
+    public SharedBrain(NeuralNetwork network, long seed) {
+        this(network, DISCOUNT, DEFAULT_REPLAY_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_PUBLISH_EVERY, seed);
+    }
+
+    /**
+     * @param network The starting weights. The shared brain takes it over, so it shouldn't be used elsewhere.
+     * @param discount How much the Q-Learning targets value what comes next.
+     * @param replayCapacity How many transitions the replay buffer keeps. The oldest are overwritten first. Also the
+     *                       most that can wait on the queue for the learner before new ones are dropped.
+     * @param batchSize How many transitions each update is averaged over.
+     * @param publishEvery How many updates go by between publishing new weights to the agents.
+     * @param seed Seeds the sampling of batches from the replay buffer.
+     */
+    public SharedBrain(NeuralNetwork network, double discount, int replayCapacity, int batchSize, int publishEvery, long seed) {
+        this(network, discount, replayCapacity, batchSize, publishEvery, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * As above, with each batch's changes worked out on the given pool, one shard per thread.
+     */
+    public SharedBrain(NeuralNetwork network, double discount, int replayCapacity, int batchSize, int publishEvery, long seed, ForkJoinPool pool) {
+        this.learner = network;
+        this.discount = discount;
+        this.batchSize = batchSize;
+        this.publishEvery = publishEvery;
+        this.maxPending = replayCapacity;
+        this.pool = pool;
+        this.replay = new Experience[replayCapacity];
+        this.random = new SplittableRandom(seed);
+        this.published = network.copy();
+
+        this.learnerThread = new Thread(this::learnUntilClosed, "shared-brain-learner");
+        this.learnerThread.setDaemon(true);
+        this.learnerThread.start();
+    }
+
+    @Override
+    public double[] predict(double[] inputs) throws InvalidMatrixShapeException {
+        return published.predict(inputs);
+    }
+
+    @Override
+    public double[][] predictBatch(double[][] inputs) throws InvalidMatrixShapeException {
+        return published.predictBatch(inputs);
+    }
+
+    @Override
+    public boolean learnsFromTransitions() {
+        return true;
+    }
+
+    /**
+     * Queues the transition for the learner. Never blocks: if the learner has fallen so far behind that a whole
+     * replay buffer's worth is already waiting, the transition is dropped.
+     * @throws IllegalStateException If the learner thread has failed.
+     */
+    @Override
+    public void offerTransition(double[] state, int action, double reward, double[] nextState) {
+        throwIfLearnerFailed();
+
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+
+        pending.offer(new Experience(state, action, reward, nextState));
+        received.incrementAndGet();
+    }
+
+    @Override
+    public void train(double[] input, double[] target) {
+        // The learner thread does all the training.
+    }
+
+    @Override
+    public void fit(NeuralNetworkTrainingData trainingData, int epochs, RandomGenerator random, double discount) {
+        // The learner thread does all the training.
+    }
+
+    /**
+     * Every agent shares the one brain, so a copy is the brain itself.
+     */
+    @Override
+    public SharedBrain copy() {
+        return this;
+    }
+
+    @Override
+    public double[] toParameterVector() {
+        return published.toParameterVector();
+    }
+
+    /**
+     * The weights are trained centrally, so a child can't be given weights of its own - it joins the shared brain
+     * like everybody else.
+     */
+    @Override
+    public SharedBrain withParameterVector(double[] parameters) {
+        return this;
+    }
+
+    private void learnUntilClosed() {
+        try {
+            learn();
+        } catch (InvalidMatrixShapeException | RuntimeException e) {
+            // Nobody is waiting on this thread, so keep the failure for whoever next offers a transition or closes.
+            learnerFailure = e;
+        }
+    }
+
+    private void learn() throws InvalidMatrixShapeException {
+        int stepsSincePublish = 0;
+
+        while (running) {
+            int drained = drainPending();
+
+            if (drained == 0 || replaySize < batchSize) {
+                // Nothing new to learn from yet - make sure the agents have the latest weights while we wait.
+                if (stepsSincePublish > 0) {
+                    publish();
+                    stepsSincePublish = 0;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            // Transitions that don't fit the network can't be learned from, so this stops the learner rather than
+            // spinning on them.
+            trainOnBatch();
+
+            trainingSteps++;
+            stepsSincePublish++;
+
+            if (stepsSincePublish >= publishEvery) {
+                publish();
+                stepsSincePublish = 0;
+            }
+        }
+    }
+
+    private int drainPending() {
+        int drained = 0;
+        Experience experience;
+
+        while ((experience = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            replay[replayNext] = experience;
+            replayNext = (replayNext + 1) % replay.length;
+            replaySize = Math.min(replaySize + 1, replay.length);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    private void trainOnBatch() throws InvalidMatrixShapeException {
+        Experience[] batch = new Experience[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = replay[random.nextInt(replaySize)];
+        }
+
+        NetworkGradients total = ShardedGradients.sum(pool, 0, batchSize, pool.getParallelism(), position -> {
+            Experience experience = batch[position];
+            double[] target = learner.qLearningTarget(experience.state(), experience.action(), experience.reward(), experience.nextState(), discount);
+            return learner.computeGradients(experience.state(), target);
+        });
+
+        learner.applyGradients(total.multiply(1.0 / batchSize));
+    }
+
+    private void publish() {
+        published = learner.copy();
+        version++;
+    }
+
+    /**
+     * How many times new weights have been published to the agents.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getTrainingSteps() {
+        return trainingSteps;
+    }
+
+    public long getTransitionsReceived() {
+        return received.get();
+    }
+
+    public long getTransitionsDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops the learner thread, waiting for it to finish its current update.
+     * @throws IllegalStateException If the learner thread had failed.
+     */
+    @Override
+    public void close() {
+        running = false;
+
+        try {
+            learnerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        throwIfLearnerFailed();
+    }
+
+    private void throwIfLearnerFailed() {
+        Exception failure = learnerFailure;
+        if (failure != null) {
+            throw new IllegalStateException("The shared brain's learner thread failed", failure);
+        }
+    }
+
+    private record Experience(double[] state, int action, double reward, double[] nextState) {
+    }
+}
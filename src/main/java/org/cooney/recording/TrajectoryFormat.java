@@ -0,0 +1,43 @@
+package org.cooney.recording;
+
+/**
+ * The layout of a trajectory log. All values are big endian. Each file starts with:
+ *
+ * <pre>
+ * int    magic ("DQTR")
+ * int    format version
+ * </pre>
+ *
+ * followed by records, each starting with a one byte tag:
+ *
+ * <pre>
+ * TRANSITION:  long actor id, int tick, int action, float reward, short state length,
+ *              float[state length] state, float[state length] next state
+ * WORLD_EVENT: byte event type (the {@link WorldEvent.Type} ordinal), long actor id, int tick
+ * </pre>
+ *
+ * Files are only ever appended to, and a file cut short (e.g. by a crash) can be read up to its last whole record.
+ */
+public class TrajectoryFormat {
+    public static final int MAGIC = 0x44515452;
+    public static final int VERSION = 1;
+    public static final int FILE_HEADER_SIZE_IN_BYTES = 4 + 4;
+
+    public static final byte TRANSITION = 1;
+    public static final byte WORLD_EVENT = 2;
+
+    public static final String FILE_PREFIX = "trajectory-";
+    public static final String FILE_SUFFIX = ".log";
+
+    static int sizeOf(TrajectoryRecord record) {
+        if (record instanceof Transition transition) {
+            return 1 + 8 + 4 + 4 + 4 + 2 + 4 * (transition.state().length + transition.nextState().length);
+        }
+
+        return 1 + 1 + 8 + 4;
+    }
+
+    static String fileName(int sequence) {
+        return String.format("%s%05d%s", FILE_PREFIX, sequence, FILE_SUFFIX);
+    }
+}
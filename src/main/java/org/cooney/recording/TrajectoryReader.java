@@ -0,0 +1,151 @@
+package org.cooney.recording;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Walks the records in a trajectory log. Files are memory mapped rather than read, so going through a log doesn't
+ * copy it onto the heap first.
+ */
+public class TrajectoryReader implements Iterator<TrajectoryRecord> {
+    private final ByteBuffer buffer;
+    private TrajectoryRecord next;
+    private int positionOfNext;
+
+    /**
+     * @param buffer The contents of a log, positioned at its header.
+     */
+    public TrajectoryReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.remaining() < TrajectoryFormat.FILE_HEADER_SIZE_IN_BYTES || buffer.getInt() != TrajectoryFormat.MAGIC) {
+            throw new IOException("Not a trajectory log - bad magic number");
+        }
+
+        int version = buffer.getInt();
+        if (version != TrajectoryFormat.VERSION) {
+            throw new IOException("Unsupported trajectory log version " + version);
+        }
+
+        this.next = readNext();
+    }
+
+    public static TrajectoryReader open(Path file) throws IOException {
+        return new TrajectoryReader(map(file));
+    }
+
+    public static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @return Every log in the directory, oldest first.
+     */
+    public static List<Path> logsIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().startsWith(TrajectoryFormat.FILE_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(TrajectoryFormat.FILE_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private TrajectoryRecord readNext() {
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+
+        int start = buffer.position();
+        positionOfNext = start;
+
+        try {
+            byte tag = buffer.get();
+
+            if (tag == TrajectoryFormat.TRANSITION) {
+                long actorId = buffer.getLong();
+                int tick = buffer.getInt();
+                int action = buffer.getInt();
+                float reward = buffer.getFloat();
+                int stateLength = buffer.getShort();
+                float[] state = readFloats(stateLength);
+                float[] nextState = readFloats(stateLength);
+                return new Transition(actorId, tick, state, action, reward, nextState);
+            } else if (tag == TrajectoryFormat.WORLD_EVENT) {
+                WorldEvent.Type type = WorldEvent.Type.values()[buffer.get()];
+                return new WorldEvent(type, buffer.getLong(), buffer.getInt());
+            }
+        } catch (BufferUnderflowException e) {
+            // The file was cut off part way through a record. Everything before it is still good.
+        }
+
+        buffer.position(start);
+        return null;
+    }
+
+    /**
+     * @return Where in the buffer the record {@link #next()} will return starts, to come back to it later with
+     * {@link #transitionAt}.
+     */
+    public int getPositionOfNext() {
+        return positionOfNext;
+    }
+
+    /**
+     * Reads the transition starting at the given position, without moving the buffer's position, so any number of
+     * threads can read from the same buffer at once.
+     */
+    public static Transition transitionAt(ByteBuffer buffer, int position) {
+        long actorId = buffer.getLong(position + 1);
+        int tick = buffer.getInt(position + 9);
+        int action = buffer.getInt(position + 13);
+        float reward = buffer.getFloat(position + 17);
+        int stateLength = buffer.getShort(position + 21);
+
+        float[] state = new float[stateLength];
+        float[] nextState = new float[stateLength];
+        int statePosition = position + 23;
+        for (int i = 0; i < stateLength; i++) {
+            state[i] = buffer.getFloat(statePosition + 4 * i);
+            nextState[i] = buffer.getFloat(statePosition + 4 * (stateLength + i));
+        }
+
+        return new Transition(actorId, tick, state, action, reward, nextState);
+    }
+
+    private float[] readFloats(int count) {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.getFloat();
+        }
+        return values;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public TrajectoryRecord next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+
+        TrajectoryRecord current = next;
+        next = readNext();
+        return current;
+    }
+}
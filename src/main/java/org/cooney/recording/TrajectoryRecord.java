@@ -0,0 +1,7 @@
+package org.cooney.recording;
+
+/**
+ * Anything the {@link TrajectoryRecorder} writes to a log.
+ */
+public sealed interface TrajectoryRecord permits Transition, WorldEvent {
+}
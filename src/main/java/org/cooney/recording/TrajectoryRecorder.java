@@ -0,0 +1,236 @@
+package org.cooney.recording;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams transitions and world events into append-only binary logs (see {@link TrajectoryFormat}).
+ *
+ * Actors only hand their records over to a bounded queue; a single background thread encodes them into a large
+ * direct buffer and writes it out through a {@link FileChannel} whenever it fills up. If the writer can't keep up and
+ * the queue fills, actors wait for room rather than records being dropped. Once a file passes the size limit the
+ * writer moves on to the next one, so logs can be picked up while a run is still going.
+ */
+public class TrajectoryRecorder implements Closeable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+    public static final int DEFAULT_BUFFER_SIZE_IN_BYTES = 4 * 1024 * 1024;
+    public static final long DEFAULT_MAX_FILE_SIZE_IN_BYTES = 256L * 1024 * 1024;
+
+    private static final int DRAIN_BATCH_SIZE = 1024;
+    private static final long IDLE_FLUSH_MILLIS = 1000;
+
+    private final Path directory;
+    private final long maxFileSizeInBytes;
+    private final BlockingQueue<TrajectoryRecord> queue;
+    private final ByteBuffer buffer;
+    private final Thread writer;
+    private final LongAdder recordsWritten = new LongAdder();
+    private final LongAdder producerWaits = new LongAdder();
+
+    private volatile boolean closed = false;
+    private volatile IOException failure;
+
+    private FileChannel channel;
+    private int fileSequence = 0;
+
+    public TrajectoryRecorder(Path directory) throws IOException {
+        this(directory, DEFAULT_QUEUE_CAPACITY, DEFAULT_BUFFER_SIZE_IN_BYTES, DEFAULT_MAX_FILE_SIZE_IN_BYTES);
+    }
+
+    /**
+     * @param directory Where to write the logs. Created if it doesn't exist.
+     * @param queueCapacity How many records can be waiting for the writer before actors have to wait.
+     * @param bufferSizeInBytes How much to write at a time.
+     * @param maxFileSizeInBytes How big a file can get before the writer moves on to a new one.
+     */
+    public TrajectoryRecorder(Path directory, int queueCapacity, int bufferSizeInBytes, long maxFileSizeInBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxFileSizeInBytes = maxFileSizeInBytes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.buffer = ByteBuffer.allocateDirect(bufferSizeInBytes);
+
+        openNextFile();
+
+        this.writer = new Thread(this::writeUntilClosed, "trajectory-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * @throws IllegalArgumentException If the states aren't the same length, or are too long to record - more values
+     * than the format's length field holds, or a transition bigger than the writer's buffer.
+     */
+    public void recordTransition(long actorId, int tick, double[] state, int action, double reward, double[] nextState) {
+        if (state.length != nextState.length) {
+            throw new IllegalArgumentException("State and next state must be the same length");
+        }
+
+        if (state.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("States of %d values are too long to record, the most is %d", state.length, Short.MAX_VALUE));
+        }
+
+        Transition transition = new Transition(actorId, tick, toFloats(state), action, (float) reward, toFloats(nextState));
+
+        if (TrajectoryFormat.sizeOf(transition) > buffer.capacity()) {
+            throw new IllegalArgumentException(String.format("A transition of %d bytes doesn't fit the %d byte write buffer", TrajectoryFormat.sizeOf(transition), buffer.capacity()));
+        }
+
+        record(transition);
+    }
+
+    public void recordEvent(WorldEvent.Type type, long actorId, int tick) {
+        record(new WorldEvent(type, actorId, tick));
+    }
+
+    private void record(TrajectoryRecord record) {
+        if (closed) {
+            return;
+        }
+
+        if (!queue.offer(record)) {
+            producerWaits.increment();
+            try {
+                queue.put(record);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static float[] toFloats(double[] values) {
+        float[] floats = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            floats[i] = (float) values[i];
+        }
+        return floats;
+    }
+
+    private void writeUntilClosed() {
+        List<TrajectoryRecord> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+
+        try {
+            while (!closed || !queue.isEmpty()) {
+                TrajectoryRecord first = queue.poll(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+                    // Quiet for a while - get what we have onto disk.
+                    flush();
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, DRAIN_BATCH_SIZE - 1);
+
+                for (TrajectoryRecord record : batch) {
+                    write(record);
+                }
+
+                recordsWritten.add(batch.size());
+                batch.clear();
+            }
+
+            flush();
+        } catch (IOException | RuntimeException e) {
+            failure = e instanceof IOException io ? io : new IOException("Failed to write a record", e);
+            closed = true;
+            // Nobody will drain the queue any more, so free up anyone waiting on it.
+            queue.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(TrajectoryRecord record) throws IOException {
+        if (buffer.remaining() < TrajectoryFormat.sizeOf(record)) {
+            flush();
+        }
+
+        if (record instanceof Transition transition) {
+            buffer.put(TrajectoryFormat.TRANSITION);
+            buffer.putLong(transition.actorId());
+            buffer.putInt(transition.tick());
+            buffer.putInt(transition.action());
+            buffer.putFloat(transition.reward());
+            buffer.putShort((short) transition.state().length);
+            for (float value : transition.state()) {
+                buffer.putFloat(value);
+            }
+            for (float value : transition.nextState()) {
+                buffer.putFloat(value);
+            }
+        } else if (record instanceof WorldEvent event) {
+            buffer.put(TrajectoryFormat.WORLD_EVENT);
+            buffer.put((byte) event.type().ordinal());
+            buffer.putLong(event.actorId());
+            buffer.putInt(event.tick());
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+
+        if (channel.position() >= maxFileSizeInBytes) {
+            channel.close();
+            openNextFile();
+        }
+    }
+
+    private void openNextFile() throws IOException {
+        channel = FileChannel.open(directory.resolve(TrajectoryFormat.fileName(fileSequence++)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(TrajectoryFormat.FILE_HEADER_SIZE_IN_BYTES);
+        header.putInt(TrajectoryFormat.MAGIC);
+        header.putInt(TrajectoryFormat.VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten.sum();
+    }
+
+    /**
+     * @return How many times an actor found the queue full and had to wait for the writer.
+     */
+    public long getProducerWaits() {
+        return producerWaits.sum();
+    }
+
+    /**
+     * Stops taking new records, writes out everything already queued and closes the current file.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        channel.close();
+
+        if (failure != null) {
+            throw new IOException("Trajectory writer failed", failure);
+        }
+    }
+}
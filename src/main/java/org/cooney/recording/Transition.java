@@ -0,0 +1,8 @@
+package org.cooney.recording;
+
+/**
+ * One step an actor took: what its network saw, what it did, what it scored for it and what it saw afterwards.
+ * States are the network inputs, so they can be trained on as they are.
+ */
+public record Transition(long actorId, int tick, float[] state, int action, float reward, float[] nextState) implements TrajectoryRecord {
+}
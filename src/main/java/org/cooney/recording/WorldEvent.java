@@ -0,0 +1,12 @@
+package org.cooney.recording;
+
+/**
+ * Something that happened to an actor outside of its own steps.
+ */
+public record WorldEvent(Type type, long actorId, int tick) implements TrajectoryRecord {
+
+    public enum Type {
+        BORN,
+        DIED
+    }
+}
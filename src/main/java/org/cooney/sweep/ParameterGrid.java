@@ -0,0 +1,76 @@
+package org.cooney.sweep;
+
+import org.cooney.world.items.agents.AgentParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * The values to try for each agent parameter. Every combination is a separate run, so the grid grows as the product
+ * of the number of values given for each parameter. Parameters without values given keep the base value.
+ */
+public class ParameterGrid {
+    private final AgentParameters base;
+    private final List<BiFunction<AgentParameters, Integer, AgentParameters>> axes = new ArrayList<>();
+    private final List<Integer> axisSizes = new ArrayList<>();
+
+    public ParameterGrid(AgentParameters base) {
+        this.base = base;
+    }
+
+    public ParameterGrid learningRates(double... values) {
+        return axis(values.length, (parameters, i) -> parameters.withLearningRate(values[i]));
+    }
+
+    public ParameterGrid hiddenCounts(int... values) {
+        return axis(values.length, (parameters, i) -> parameters.withHiddenCount(values[i]));
+    }
+
+    public ParameterGrid discounts(double... values) {
+        return axis(values.length, (parameters, i) -> parameters.withDiscount(values[i]));
+    }
+
+    public ParameterGrid explorationDecays(double... values) {
+        return axis(values.length, (parameters, i) -> parameters.withExplorationDecay(values[i]));
+    }
+
+    public ParameterGrid memorySizes(int... values) {
+        return axis(values.length, (parameters, i) -> parameters.withMaxMemorySize(values[i]));
+    }
+
+    public ParameterGrid meditationCadences(int... values) {
+        return axis(values.length, (parameters, i) -> parameters.withMeditationCadenceInTicks(values[i]));
+    }
+
+    private ParameterGrid axis(int size, BiFunction<AgentParameters, Integer, AgentParameters> apply) {
+        if (size == 0) {
+            throw new IllegalArgumentException("Each swept parameter needs at least one value");
+        }
+
+        axes.add(apply);
+        axisSizes.add(size);
+        return this;
+    }
+
+    /**
+     * Every combination of the given values, with the last parameter added varying fastest.
+     */
+    public List<AgentParameters> expand() {
+        List<AgentParameters> combinations = List.of(base);
+
+        for (int axis = 0; axis < axes.size(); axis++) {
+            List<AgentParameters> expanded = new ArrayList<>(combinations.size() * axisSizes.get(axis));
+
+            for (AgentParameters parameters : combinations) {
+                for (int i = 0; i < axisSizes.get(axis); i++) {
+                    expanded.add(axes.get(axis).apply(parameters, i));
+                }
+            }
+
+            combinations = expanded;
+        }
+
+        return combinations;
+    }
+}
@@ -0,0 +1,22 @@
+package org.cooney.sweep;
+
+import org.cooney.world.items.agents.AgentParameters;
+import org.cooney.world.map.DelegatingSeeder;
+import org.cooney.world.map.Seeder;
+
+/**
+ * Seeds a world just like the seeder it wraps, but has every agent learn with the given parameters.
+ */
+class ParameterisedSeeder extends DelegatingSeeder {
+    private final AgentParameters parameters;
+
+    ParameterisedSeeder(Seeder seeder, AgentParameters parameters) {
+        super(seeder);
+        this.parameters = parameters;
+    }
+
+    @Override
+    public AgentParameters getAgentParameters(AgentParameters defaults) {
+        return parameters;
+    }
+}
@@ -0,0 +1,52 @@
+package org.cooney.sweep;
+
+import org.cooney.world.items.agents.AgentParameters;
+
+import java.util.Locale;
+
+/**
+ * How one world got on with one set of agent parameters.
+ * @param parameters The parameters every agent in the world learned with.
+ * @param seed The world seed.
+ * @param survivalTicks How many ticks the population lasted, or the full length of the run if it never died out.
+ * @param extinct Whether the population died out before the end of the run.
+ * @param finalPopulation How many agents were alive at the end.
+ * @param peakFitness The best fitness score any living agent had at the end of a slice.
+ * @param meanFinalFitness The mean fitness score of the agents alive at the end.
+ * @param actorSteps How many times an agent was stepped.
+ * @param stepsPerSecond Agent steps per second of time spent stepping this world.
+ */
+public record SweepResult(AgentParameters parameters,
+                          long seed,
+                          int survivalTicks,
+                          boolean extinct,
+                          int finalPopulation,
+                          int peakFitness,
+                          double meanFinalFitness,
+                          long actorSteps,
+                          double stepsPerSecond) {
+
+    public static final String CSV_HEADER = "learningRate,hiddenCount,discount,initialExplorationRate,explorationDecay,"
+            + "explorationDegradeCadenceInTicks,meditationCadenceInTicks,maxMemorySize,seed,survivalTicks,extinct,"
+            + "finalPopulation,peakFitness,meanFinalFitness,actorSteps,stepsPerSecond";
+
+    public String toCsvRow() {
+        return String.format(Locale.ROOT, "%s,%d,%s,%s,%s,%d,%d,%d,%d,%d,%b,%d,%d,%.3f,%d,%.1f",
+                parameters.learningRate(),
+                parameters.hiddenCount(),
+                parameters.discount(),
+                parameters.initialExplorationRate(),
+                parameters.explorationDecay(),
+                parameters.explorationDegradeCadenceInTicks(),
+                parameters.meditationCadenceInTicks(),
+                parameters.maxMemorySize(),
+                seed,
+                survivalTicks,
+                extinct,
+                finalPopulation,
+                peakFitness,
+                meanFinalFitness,
+                actorSteps,
+                stepsPerSecond);
+    }
+}
@@ -0,0 +1,188 @@
+package org.cooney.sweep;
+
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.Actor;
+import org.cooney.world.items.Breeder;
+import org.cooney.world.items.agents.AgentParameters;
+import org.cooney.world.map.RandomWorldSeeder;
+import org.cooney.world.map.Seeder;
+import org.cooney.world.region.RegionScheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs one headless world per set of agent parameters, all at once, on a fixed number of worker threads.
+ *
+ * Rather than each world hogging a worker until it finishes, worlds are stepped a slice of ticks at a time and then
+ * go to the back of the pool's queue. Every world gets its turn in order, so a sweep with more worlds than workers
+ * moves them all along together, and one long running world can't hold the others up. Headless worlds are stepped
+ * a tick at a time through a single region (see {@link RegionScheduler#stepOnce()}) with no actor threads, and
+ * don't breed new generations.
+ */
+public class SweepRunner implements AutoCloseable {
+    public static final int DEFAULT_TICKS_PER_SLICE = 25;
+
+    private final int height;
+    private final int width;
+    private final int ticks;
+    private final int ticksPerSlice;
+    private final Supplier<Seeder> seederFactory;
+    private final ThreadPoolExecutor pool;
+
+    public SweepRunner(int height, int width, int ticks, Supplier<Seeder> seederFactory, int threads) {
+        this(height, width, ticks, DEFAULT_TICKS_PER_SLICE, seederFactory, threads);
+    }
+
+    public SweepRunner(int height, int width, int ticks, int ticksPerSlice, Supplier<Seeder> seederFactory, int threads) {
+        this.height = height;
+        this.width = width;
+        this.ticks = ticks;
+        this.ticksPerSlice = ticksPerSlice;
+        this.seederFactory = seederFactory;
+
+        AtomicInteger workerCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread worker = new Thread(runnable, "sweep-" + workerCount.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    /**
+     * Runs a world for each set of parameters, all seeded the same way, and waits for them all to finish.
+     * @return The results, in the same order as the parameters.
+     */
+    public List<SweepResult> run(List<AgentParameters> parameterSets, long seed) {
+        List<CompletableFuture<SweepResult>> futures = new ArrayList<>();
+
+        for (AgentParameters parameters : parameterSets) {
+            WorldRun run = new WorldRun(parameters, seed);
+            futures.add(run.result);
+            pool.execute(run);
+        }
+
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    public static void writeCsv(Path output, List<SweepResult> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(SweepResult.CSV_HEADER);
+        results.stream().map(SweepResult::toCsvRow).forEach(lines::add);
+        Files.write(output, lines);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * One world in the sweep. Each time it's run it steps the world through one slice, then either finishes or
+     * queues itself up again behind everyone else.
+     */
+    private class WorldRun implements Runnable {
+        private final AgentParameters parameters;
+        private final long seed;
+        private final CompletableFuture<SweepResult> result = new CompletableFuture<>();
+
+        private WorldEngine world;
+        private RegionScheduler scheduler;
+        private int tick;
+        private long actorSteps;
+        private long busyNanos;
+        private int peakFitness;
+
+        WorldRun(AgentParameters parameters, long seed) {
+            this.parameters = parameters;
+            this.seed = seed;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+
+            try {
+                if (world == null) {
+                    world = new WorldEngine(height, width, new ParameterisedSeeder(seederFactory.get(), parameters), seed);
+                    scheduler = world.partition(1, 1);
+                }
+
+                int sliceEnd = Math.min(ticks, tick + ticksPerSlice);
+
+                while (tick < sliceEnd && !world.getActorsInWorld().isEmpty()) {
+                    actorSteps += world.getActorsInWorld().size();
+                    scheduler.stepOnce();
+                    world.getResourceRegenerator().tick();
+                    tick++;
+                }
+
+                peakFitness = Math.max(peakFitness, bestFitness(world.getActorsInWorld()));
+                busyNanos += System.nanoTime() - start;
+
+                if (tick >= ticks || world.getActorsInWorld().isEmpty()) {
+                    result.complete(summarise());
+                } else {
+                    pool.execute(this);
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private SweepResult summarise() {
+            List<Actor> survivors = world.getActorsInWorld();
+            double meanFitness = survivors.stream()
+                    .filter(actor -> actor instanceof Breeder)
+                    .mapToInt(actor -> ((Breeder) actor).getFitnessScore())
+                    .average()
+                    .orElse(0);
+            double seconds = busyNanos / 1e9;
+
+            return new SweepResult(parameters, seed, tick, survivors.isEmpty(), survivors.size(), peakFitness, meanFitness,
+                    actorSteps, seconds == 0 ? 0 : actorSteps / seconds);
+        }
+    }
+
+    private static int bestFitness(List<Actor> actors) {
+        return actors.stream()
+                .filter(actor -> actor instanceof Breeder)
+                .mapToInt(actor -> ((Breeder) actor).getFitnessScore())
+                .max()
+                .orElse(0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path output = Path.of(args.length > 0 ? args[0] : "sweep-results.csv");
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+
+        List<AgentParameters> grid = new ParameterGrid(AgentParameters.SURVIVING_DEFAULTS)
+                .learningRates(0.01, 0.05, 0.1, 0.2)
+                .hiddenCounts(50, 150)
+                .discounts(0.9, 0.95, 0.99)
+                .explorationDecays(0.01, 0.05)
+                .expand();
+
+        System.out.println("Running " + grid.size() + " worlds of " + size + "x" + size + " for " + ticks + " ticks on " + threads + " threads");
+        long start = System.nanoTime();
+
+        try (SweepRunner runner = new SweepRunner(size, size, ticks, RandomWorldSeeder::new, threads)) {
+            List<SweepResult> results = runner.run(grid, seed);
+            writeCsv(output, results);
+        }
+
+        System.out.printf("Wrote %s in %dms%n", output, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,14 @@
+package org.cooney.training;
+
+/**
+ * How one pass through a dataset went.
+ * @param epoch Which pass this was, counting from one.
+ * @param samples How many samples were trained on.
+ * @param durationNanos How long the pass took.
+ */
+public record EpochStats(int epoch, int samples, long durationNanos) {
+
+    public long durationMillis() {
+        return durationNanos / 1_000_000;
+    }
+}
@@ -0,0 +1,72 @@
+package org.cooney.training;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.neural.HogwildNetwork;
+import org.cooney.recording.Transition;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Trains one {@link HogwildNetwork} on recorded trajectories from every core at once. Each epoch the shuffled dataset
+ * is split into one slice per core, and each core trains on its slice a sample at a time, straight into the shared
+ * weights. Unlike {@link OfflineTrainer} there are no batches to wait for, so no core is ever idle waiting for the
+ * others - at the cost of the result depending on how the cores' updates happened to interleave.
+ */
+public class HogwildTrainer {
+    private final ForkJoinPool pool;
+    private final SplittableRandom random;
+    private final long snapshotEvery;
+
+    /**
+     * @param snapshotEvery How many updates go by between publishing consistent snapshots of the network (see
+     *                      {@link HogwildNetwork#publishSnapshot()}). Zero to never publish one.
+     */
+    public HogwildTrainer(ForkJoinPool pool, long seed, long snapshotEvery) {
+        this.pool = pool;
+        this.random = new SplittableRandom(seed);
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    public void train(HogwildNetwork network, TrajectoryDataset dataset, int epochs) throws InvalidMatrixShapeException {
+        if (dataset.getStateLength() != network.getInputCount()) {
+            throw new InvalidMatrixShapeException(String.format("Transitions have %d inputs but the network takes %d", dataset.getStateLength(), network.getInputCount()));
+        }
+
+        int[] order = IntStream.range(0, dataset.size()).toArray();
+        AtomicLong updates = new AtomicLong();
+
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            Transitions.shuffle(order, random);
+
+            int slices = Math.min(pool.getParallelism(), order.length);
+
+            pool.submit(() -> IntStream.range(0, slices)
+                    .parallel()
+                    .forEach(slice -> trainOnSlice(network, dataset, order,
+                            Transitions.sliceStart(0, order.length, slice, slices),
+                            Transitions.sliceStart(0, order.length, slice + 1, slices),
+                            updates)))
+                    .join();
+        }
+    }
+
+    private void trainOnSlice(HogwildNetwork network, TrajectoryDataset dataset, int[] order, int from, int to, AtomicLong updates) {
+        try {
+            for (int i = from; i < to; i++) {
+                Transition transition = dataset.get(order[i]);
+                double[] state = Transitions.toDoubles(transition.state());
+                network.train(state, Transitions.qLearningTarget(network, state, transition));
+
+                if (snapshotEvery > 0 && updates.incrementAndGet() % snapshotEvery == 0) {
+                    network.publishSnapshot();
+                }
+            }
+        } catch (InvalidMatrixShapeException e) {
+            // The shapes were checked before training started.
+            throw new IllegalStateException(e);
+        }
+    }
+}
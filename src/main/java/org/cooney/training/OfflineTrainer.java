@@ -0,0 +1,108 @@
+package org.cooney.training;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.neural.BrainSerializer;
+import org.cooney.neural.NetworkGradients;
+import org.cooney.neural.NeuralNetwork;
+import org.cooney.neural.ShardedGradients;
+import org.cooney.recording.TrajectoryReader;
+import org.cooney.recording.Transition;
+import org.cooney.world.items.agents.Direction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Trains a network on recorded trajectories, using the whole dataset and every core rather than the handful of
+ * samples an agent fits on each time it learns.
+ *
+ * Each epoch goes through the dataset in a fresh shuffled order, a mini-batch at a time. A batch is split into one
+ * shard per core; each shard works out the Q-Learning changes for its transitions against the same network, the
+ * shards' changes are summed in a fixed order (see {@link ShardedGradients}), and their mean is applied once for the
+ * whole batch.
+ */
+public class OfflineTrainer {
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final int batchSize;
+    private final ForkJoinPool pool;
+    private final SplittableRandom random;
+
+    public OfflineTrainer(int batchSize, ForkJoinPool pool, long seed) {
+        this.batchSize = batchSize;
+        this.pool = pool;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Trains the network in place.
+     * @return How each epoch went, in order.
+     * @throws InvalidMatrixShapeException If the transitions don't fit the network's inputs.
+     */
+    public List<EpochStats> train(NeuralNetwork network, TrajectoryDataset dataset, int epochs) throws InvalidMatrixShapeException {
+        if (dataset.getStateLength() != network.getInputHiddenLayerWeights().getColumns()) {
+            throw new InvalidMatrixShapeException(String.format("Transitions have %d inputs but the network takes %d", dataset.getStateLength(), network.getInputHiddenLayerWeights().getColumns()));
+        }
+
+        int[] order = IntStream.range(0, dataset.size()).toArray();
+        List<EpochStats> stats = new ArrayList<>(epochs);
+
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long start = System.nanoTime();
+            Transitions.shuffle(order, random);
+
+            for (int batchStart = 0; batchStart < order.length; batchStart += batchSize) {
+                trainOnBatch(network, dataset, order, batchStart, Math.min(batchStart + batchSize, order.length));
+            }
+
+            stats.add(new EpochStats(epoch + 1, order.length, System.nanoTime() - start));
+        }
+
+        return stats;
+    }
+
+    private void trainOnBatch(NeuralNetwork network, TrajectoryDataset dataset, int[] order, int from, int to) throws InvalidMatrixShapeException {
+        NetworkGradients batchGradients = ShardedGradients.sum(pool, from, to, pool.getParallelism(), position -> {
+            Transition transition = dataset.get(order[position]);
+            double[] state = Transitions.toDoubles(transition.state());
+            return network.computeGradients(state, Transitions.qLearningTarget(network, state, transition));
+        });
+
+        network.applyGradients(batchGradients.multiply(1.0 / (to - from)));
+    }
+
+    public static void main(String[] args) throws IOException, InvalidMatrixShapeException {
+        if (args.length < 2) {
+            System.out.println("Usage: OfflineTrainer <log directory> <output brain file> [epochs] [batch size] [hidden count] [learning rate] [seed]");
+            return;
+        }
+
+        Path logDirectory = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BATCH_SIZE;
+        int hiddenCount = args.length > 4 ? Integer.parseInt(args[4]) : 150;
+        double learningRate = args.length > 5 ? Double.parseDouble(args[5]) : 0.1;
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : 42L;
+
+        TrajectoryDataset dataset = TrajectoryDataset.load(TrajectoryReader.logsIn(logDirectory));
+        System.out.println("Loaded " + dataset.size() + " transitions (" + dataset.getSkipped() + " skipped) with " + dataset.getStateLength() + " inputs");
+
+        if (dataset.size() == 0) {
+            return;
+        }
+
+        NeuralNetwork network = new NeuralNetwork(dataset.getStateLength(), hiddenCount, Direction.values().length, learningRate, new SplittableRandom(seed));
+        for (EpochStats stats : new OfflineTrainer(batchSize, ForkJoinPool.commonPool(), seed).train(network, dataset, epochs)) {
+            System.out.printf("Epoch %d of %d done in %dms%n", stats.epoch(), epochs, stats.durationMillis());
+        }
+
+        BrainSerializer.save(network, output);
+        System.out.println("Saved trained brain to " + output);
+    }
+}
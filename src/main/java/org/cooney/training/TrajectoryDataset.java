@@ -0,0 +1,99 @@
+package org.cooney.training;
+
+import org.cooney.recording.TrajectoryReader;
+import org.cooney.recording.TrajectoryRecord;
+import org.cooney.recording.Transition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every transition in a set of trajectory logs, addressable by index. The logs stay memory mapped and only the
+ * position of each transition is held on the heap, so a dataset can be far bigger than memory and transitions are
+ * decoded on demand - from any number of threads at once.
+ */
+public class TrajectoryDataset {
+    private final List<ByteBuffer> files;
+    private final int[] fileIndexes;
+    private final int[] positions;
+    private final int stateLength;
+    private final int skipped;
+
+    private TrajectoryDataset(List<ByteBuffer> files, int[] fileIndexes, int[] positions, int stateLength, int skipped) {
+        this.files = files;
+        this.fileIndexes = fileIndexes;
+        this.positions = positions;
+        this.stateLength = stateLength;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Maps the logs and indexes their transitions. Only transitions with the same state length as the first one are
+     * kept, as a network can only train on one shape of input.
+     */
+    public static TrajectoryDataset load(List<Path> logs) throws IOException {
+        List<ByteBuffer> files = new ArrayList<>();
+        int[] fileIndexes = new int[1024];
+        int[] positions = new int[1024];
+        int count = 0;
+        int stateLength = -1;
+        int skipped = 0;
+
+        for (Path log : logs) {
+            ByteBuffer file = TrajectoryReader.map(log);
+            int fileIndex = files.size();
+            files.add(file);
+
+            TrajectoryReader reader = new TrajectoryReader(file.duplicate());
+            while (reader.hasNext()) {
+                int position = reader.getPositionOfNext();
+                TrajectoryRecord record = reader.next();
+
+                if (!(record instanceof Transition transition)) {
+                    continue;
+                }
+
+                if (stateLength == -1) {
+                    stateLength = transition.state().length;
+                } else if (transition.state().length != stateLength) {
+                    skipped++;
+                    continue;
+                }
+
+                if (count == positions.length) {
+                    fileIndexes = Arrays.copyOf(fileIndexes, count * 2);
+                    positions = Arrays.copyOf(positions, count * 2);
+                }
+
+                fileIndexes[count] = fileIndex;
+                positions[count] = position;
+                count++;
+            }
+        }
+
+        return new TrajectoryDataset(files, Arrays.copyOf(fileIndexes, count), Arrays.copyOf(positions, count), Math.max(stateLength, 0), skipped);
+    }
+
+    public Transition get(int index) {
+        return TrajectoryReader.transitionAt(files.get(fileIndexes[index]), positions[index]);
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    public int getStateLength() {
+        return stateLength;
+    }
+
+    /**
+     * @return How many transitions were left out for having a different state length to the rest.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+}
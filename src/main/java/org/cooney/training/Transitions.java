@@ -0,0 +1,52 @@
+package org.cooney.training;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.neural.Brain;
+import org.cooney.recording.Transition;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * What the trainers share about going through recorded transitions: the order they're visited in, how that order is
+ * split between threads, and what each transition is trained towards.
+ */
+final class Transitions {
+    private Transitions() {
+    }
+
+    /**
+     * Shuffles the visiting order in place.
+     */
+    static void shuffle(int[] order, RandomGenerator random) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    /**
+     * Where the given slice of a range starts when it's cut into the given number of slices. The bounds are spread
+     * proportionally, so no slice is empty unless there are more slices than positions.
+     */
+    static int sliceStart(int from, int to, int slice, int slices) {
+        return from + (int) ((long) (to - from) * slice / slices);
+    }
+
+    /**
+     * The Q-Learning target for a recorded transition, worked out by the brain being trained (see
+     * {@link Brain#qLearningTarget}).
+     */
+    static double[] qLearningTarget(Brain brain, double[] state, Transition transition) throws InvalidMatrixShapeException {
+        return brain.qLearningTarget(state, transition.action(), transition.reward(), toDoubles(transition.nextState()), Brain.DISCOUNT);
+    }
+
+    static double[] toDoubles(float[] values) {
+        double[] doubles = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            doubles[i] = values[i];
+        }
+        return doubles;
+    }
+}
@@ -0,0 +1,104 @@
+package org.cooney.training.supervised;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads mini-batches on a background thread, a few ahead of whoever is training on them, so reading and parsing the
+ * next batches overlaps with training on this one. The reader stays at most the given number of batches ahead, so
+ * memory use doesn't depend on how big the dataset is.
+ */
+public class BatchPrefetcher implements Closeable {
+    private static final Prefetched END = new Prefetched(null, null);
+
+    private final ExampleReader reader;
+    private final BlockingQueue<Prefetched> queue;
+    private final Thread readerThread;
+    private boolean finished;
+
+    private record Prefetched(MiniBatch batch, IOException failure) {}
+
+    /**
+     * Starts reading straight away.
+     * @param reader The pass to read. Closed along with the prefetcher.
+     * @param batchesAhead How many batches to read ahead of the one being trained on.
+     */
+    public BatchPrefetcher(ExampleReader reader, int batchSize, int batchesAhead) {
+        this.reader = reader;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, batchesAhead));
+        this.readerThread = new Thread(() -> readAll(batchSize), "batch-prefetch");
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    private void readAll(int batchSize) {
+        try {
+            MiniBatch batch;
+            while ((batch = MiniBatch.read(reader, batchSize)) != null) {
+                queue.put(new Prefetched(batch, null));
+            }
+            queue.put(END);
+        } catch (IOException | RuntimeException e) {
+            hand(new Prefetched(null, e instanceof IOException io ? io : new IOException("Failed to read a batch", e)));
+        } catch (InterruptedException e) {
+            // Closed before the pass was over, so nobody wants the rest.
+        }
+    }
+
+    private void hand(Prefetched failure) {
+        try {
+            queue.put(failure);
+        } catch (InterruptedException e) {
+            // Closed already, so nobody is waiting to hear about it.
+        }
+    }
+
+    /**
+     * Waits for the next batch.
+     * @return The batch, or null once the pass is over.
+     * @throws IOException If the reader failed to read it.
+     */
+    public MiniBatch next() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        Prefetched prefetched;
+        try {
+            prefetched = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the next batch");
+        }
+
+        if (prefetched.failure() != null) {
+            finished = true;
+            throw prefetched.failure();
+        }
+
+        if (prefetched == END) {
+            finished = true;
+        }
+
+        return prefetched.batch();
+    }
+
+    /**
+     * Stops reading, even part way through the pass, and closes the reader.
+     */
+    @Override
+    public void close() throws IOException {
+        readerThread.interrupt();
+
+        try {
+            readerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            reader.close();
+        }
+    }
+}
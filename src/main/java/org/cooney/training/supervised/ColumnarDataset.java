@@ -0,0 +1,227 @@
+package org.cooney.training.supervised;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Examples in a binary columnar file. The file is split into blocks of rows, and within a block each column's values
+ * are stored together, so a reader only ever holds one block in memory however big the file is. All values are big
+ * endian:
+ *
+ * <pre>
+ * int    magic ("DQSD")
+ * int    format version
+ * int    input count, target count
+ * then blocks of:
+ *        int row count
+ *        float[row count] for each input column, then for each target column
+ * </pre>
+ *
+ * Like a trajectory log, a file cut short can be read up to its last whole block. Write one with {@link Writer}.
+ */
+public class ColumnarDataset implements SupervisedDataset {
+    public static final int MAGIC = 0x44515344;
+    public static final int VERSION = 1;
+    public static final int FILE_HEADER_SIZE_IN_BYTES = 4 + 4 + 4 + 4;
+    public static final int DEFAULT_ROWS_PER_BLOCK = 4096;
+
+    private final Path file;
+    private final int inputCount;
+    private final int targetCount;
+
+    private ColumnarDataset(Path file, int inputCount, int targetCount) {
+        this.file = file;
+        this.inputCount = inputCount;
+        this.targetCount = targetCount;
+    }
+
+    /**
+     * Reads the file's header, leaving the examples on disk until a pass is {@link #open() opened}.
+     */
+    public static ColumnarDataset open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE_IN_BYTES);
+            readFully(channel, header);
+
+            if (header.remaining() < FILE_HEADER_SIZE_IN_BYTES || header.getInt() != MAGIC) {
+                throw new IOException("Not a columnar dataset - bad magic number");
+            }
+
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported columnar dataset version " + version);
+            }
+
+            return new ColumnarDataset(file, header.getInt(), header.getInt());
+        }
+    }
+
+    @Override
+    public ExampleReader open() throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channel.position(FILE_HEADER_SIZE_IN_BYTES);
+
+        return new ExampleReader() {
+            private final ByteBuffer rowCountBuffer = ByteBuffer.allocate(4);
+            private ByteBuffer block = ByteBuffer.allocate(0);
+            private int rowsInBlock;
+            private int row;
+
+            @Override
+            public Example read() throws IOException {
+                if (row == rowsInBlock && !readBlock()) {
+                    return null;
+                }
+
+                double[] input = new double[inputCount];
+                double[] target = new double[targetCount];
+
+                for (int column = 0; column < inputCount; column++) {
+                    input[column] = block.getFloat((column * rowsInBlock + row) * Float.BYTES);
+                }
+
+                for (int column = 0; column < targetCount; column++) {
+                    target[column] = block.getFloat(((inputCount + column) * rowsInBlock + row) * Float.BYTES);
+                }
+
+                row++;
+                return new Example(input, target);
+            }
+
+            private boolean readBlock() throws IOException {
+                rowCountBuffer.clear();
+                readFully(channel, rowCountBuffer);
+                if (rowCountBuffer.remaining() < 4) {
+                    return false;
+                }
+
+                int rowCount = rowCountBuffer.getInt();
+                int size = rowCount * (inputCount + targetCount) * Float.BYTES;
+
+                if (block.capacity() < size) {
+                    block = ByteBuffer.allocate(size);
+                }
+
+                block.clear().limit(size);
+                readFully(channel, block);
+                if (block.remaining() < size) {
+                    return false;
+                }
+
+                rowsInBlock = rowCount;
+                row = 0;
+                return rowCount > 0 || readBlock();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    /**
+     * Fills the buffer from the channel, or as much of it as is left, and flips it ready to be read.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+            // Keep reading until the buffer is full or the file runs out.
+        }
+
+        buffer.flip();
+    }
+
+    @Override
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    @Override
+    public int getTargetCount() {
+        return targetCount;
+    }
+
+    /**
+     * Writes examples into a new columnar file, a block at a time.
+     */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final int inputCount;
+        private final int targetCount;
+        private final float[][] columns;
+        private int rows;
+
+        public Writer(Path file, int inputCount, int targetCount) throws IOException {
+            this(file, inputCount, targetCount, DEFAULT_ROWS_PER_BLOCK);
+        }
+
+        public Writer(Path file, int inputCount, int targetCount, int rowsPerBlock) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.inputCount = inputCount;
+            this.targetCount = targetCount;
+            this.columns = new float[inputCount + targetCount][rowsPerBlock];
+
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE_IN_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(inputCount)
+                    .putInt(targetCount)
+                    .flip();
+            writeFully(header);
+        }
+
+        public void write(double[] input, double[] target) throws IOException {
+            if (input.length != inputCount || target.length != targetCount) {
+                throw new IllegalArgumentException(String.format("Expected %d inputs and %d targets, got %d and %d", inputCount, targetCount, input.length, target.length));
+            }
+
+            for (int column = 0; column < inputCount; column++) {
+                columns[column][rows] = (float) input[column];
+            }
+
+            for (int column = 0; column < targetCount; column++) {
+                columns[inputCount + column][rows] = (float) target[column];
+            }
+
+            rows++;
+            if (rows == columns[0].length) {
+                flushBlock();
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+
+            ByteBuffer block = ByteBuffer.allocate(4 + rows * columns.length * Float.BYTES).putInt(rows);
+            for (float[] column : columns) {
+                for (int row = 0; row < rows; row++) {
+                    block.putFloat(column[row]);
+                }
+            }
+
+            writeFully(block.flip());
+            rows = 0;
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBlock();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
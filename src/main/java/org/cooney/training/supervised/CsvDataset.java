@@ -0,0 +1,105 @@
+package org.cooney.training.supervised;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Examples read a line at a time from a comma separated file. Each line holds an example's inputs followed by its
+ * targets. A first line that isn't all numbers is taken to be a header and skipped, as are blank lines.
+ */
+public class CsvDataset implements SupervisedDataset {
+    private final Path file;
+    private final int inputCount;
+    private final int targetCount;
+
+    public CsvDataset(Path file, int inputCount, int targetCount) {
+        this.file = file;
+        this.inputCount = inputCount;
+        this.targetCount = targetCount;
+    }
+
+    @Override
+    public ExampleReader open() throws IOException {
+        BufferedReader lines = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+
+        return new ExampleReader() {
+            private int lineNumber = 0;
+
+            @Override
+            public Example read() throws IOException {
+                String line;
+
+                while ((line = lines.readLine()) != null) {
+                    lineNumber++;
+
+                    if (line.isBlank()) {
+                        continue;
+                    }
+
+                    if (lineNumber == 1 && isHeader(line)) {
+                        continue;
+                    }
+
+                    return parse(line, lineNumber);
+                }
+
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                lines.close();
+            }
+        };
+    }
+
+    private static boolean isHeader(String line) {
+        for (String value : line.split(",")) {
+            try {
+                Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Example parse(String line, int lineNumber) throws IOException {
+        String[] values = line.split(",");
+
+        if (values.length != inputCount + targetCount) {
+            throw new IOException(String.format("Line %d of %s has %d values, expected %d inputs and %d targets", lineNumber, file, values.length, inputCount, targetCount));
+        }
+
+        double[] input = new double[inputCount];
+        double[] target = new double[targetCount];
+
+        try {
+            for (int i = 0; i < inputCount; i++) {
+                input[i] = Double.parseDouble(values[i].trim());
+            }
+
+            for (int i = 0; i < targetCount; i++) {
+                target[i] = Double.parseDouble(values[inputCount + i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException(String.format("Line %d of %s isn't all numbers", lineNumber, file), e);
+        }
+
+        return new Example(input, target);
+    }
+
+    @Override
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    @Override
+    public int getTargetCount() {
+        return targetCount;
+    }
+}
@@ -0,0 +1,7 @@
+package org.cooney.training.supervised;
+
+/**
+ * One input and the output a network should give for it.
+ */
+public record Example(double[] input, double[] target) {
+}
@@ -0,0 +1,15 @@
+package org.cooney.training.supervised;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * One pass through a dataset, an example at a time.
+ */
+public interface ExampleReader extends Closeable {
+    /**
+     * @return The next example, or null once the pass is over.
+     * @throws IOException If the examples can't be read, or aren't well formed.
+     */
+    Example read() throws IOException;
+}
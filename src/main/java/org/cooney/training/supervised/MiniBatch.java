@@ -0,0 +1,42 @@
+package org.cooney.training.supervised;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A handful of examples trained on together. The last batch of a pass can be smaller than the rest.
+ */
+public record MiniBatch(double[][] inputs, double[][] targets) {
+
+    public int size() {
+        return inputs.length;
+    }
+
+    /**
+     * Reads up to the given number of examples.
+     * @return The batch, or null if the reader had none left.
+     */
+    public static MiniBatch read(ExampleReader reader, int batchSize) throws IOException {
+        double[][] inputs = new double[batchSize][];
+        double[][] targets = new double[batchSize][];
+        int count = 0;
+
+        Example example;
+        while (count < batchSize && (example = reader.read()) != null) {
+            inputs[count] = example.input();
+            targets[count] = example.target();
+            count++;
+        }
+
+        if (count == 0) {
+            return null;
+        }
+
+        if (count < batchSize) {
+            inputs = Arrays.copyOf(inputs, count);
+            targets = Arrays.copyOf(targets, count);
+        }
+
+        return new MiniBatch(inputs, targets);
+    }
+}
@@ -0,0 +1,66 @@
+package org.cooney.training.supervised;
+
+import java.io.IOException;
+import java.util.random.RandomGenerator;
+
+/**
+ * Shuffles a stream of examples without holding all of them: the buffer is filled from the stream, then each example
+ * handed out is a random one from the buffer, whose place is taken by the next from the stream. Once the stream runs
+ * dry the rest of the buffer is handed out in a random order.
+ *
+ * Examples can only move back by as many places as the buffer holds, so the bigger the buffer, the closer to a full
+ * shuffle - and a buffer at least as big as the dataset is a full shuffle.
+ */
+public class ShuffleBuffer implements ExampleReader {
+    private final ExampleReader source;
+    private final RandomGenerator random;
+    private final Example[] buffer;
+    private int size;
+    private boolean sourceDone;
+
+    public ShuffleBuffer(ExampleReader source, int capacity, RandomGenerator random) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A shuffle buffer has to hold at least one example, not " + capacity);
+        }
+
+        this.source = source;
+        this.random = random;
+        this.buffer = new Example[capacity];
+    }
+
+    @Override
+    public Example read() throws IOException {
+        while (!sourceDone && size < buffer.length) {
+            Example example = source.read();
+
+            if (example == null) {
+                sourceDone = true;
+            } else {
+                buffer[size++] = example;
+            }
+        }
+
+        if (size == 0) {
+            return null;
+        }
+
+        int index = random.nextInt(size);
+        Example picked = buffer[index];
+
+        Example replacement = sourceDone ? null : source.read();
+        if (replacement != null) {
+            buffer[index] = replacement;
+        } else {
+            sourceDone = true;
+            buffer[index] = buffer[--size];
+            buffer[size] = null;
+        }
+
+        return picked;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,16 @@
+package org.cooney.training.supervised;
+
+import java.io.IOException;
+
+/**
+ * Examples to train a network on, streamed rather than held in memory, so a dataset can be bigger than the heap.
+ * Every call to {@link #open()} starts a new pass from the first example, so a dataset can be trained on for as many
+ * epochs as wanted.
+ */
+public interface SupervisedDataset {
+    ExampleReader open() throws IOException;
+
+    int getInputCount();
+
+    int getTargetCount();
+}
@@ -0,0 +1,117 @@
+package org.cooney.training.supervised;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.neural.BrainSerializer;
+import org.cooney.neural.NetworkGradients;
+import org.cooney.neural.NeuralNetwork;
+import org.cooney.neural.ShardedGradients;
+import org.cooney.training.EpochStats;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Trains a network towards the targets in a {@link SupervisedDataset}, e.g. to pretrain it before it goes into a
+ * world. The dataset is streamed, so it can be bigger than memory.
+ *
+ * Each epoch is one pass through the dataset, shuffled through a {@link ShuffleBuffer} and read a few mini-batches
+ * ahead on a background thread (see {@link BatchPrefetcher}). Each batch is trained on like in the
+ * {@link org.cooney.training.OfflineTrainer}: the changes for its examples are worked out across the pool against the
+ * same network, summed in a fixed order and their mean applied once.
+ */
+public class SupervisedTrainer {
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final int DEFAULT_SHUFFLE_BUFFER_SIZE = 10_000;
+    public static final int DEFAULT_BATCHES_AHEAD = 4;
+
+    private final int batchSize;
+    private final int shuffleBufferSize;
+    private final int batchesAhead;
+    private final ForkJoinPool pool;
+    private final SplittableRandom random;
+
+    public SupervisedTrainer(int batchSize, int shuffleBufferSize, int batchesAhead, ForkJoinPool pool, long seed) {
+        this.batchSize = batchSize;
+        this.shuffleBufferSize = shuffleBufferSize;
+        this.batchesAhead = batchesAhead;
+        this.pool = pool;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Trains the network in place.
+     * @return How each epoch went, in order.
+     * @throws InvalidMatrixShapeException If the examples don't fit the network's inputs and outputs.
+     * @throws IOException If the dataset can't be read.
+     */
+    public List<EpochStats> train(NeuralNetwork network, SupervisedDataset dataset, int epochs) throws InvalidMatrixShapeException, IOException {
+        if (dataset.getInputCount() != network.getInputHiddenLayerWeights().getColumns()
+                || dataset.getTargetCount() != network.getOutputLayerBias().getRows()) {
+            throw new InvalidMatrixShapeException(String.format("Examples have %d inputs and %d targets but the network takes %d and gives %d",
+                    dataset.getInputCount(), dataset.getTargetCount(), network.getInputHiddenLayerWeights().getColumns(), network.getOutputLayerBias().getRows()));
+        }
+
+        List<EpochStats> stats = new ArrayList<>(epochs);
+
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long start = System.nanoTime();
+            int examples = 0;
+
+            // The shuffle runs on the prefetch thread, so it gets a stream of its own.
+            ShuffleBuffer shuffled = new ShuffleBuffer(dataset.open(), shuffleBufferSize, random.split());
+
+            try (BatchPrefetcher batches = new BatchPrefetcher(shuffled, batchSize, batchesAhead)) {
+                MiniBatch batch;
+                while ((batch = batches.next()) != null) {
+                    trainOnBatch(network, batch);
+                    examples += batch.size();
+                }
+            }
+
+            stats.add(new EpochStats(epoch + 1, examples, System.nanoTime() - start));
+        }
+
+        return stats;
+    }
+
+    private void trainOnBatch(NeuralNetwork network, MiniBatch batch) throws InvalidMatrixShapeException {
+        NetworkGradients batchGradients = ShardedGradients.sum(pool, 0, batch.size(), pool.getParallelism(),
+                position -> network.computeGradients(batch.inputs()[position], batch.targets()[position]));
+
+        network.applyGradients(batchGradients.multiply(1.0 / batch.size()));
+    }
+
+    public static void main(String[] args) throws IOException, InvalidMatrixShapeException {
+        if (args.length < 4) {
+            System.out.println("Usage: SupervisedTrainer <dataset (.csv or columnar)> <input count> <target count> <output brain file> [epochs] [batch size] [hidden count] [learning rate] [seed]");
+            return;
+        }
+
+        Path datasetFile = Path.of(args[0]);
+        int inputCount = Integer.parseInt(args[1]);
+        int targetCount = Integer.parseInt(args[2]);
+        Path output = Path.of(args[3]);
+        int epochs = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        int batchSize = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_BATCH_SIZE;
+        int hiddenCount = args.length > 6 ? Integer.parseInt(args[6]) : 150;
+        double learningRate = args.length > 7 ? Double.parseDouble(args[7]) : 0.1;
+        long seed = args.length > 8 ? Long.parseLong(args[8]) : 42L;
+
+        SupervisedDataset dataset = datasetFile.getFileName().toString().endsWith(".csv")
+                ? new CsvDataset(datasetFile, inputCount, targetCount)
+                : ColumnarDataset.open(datasetFile);
+
+        NeuralNetwork network = new NeuralNetwork(inputCount, hiddenCount, targetCount, learningRate, new SplittableRandom(seed));
+        SupervisedTrainer trainer = new SupervisedTrainer(batchSize, DEFAULT_SHUFFLE_BUFFER_SIZE, DEFAULT_BATCHES_AHEAD, ForkJoinPool.commonPool(), seed);
+        for (EpochStats stats : trainer.train(network, dataset, epochs)) {
+            System.out.printf("Epoch %d of %d done in %dms (%d examples)%n", stats.epoch(), epochs, stats.durationMillis(), stats.samples());
+        }
+
+        BrainSerializer.save(network, output);
+        System.out.println("Saved trained brain to " + output);
+    }
+}
@@ -0,0 +1,30 @@
+package org.cooney.world;
+
+import org.cooney.world.items.Actor;
+
+/**
+ * Decides what happens when an actor walks out of the part of the grid that's stepped by whoever is stepping it -
+ * a region worker handing over to its neighbour, or a shard passing the actor on to another process.
+ */
+public interface BorderCrossing {
+
+    /**
+     * @return true if the move from one cell to the other leaves the part of the grid the mover is responsible for.
+     * Coordinates have already been wrapped to the world's size.
+     */
+    boolean crossesBorder(int fromY, int fromX, int toY, int toX);
+
+    /**
+     * Takes the actor off the caller's hands. Called in place of the usual move, so this is also responsible for
+     * clearing the cell the actor is leaving.
+     */
+    void handOff(Actor actor, int fromY, int fromX, int toY, int toX);
+
+    /**
+     * Whether the grid's top and bottom rows are next to each other, as they are when the grid is the whole world.
+     * When they aren't, actors on one of those rows can't reach over to the other.
+     */
+    default boolean wrapsVertically() {
+        return true;
+    }
+}
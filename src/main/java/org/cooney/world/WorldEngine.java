@@ -1,16 +1,44 @@
 package org.cooney.world;
 
+import org.cooney.evolution.EvolutionEngine;
+import org.cooney.matrix.Activation;
+import org.cooney.metrics.MetricsRegistry;
+import org.cooney.metrics.SimulationMetrics;
+import org.cooney.metrics.jfr.MoveActorEvent;
+import org.cooney.metrics.jfr.ReproduceEvent;
+import org.cooney.neural.Brain;
+import org.cooney.neural.BrainKind;
+import org.cooney.neural.CachingBrain;
+import org.cooney.neural.CategoricalInputNetwork;
+import org.cooney.neural.CategoricalInputs;
+import org.cooney.neural.FloatNeuralNetwork;
+import org.cooney.neural.NeuralNetwork;
+import org.cooney.neural.OffHeapNeuralNetwork;
+import org.cooney.recording.TrajectoryRecorder;
+import org.cooney.recording.WorldEvent;
 import org.cooney.world.items.*;
+import org.cooney.world.items.agents.AgentParameters;
 import org.cooney.world.items.agents.Direction;
+import org.cooney.world.items.resources.ResourceRegenerator;
+import org.cooney.world.map.ChunkedGrid;
 import org.cooney.world.map.GridItem;
 import org.cooney.world.map.Seeder;
+import org.cooney.world.region.RegionScheduler;
+import org.cooney.world.utils.RandomSource;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
 import java.util.stream.IntStream;
 
 public class WorldEngine {
 
-    private final GridItem[][] world;
+    private final ChunkedGrid world;
 
     private final List<Actor> actorsInWorld;
 
@@ -23,31 +51,74 @@ public class WorldEngine {
 
     private Seeder seeder;
 
+    private final RandomSource randomSource;
+
+    private final RandomGenerator placementRandom;
+
+    private final SplittableGenerator evolutionRandom;
+
+    private final EvolutionEngine evolutionEngine;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    private final AtomicLong actorIdSequence = new AtomicLong();
+
+    private volatile RegionScheduler regionScheduler;
+
+    private volatile BorderCrossing borderCrossing;
+
+    private volatile Halo halo;
+
+    private volatile TrajectoryRecorder trajectoryRecorder;
+
+    private static final long REGENERATION_TICK_IN_MILLIS = 100;
+
+    private final ResourceRegenerator resourceRegenerator;
+
     public WorldEngine(int height, int width, Seeder seeder) {
-        this.world = new GridItem[height][width];
+        this(height, width, seeder, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Builds a world where everything random - the seeding, every actor's decisions and where new generations are
+     * placed - is derived from the given seed.
+     * @param seed The world seed. The same seed, seeder and dimensions will give the same starting world.
+     */
+    public WorldEngine(int height, int width, Seeder seeder, long seed) {
+        this.world = new ChunkedGrid(height, width);
         this.width = width;
         this.height = height;
         this.seeder = seeder;
-
-        coordsLookupMap = new HashMap<>();
-        actorsInWorld = new ArrayList<>();
+        this.randomSource = new RandomSource(seed);
+        this.placementRandom = randomSource.forSubsystem("placement");
+        this.evolutionRandom = randomSource.forSubsystem("evolution");
+        this.evolutionEngine = new EvolutionEngine(seeder.getEvolutionSettings(), ForkJoinPool.commonPool());
+        this.resourceRegenerator = new ResourceRegenerator(1, randomSource.forSubsystem("regeneration"), metrics);
+
+        coordsLookupMap = new ConcurrentHashMap<>();
+        actorsInWorld = new CopyOnWriteArrayList<>();
         actorThreads = new ArrayList<>();
 
         seeder.seedWorld(this);
         populateOptimizedDataStructures();
+
+        metrics.gauge(SimulationMetrics.WORLD_POPULATION, actorsInWorld::size);
+        metrics.gauge(SimulationMetrics.BRAIN_CACHE_HIT_RATE_PERCENT, () -> {
+            long hits = metrics.counter(SimulationMetrics.BRAIN_CACHE_HITS).sum();
+            long total = hits + metrics.counter(SimulationMetrics.BRAIN_CACHE_MISSES).sum();
+            return total == 0 ? 0 : hits * 100 / total;
+        });
     }
 
     private void populateOptimizedDataStructures() {
-        for(int y = 0; y < height; y++) {
-            for(int x = 0; x < width; x++) {
-                WorldItem worldItem = world[y][x].getWorldItem();
+        world.forEachOccupied((y, x, gridItem) -> {
+            WorldItem worldItem = gridItem.getWorldItem();
 
-                if (worldItem.getIsMovingWorldItem()) {
-                    this.coordsLookupMap.put(worldItem, new int[]{y, x});
-                    this.actorsInWorld.add((Actor)worldItem);
-                }
+            if (worldItem.getIsMovingWorldItem()) {
+                this.coordsLookupMap.put(worldItem, new int[]{y, x});
+                this.actorsInWorld.add((Actor)worldItem);
             }
-        }
+        });
     }
 
     public List<GridItem> getGridItemsInActorLineOfSight(Actor actor) {
@@ -74,15 +145,7 @@ public class WorldEngine {
                     cellXCoord = width - 1;
                 }
 
-                int cellYCoord = y + cellInSight[0];
-
-                if (cellYCoord < 0) {
-                    cellYCoord = 0;
-                } else if (cellYCoord >= height) {
-                    cellYCoord = height - 1;
-                }
-
-                GridItem gridItem = this.getItemAt(cellYCoord, cellXCoord);
+                GridItem gridItem = getItemInSight(y + cellInSight[0], cellXCoord);
 
                 if (gridItem.getWorldItem().getWorldItemId() != WorldItemIds.EMPTY) {
                     worldItemInLineOfSight = true;
@@ -92,13 +155,33 @@ public class WorldEngine {
             }
 
             if (!worldItemInLineOfSight) {
-                gridItemsInLineOfSight.add(new GridItem(new EmptyWorldItem()));
+                gridItemsInLineOfSight.add(new GridItem(EmptyWorldItem.INSTANCE));
             }
         }
 
         return gridItemsInLineOfSight;
     }
 
+    private GridItem getItemInSight(int y, int x) {
+        Halo currentHalo = halo;
+
+        if (currentHalo != null) {
+            if (y < 0 && -y <= currentHalo.rowsAbove().length) {
+                return currentHalo.rowsAbove()[currentHalo.rowsAbove().length + y][x];
+            } else if (y >= height && y - height < currentHalo.rowsBelow().length) {
+                return currentHalo.rowsBelow()[y - height][x];
+            }
+        }
+
+        if (y < 0) {
+            y = 0;
+        } else if (y >= height) {
+            y = height - 1;
+        }
+
+        return getItemAt(y, x);
+    }
+
     public List<GridItem> getInteractableGridItems(Actor actor) {
         int[] coordinates = coordsLookupMap.get(actor);
         return getGridItemsAroundCoordinates(coordinates, 1);
@@ -116,6 +199,9 @@ public class WorldEngine {
         int y = coordinates[0];
         int x = coordinates[1];
 
+        BorderCrossing crossing = borderCrossing;
+        boolean wrapsVertically = crossing == null || crossing.wrapsVertically();
+
         int[][] allSurroundingCoords = new int[48][2];
 
         int count = 0;
@@ -123,31 +209,102 @@ public class WorldEngine {
         for(int dx : coordinateDeltas) {
             for(int dy : coordinateDeltas) {
                 if (dx == 0 && dy == 0) continue;
+                // In a band of a bigger world, the other end of the band isn't next door.
+                if (!wrapsVertically && (y + dy < 0 || y + dy >= height)) continue;
                 allSurroundingCoords[count] = new int[]{Math.floorMod(y + dy,height), Math.floorMod(x + dx,width)};
                 count ++;
             }
         }
 
-        return allSurroundingCoords;
+        return Arrays.copyOf(allSurroundingCoords, count);
     }
 
     public void addActorInRandomPlace(Actor newItem) {
-        int randomY = (int)(Math.random() * height - 1);
-        int randomX = (int)(Math.random() * width - 1);
+        int randomY = placementRandom.nextInt(height);
+        int randomX = placementRandom.nextInt(width);
+
+        actorsInWorld.add(newItem);
+
+        if (regionScheduler != null) {
+            // The cell belongs to one of the region workers, so let it place the newcomer itself.
+            regionScheduler.spawn(newItem, randomY, randomX);
+            return;
+        }
 
         int[] newCoords = new int[]{randomY, randomX};
         coordsLookupMap.put(newItem, newCoords);
-        actorsInWorld.add(newItem);
         this.putItemAt(newCoords[0], newCoords[1], newItem);
     }
 
+    /**
+     * Places an actor that has just arrived in a region, either from a neighbouring region or by being born. The
+     * region picks an empty cell for it first, so nothing already on the grid is written over.
+     */
+    public void placeActor(Actor actor, int y, int x) {
+        WorldItem current = world.get(y, x).getWorldItem();
+
+        if (current.getIsMovingWorldItem() && current != actor) {
+            metrics.counter(SimulationMetrics.WORLD_MOVE_COLLISIONS).increment();
+        }
+
+        putItemAt(y, x, actor);
+        coordsLookupMap.put(actor, new int[]{y, x});
+    }
+
     public void begin() {
         for(Actor actor : actorsInWorld) {
-            Thread t = new Thread(actor::wakeUp);
+            Thread t = new Thread(actor::wakeUp, "actor-" + actor.getActorId());
             actorThreads.add(t);
             t.start();
         }
 
+        startReproducing();
+        startRegenerating();
+    }
+
+    /**
+     * Starts the world with the grid split into regions, each stepped by its own worker, rather than a thread per
+     * actor. Better suited to large maps with many actors; see {@link RegionScheduler}.
+     * @param regionsDown How many regions to split the height into.
+     * @param regionsAcross How many regions to split the width into.
+     */
+    public void beginPartitioned(int regionsDown, int regionsAcross) {
+        partition(regionsDown, regionsAcross).start();
+
+        startReproducing();
+        startRegenerating();
+    }
+
+    /**
+     * Splits the grid into regions without starting any workers, so the world can be stepped a tick at a time with
+     * {@link RegionScheduler#stepOnce()}. From here on, moves across a region border are handed over to the region
+     * on the other side rather than written straight into the grid.
+     */
+    public RegionScheduler partition(int regionsDown, int regionsAcross) {
+        regionScheduler = new RegionScheduler(this, regionsDown, regionsAcross);
+        borderCrossing = regionScheduler;
+        return regionScheduler;
+    }
+
+    /**
+     * Routes every move for which the crossing reports {@link BorderCrossing#crossesBorder} through it, instead of
+     * moving the actor within this grid.
+     */
+    public void setBorderCrossing(BorderCrossing borderCrossing) {
+        this.borderCrossing = borderCrossing;
+    }
+
+    /**
+     * Sets the rows actors can see past the top and bottom edges of this grid, for worlds which are one band of a
+     * bigger world. Without a halo, sight lines stop at the edge.
+     * @param rowsAbove The rows above row 0, nearest last.
+     * @param rowsBelow The rows below the last row, nearest first.
+     */
+    public void setHalo(GridItem[][] rowsAbove, GridItem[][] rowsBelow) {
+        this.halo = new Halo(rowsAbove, rowsBelow);
+    }
+
+    private void startReproducing() {
         Thread reproduceThread = new Thread(() -> {
             try {
                 reproduceInPopulation();
@@ -158,8 +315,40 @@ public class WorldEngine {
         reproduceThread.start();
     }
 
+    private void startRegenerating() {
+        Thread regenerateThread = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(REGENERATION_TICK_IN_MILLIS);
+                    resourceRegenerator.tick();
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }, "regenerate");
+        regenerateThread.start();
+    }
+
+    /**
+     * Has the actor take from the resource, and schedules the resource to regenerate if that left it depleted.
+     * @return true if the actor got something.
+     */
+    public boolean consume(Consumable consumable, Actor actor) {
+        if (!consumable.consume(actor)) {
+            return false;
+        }
+
+        metrics.counter(SimulationMetrics.RESOURCES_CONSUMED).increment();
+        resourceRegenerator.depleted(consumable);
+        return true;
+    }
+
+    public ResourceRegenerator getResourceRegenerator() {
+        return resourceRegenerator;
+    }
+
     private void asyncWakeUp(Actor actor) {
-        Thread t = new Thread(actor::wakeUp);
+        Thread t = new Thread(actor::wakeUp, "actor-" + actor.getActorId());
         actorThreads.add(t);
         t.start();
     }
@@ -168,6 +357,10 @@ public class WorldEngine {
         while(true) {
             Thread.sleep(seeder.getReproduceRateInMillis());
             System.out.println("Reproduce Cycle Occurring");
+            long cycleStart = System.nanoTime();
+            ReproduceEvent reproduceEvent = new ReproduceEvent();
+            reproduceEvent.begin();
+            int populationBeforeBreeding = actorsInWorld.size();
 
             if (actorsInWorld.size() > seeder.getPopulationCap()) {
                 System.out.println("Already at population cap.");
@@ -179,22 +372,39 @@ public class WorldEngine {
                     .map(actor -> ((Breeder)actor))
                     .filter(Breeder::isFitToBreed).toList();
 
-            List<Breeder> orderedByPerformance = breeders.stream()
-                    .sorted(Comparator.comparingInt(Breeder::getFitnessScore).reversed()).toList();
-            System.out.println(orderedByPerformance.size() + " to breed. The top " + seeder.getNewGenerationCount() + " will reproduce.");
+            System.out.println(breeders.size() + " to breed. " + seeder.getNewGenerationCount() + " children will be bred from them.");
 
-            int newChildCount = Math.min(orderedByPerformance.size(), seeder.getNewGenerationCount());
+            List<Breeder> children = evolutionEngine.breedNextGeneration(breeders, seeder.getNewGenerationCount(), evolutionRandom);
 
-            for(int x = 0; x < newChildCount; x++) {
-                Breeder child = orderedByPerformance.get(x).copy();
+            for(Breeder child : children) {
                 Actor childAsActor = (Actor) child;
                 this.addActorInRandomPlace(childAsActor);
-                asyncWakeUp(childAsActor);
+                recordEvent(WorldEvent.Type.BORN, childAsActor);
+
+                if (regionScheduler == null) {
+                    asyncWakeUp(childAsActor);
+                }
+            }
+
+            metrics.counter(SimulationMetrics.WORLD_CHILDREN_BORN).add(children.size());
+            metrics.recordSince(SimulationMetrics.WORLD_REPRODUCE_CYCLE, cycleStart);
+
+            reproduceEvent.end();
+            if (reproduceEvent.shouldCommit()) {
+                reproduceEvent.breeders = breeders.size();
+                reproduceEvent.children = children.size();
+                reproduceEvent.population = populationBeforeBreeding;
+                reproduceEvent.commit();
             }
         }
     }
 
     public void moveActor(Actor actor, int xDelta, int yDelta) {
+        long start = System.nanoTime();
+        MoveActorEvent moveEvent = new MoveActorEvent();
+        moveEvent.begin();
+        boolean collision = false;
+
         int[] currentCoords = coordsLookupMap.get(actor);
 
         int oldY = currentCoords[0];
@@ -203,25 +413,163 @@ public class WorldEngine {
         int newY = Math.floorMod(oldY + yDelta, height);
         int newX = Math.floorMod(oldX + xDelta, width);
 
-        if (!world[newY][newX].getWorldItem().getIsMovingWorldItem()) {
-            // Prevent the living things from trampling food and water out of existence.
-            putItemAt(oldY, oldX, world[newY][newX].getWorldItem());
+        BorderCrossing crossing = borderCrossing;
+
+        if (crossing != null && crossing.crossesBorder(oldY, oldX, newY, newX)) {
+            // The destination belongs to somebody else, who will place the actor on their side of the border.
+            crossing.handOff(actor, oldY, oldX, newY, newX);
         } else {
-            putItemAt(oldY, oldX, new EmptyWorldItem());
-        }
+            if (!world.get(newY, newX).getWorldItem().getIsMovingWorldItem()) {
+                // Prevent the living things from trampling food and water out of existence.
+                putItemAt(oldY, oldX, world.get(newY, newX).getWorldItem());
+            } else {
+                if (world.get(newY, newX).getWorldItem() != actor) {
+                    // Somebody else is already standing here - two actors are fighting over the same cell.
+                    metrics.counter(SimulationMetrics.WORLD_MOVE_COLLISIONS).increment();
+                    collision = true;
+                }
+                putItemAt(oldY, oldX, EmptyWorldItem.INSTANCE);
+            }
 
-        putItemAt(newY, newX, actor);
+            putItemAt(newY, newX, actor);
 
-        coordsLookupMap.put(actor, new int[]{newY, newX});
+            coordsLookupMap.put(actor, new int[]{newY, newX});
+        }
+
+        metrics.recordSince(SimulationMetrics.WORLD_MOVE_ACTOR, start);
+
+        moveEvent.end();
+        if (moveEvent.shouldCommit()) {
+            moveEvent.actorId = actor.getActorId();
+            moveEvent.tick = actor.getTicks();
+            moveEvent.fromY = oldY;
+            moveEvent.fromX = oldX;
+            moveEvent.toY = newY;
+            moveEvent.toX = newX;
+            moveEvent.collision = collision;
+            moveEvent.commit();
+        }
     }
 
     public void putItemAt(int y, int x, WorldItem worldItem) {
-        GridItem gridItem = new GridItem(worldItem);
-        world[y][x] = gridItem;
+        world.put(y, x, worldItem);
     }
 
     public GridItem getItemAt(int y, int x) {
-        return world[y][x];
+        return world.get(y, x);
+    }
+
+    /**
+     * Frees the storage for parts of the map that have emptied out. Only call this while nothing is stepping the
+     * world, e.g. between calls to {@link RegionScheduler#stepOnce()}.
+     * @return How many chunks were freed.
+     */
+    public int compactStorage() {
+        return world.compact();
+    }
+
+    /**
+     * Builds a fresh brain of whatever kind this world's seeder asks for, with its own random stream for the
+     * initial weights. If the seeder has a pretrained network with the same inputs and outputs, the brain starts out
+     * with its weights instead (shared until the agent first trains). If the seeder has a brain for every agent to
+     * share, that's the brain given out.
+     */
+    public Brain createBrain(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate) {
+        return createBrain(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, randomSource.split());
+    }
+
+    /**
+     * Builds a fresh brain like {@link #createBrain(int, int, int, double)}, but draws the initial weights from the
+     * given stream rather than splitting a new one off the world's, so it can be called from several seeding threads
+     * at once without them queueing on the world's random source.
+     */
+    public Brain createBrain(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random) {
+        return createBrain(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, random, CategoricalInputs.NONE);
+    }
+
+    /**
+     * Builds a fresh brain like {@link #createBrain(int, int, int, double, RandomGenerator)}, saying which of its
+     * inputs are categories, for kinds of brain which encode them differently (see {@link BrainKind#CATEGORICAL}).
+     */
+    public Brain createBrain(int inputValuesCount, int hiddenValuesCount, int outputValuesCount, double learningRate, RandomGenerator random, CategoricalInputs categoricalInputs) {
+        Brain sharedBrain = seeder.getSharedBrain();
+
+        if (sharedBrain != null) {
+            return sharedBrain;
+        }
+
+        NeuralNetwork pretrained = seeder.getPretrainedBrain();
+
+        if (pretrained != null
+                && pretrained.getInputHiddenLayerWeights().getColumns() == inputValuesCount
+                && pretrained.getOutputLayerBias().getRows() == outputValuesCount) {
+            return withPredictionCache(withSeederActivation(seeder.getBrainKind().from(pretrained)));
+        }
+
+        return withPredictionCache(withSeederActivation(seeder.getBrainKind().create(inputValuesCount, hiddenValuesCount, outputValuesCount, learningRate, random, categoricalInputs)));
+    }
+
+    /**
+     * Puts a {@link CachingBrain} in front of the brain if the seeder asks for one. Every agent's cache counts towards
+     * the world's hit and miss metrics. Only double precision networks are cached.
+     */
+    private Brain withPredictionCache(Brain brain) {
+        int cacheSize = seeder.getPredictionCacheSize();
+
+        if (cacheSize > 0 && brain instanceof NeuralNetwork network) {
+            return new CachingBrain(network, cacheSize, metrics.counter(SimulationMetrics.BRAIN_CACHE_HITS), metrics.counter(SimulationMetrics.BRAIN_CACHE_MISSES));
+        }
+
+        return brain;
+    }
+
+    /**
+     * Switches the brain over to the seeder's choice of sigmoid. Only the double, float, off heap and categorical
+     * networks have a choice - the int8 acting brain works from its own quantised tables and keeps the exact sigmoid.
+     */
+    private Brain withSeederActivation(Brain brain) {
+        Activation activation = seeder.getActivation();
+
+        if (activation == Activation.EXACT) {
+            return brain;
+        }
+
+        if (brain instanceof NeuralNetwork network) {
+            return network.withActivation(activation);
+        }
+
+        if (brain instanceof FloatNeuralNetwork network) {
+            return network.withActivation(activation);
+        }
+
+        if (brain instanceof OffHeapNeuralNetwork network) {
+            return network.withActivation(activation);
+        }
+
+        if (brain instanceof CategoricalInputNetwork network) {
+            return network.withActivation(activation);
+        }
+
+        return brain;
+    }
+
+    /**
+     * The parameters agents in this world learn with - the given defaults unless the seeder swaps them out.
+     */
+    public AgentParameters getAgentParameters(AgentParameters defaults) {
+        return seeder.getAgentParameters(defaults);
+    }
+
+    public long nextActorId() {
+        return actorIdSequence.incrementAndGet();
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public RandomSource getRandomSource() {
+        return randomSource;
     }
 
     public int getWidth() {
@@ -241,12 +589,49 @@ public class WorldEngine {
     }
 
     public void cleanUpCorpse(Actor actor) {
+        releaseActor(actor);
+        recordEvent(WorldEvent.Type.DIED, actor);
+    }
+
+    private void recordEvent(WorldEvent.Type type, Actor actor) {
+        TrajectoryRecorder recorder = trajectoryRecorder;
+        if (recorder != null) {
+            recorder.recordEvent(type, actor.getActorId(), actor.getTicks());
+        }
+    }
+
+    /**
+     * Records every transition the actors make, and births and deaths, from now on. Pass null to stop recording.
+     */
+    public void setTrajectoryRecorder(TrajectoryRecorder trajectoryRecorder) {
+        this.trajectoryRecorder = trajectoryRecorder;
+    }
+
+    public TrajectoryRecorder getTrajectoryRecorder() {
+        return trajectoryRecorder;
+    }
+
+    /**
+     * Forgets about an actor, e.g. because it has moved on to another world. Doesn't touch the grid.
+     */
+    public void releaseActor(Actor actor) {
         coordsLookupMap.remove(actor);
         actorsInWorld.remove(actor);
     }
 
+    /**
+     * Adds an actor which has arrived from elsewhere at the given cell.
+     */
+    public void addActorAt(Actor actor, int y, int x) {
+        actorsInWorld.add(actor);
+        placeActor(actor, y, x);
+    }
+
     public int getAverageTicks() {
         List<Actor> actorsInWorldCopy = new ArrayList<>(actorsInWorld);
         return (int) actorsInWorldCopy.stream().mapToInt(Actor::getTicks).average().orElse(0);
     }
+
+    private record Halo(GridItem[][] rowsAbove, GridItem[][] rowsBelow) {
+    }
 }
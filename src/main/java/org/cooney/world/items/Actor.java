@@ -7,8 +7,19 @@ import java.util.List;
 
 public interface Actor extends WorldItem {
     public void wakeUp();
+
+    /**
+     * Looks around and acts once, without waiting. {@link #wakeUp()} calls this in a loop on the actor's own thread;
+     * a region worker calls it for every actor in its region each tick instead.
+     */
+    public void step();
     public void act(List<GridItem> nearbyGridItems);
     public boolean isAlive();
     public Direction getDirectionIamFacing();
     int getTicks();
+
+    /**
+     * @return An id for this actor which is unique within its world.
+     */
+    long getActorId();
 }
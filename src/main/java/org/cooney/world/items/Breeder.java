@@ -1,7 +1,23 @@
 package org.cooney.world.items;
 
+import org.cooney.neural.Brain;
+
+import java.util.random.RandomGenerator;
+
 public interface Breeder {
     public boolean isFitToBreed();
     public int getFitnessScore();
     public Breeder copy();
+
+    /**
+     * @return A copy of this breeder's brain, for building offspring from.
+     */
+    public Brain getBrain();
+
+    /**
+     * Creates a child of the same kind as this breeder, but thinking with the given brain.
+     * @param brain The child's brain, e.g. the result of crossing over and mutating its parents' brains.
+     * @param random The child's own random stream.
+     */
+    public Breeder offspringWith(Brain brain, RandomGenerator random);
 }
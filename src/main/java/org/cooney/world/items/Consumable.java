@@ -1,8 +1,19 @@
 package org.cooney.world.items;
 
+import java.util.random.RandomGenerator;
+
 public interface Consumable {
-    public void consume(Actor actor);
+    /**
+     * Takes one unit of the resource, if there's any left. Safe to call from many actors at once.
+     * @return true if the actor got something.
+     */
+    public boolean consume(Actor actor);
     public double getResourceCount();
     public void regenerate();
-    public boolean shouldRegenerate();
+    public boolean shouldRegenerate(RandomGenerator random);
+
+    /**
+     * @return true while the resource is below the level it regenerates back up to.
+     */
+    public boolean needsRegeneration();
 }
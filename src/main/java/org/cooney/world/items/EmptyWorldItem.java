@@ -1,6 +1,11 @@
 package org.cooney.world.items;
 
 public class EmptyWorldItem implements WorldItem{
+    /**
+     * Empty space is all the same, so one instance can stand in for all of it.
+     */
+    public static final EmptyWorldItem INSTANCE = new EmptyWorldItem();
+
     @Override
     public String getCharacterCode() {
         return " ";
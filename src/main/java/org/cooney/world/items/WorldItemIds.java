@@ -8,4 +8,9 @@ public class WorldItemIds {
     public static final double CORPSE = 4;
 
     public static double FIGHTING_THING_ID = 5;
+
+    /**
+     * How many different ids there are, for brains which treat each one as a category of its own.
+     */
+    public static final int ID_COUNT = 6;
 }
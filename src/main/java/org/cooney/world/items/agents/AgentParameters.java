@@ -0,0 +1,52 @@
+package org.cooney.world.items.agents;
+
+/**
+ * Everything that shapes how an agent learns. Each kind of agent has its own defaults, which a seeder can swap out
+ * (see {@link org.cooney.world.map.Seeder#getAgentParameters(AgentParameters)}), e.g. to sweep over them.
+ * @param learningRate How far each training step moves the brain's weights.
+ * @param hiddenCount The size of the brain's hidden layer.
+ * @param discount How much the Q-Learning targets value what comes next over what's happening now.
+ * @param initialExplorationRate The chance of a brand new agent moving at random rather than thinking.
+ * @param explorationDecay How much the exploration rate drops each time it degrades. It never drops below 0.05.
+ * @param explorationDegradeCadenceInTicks How often the exploration rate degrades.
+ * @param meditationCadenceInTicks How often the agent stops to learn from its memories.
+ * @param maxMemorySize How many decisions the agent remembers to learn from.
+ * @param learningDegradationRate Kept alongside the rest, although nothing reads it yet.
+ */
+public record AgentParameters(double learningRate,
+                              int hiddenCount,
+                              double discount,
+                              double initialExplorationRate,
+                              double explorationDecay,
+                              int explorationDegradeCadenceInTicks,
+                              int meditationCadenceInTicks,
+                              int maxMemorySize,
+                              double learningDegradationRate) {
+
+    public static final AgentParameters SURVIVING_DEFAULTS = new AgentParameters(0.1, 150, 0.95, 0.95, 0.05, 100, 100, 1000, 0.05);
+    public static final AgentParameters FIGHTING_DEFAULTS = new AgentParameters(0.1, 100, 0.95, 0.95, 0.05, 100, 100, 1000, 0.05);
+
+    public AgentParameters withLearningRate(double learningRate) {
+        return new AgentParameters(learningRate, hiddenCount, discount, initialExplorationRate, explorationDecay, explorationDegradeCadenceInTicks, meditationCadenceInTicks, maxMemorySize, learningDegradationRate);
+    }
+
+    public AgentParameters withHiddenCount(int hiddenCount) {
+        return new AgentParameters(learningRate, hiddenCount, discount, initialExplorationRate, explorationDecay, explorationDegradeCadenceInTicks, meditationCadenceInTicks, maxMemorySize, learningDegradationRate);
+    }
+
+    public AgentParameters withDiscount(double discount) {
+        return new AgentParameters(learningRate, hiddenCount, discount, initialExplorationRate, explorationDecay, explorationDegradeCadenceInTicks, meditationCadenceInTicks, maxMemorySize, learningDegradationRate);
+    }
+
+    public AgentParameters withExplorationDecay(double explorationDecay) {
+        return new AgentParameters(learningRate, hiddenCount, discount, initialExplorationRate, explorationDecay, explorationDegradeCadenceInTicks, meditationCadenceInTicks, maxMemorySize, learningDegradationRate);
+    }
+
+    public AgentParameters withMaxMemorySize(int maxMemorySize) {
+        return new AgentParameters(learningRate, hiddenCount, discount, initialExplorationRate, explorationDecay, explorationDegradeCadenceInTicks, meditationCadenceInTicks, maxMemorySize, learningDegradationRate);
+    }
+
+    public AgentParameters withMeditationCadenceInTicks(int meditationCadenceInTicks) {
+        return new AgentParameters(learningRate, hiddenCount, discount, initialExplorationRate, explorationDecay, explorationDegradeCadenceInTicks, meditationCadenceInTicks, maxMemorySize, learningDegradationRate);
+    }
+}
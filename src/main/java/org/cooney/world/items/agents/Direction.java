@@ -1,5 +1,8 @@
 package org.cooney.world.items.agents;
 
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
 public enum Direction {
 
     UP(0, -1, 0, new int[][][]{
@@ -48,7 +51,11 @@ public enum Direction {
     }
 
     public static Direction randomDirection() {
-        return values()[(int) (Math.random() * (values().length - 1))];
+        return randomDirection(ThreadLocalRandom.current());
+    }
+
+    public static Direction randomDirection(RandomGenerator random) {
+        return values()[random.nextInt(values().length - 1)];
     }
 
     public int getIndex() {
@@ -1,8 +1,10 @@
 package org.cooney.world.items.agents;
 
 import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.metrics.SimulationMetrics;
 import org.cooney.neural.InvalidTrainingDataException;
-import org.cooney.neural.NeuralNetwork;
+import org.cooney.neural.Brain;
+import org.cooney.neural.CategoricalInputs;
 import org.cooney.neural.NeuralNetworkTrainingData;
 import org.cooney.world.WorldEngine;
 import org.cooney.world.items.Breeder;
@@ -10,40 +12,60 @@ import org.cooney.world.items.Fighter;
 import org.cooney.world.items.WorldItemIds;
 import org.cooney.world.map.GridItem;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.random.RandomGenerator;
 import java.util.stream.DoubleStream;
 
 public class FightingThing extends LivingEntity implements Fighter, Breeder {
+    /**
+     * After the health and fights won come the ids of what the fighter can see.
+     */
+    private static final CategoricalInputs CATEGORICAL_INPUTS = CategoricalInputs.of(WorldItemIds.ID_COUNT, 2, 3, 4, 5, 6);
+
     private final int teamNumber;
     private int healthPoints;
     private int fightsWon;
 
     public FightingThing(WorldEngine outsideWorld, int teamNumber) {
-        super(0.05,
-                100,
-                100,
-                1000,
-                new NeuralNetwork(7, 100, 5, 0.1),
+        this(outsideWorld, teamNumber, outsideWorld.getRandomSource().split());
+    }
+
+    /**
+     * Builds a brand new fighter whose brain and decisions are all drawn from the given stream.
+     */
+    public FightingThing(WorldEngine outsideWorld, int teamNumber, RandomGenerator random) {
+        this(outsideWorld, teamNumber, outsideWorld.getAgentParameters(AgentParameters.FIGHTING_DEFAULTS), random);
+    }
+
+    private FightingThing(WorldEngine outsideWorld, int teamNumber, AgentParameters parameters, RandomGenerator random) {
+        super(parameters,
+                outsideWorld.createBrain(7, parameters.hiddenCount(), 5, parameters.learningRate(), random, CATEGORICAL_INPUTS),
                 outsideWorld,
                 0,
-                0.95
+                parameters.initialExplorationRate(),
+                random
         );
 
         this.teamNumber = teamNumber;
         this.healthPoints = 100;
     }
 
-    public FightingThing(WorldEngine outsideWorld, NeuralNetwork neuralNetwork, double explorationRate, int ticks, int teamNumber) {
+    public FightingThing(WorldEngine outsideWorld, Brain brain, double explorationRate, int ticks, int teamNumber) {
+        this(outsideWorld, brain, explorationRate, ticks, teamNumber, outsideWorld.getRandomSource().split());
+    }
+
+    public FightingThing(WorldEngine outsideWorld, Brain brain, double explorationRate, int ticks, int teamNumber, RandomGenerator random) {
         super(
-                0.05,
-                100,
-                100,
-                1000,
-                neuralNetwork,
+                outsideWorld.getAgentParameters(AgentParameters.FIGHTING_DEFAULTS),
+                brain,
                 outsideWorld,
                 ticks,
-                explorationRate);
+                explorationRate,
+                random);
 
         this.teamNumber = teamNumber;
         this.healthPoints = 100;
@@ -70,7 +92,7 @@ public class FightingThing extends LivingEntity implements Fighter, Breeder {
         }
 
         NeuralNetworkTrainingData neuralNetworkTrainingData = new NeuralNetworkTrainingData(inputs, scores, newSurroundingItems, actionsTaken);
-        neuralNetwork.fit(neuralNetworkTrainingData, 10);
+        brain.fit(neuralNetworkTrainingData, 10, random, parameters.discount());
     }
 
     @Override
@@ -99,15 +121,17 @@ public class FightingThing extends LivingEntity implements Fighter, Breeder {
     @Override
     protected void makeAMove(double[] input) throws InvalidMatrixShapeException {
         int currentHealthPoints = this.healthPoints;
-        double[] networkInput = buildNeuralNetworkInputArray(input, currentHealthPoints, this.fightsWon);
+        double[] networkInput = decisionInput(input);
         Direction direction = decide(networkInput);
         move(direction);
         updateDirection(direction);
 
         List<GridItem> visibleGridItems = lookAround();
+        long attackStart = System.nanoTime();
         List<Fighter> enemiesInRange = findNearbyEnemies(outsideWorld.getInteractableGridItems(this));
         List<Fighter> enemiesICanBeat = findEnemiesICanBeat(enemiesInRange);
         int newFightsWon = attack(enemiesICanBeat);
+        metrics.recordSince(SimulationMetrics.ACTOR_ATTACK, attackStart);
 
         double moveScore = scoreTheMoveIMade(newFightsWon, currentHealthPoints);
         rememberThisDecision(
@@ -161,6 +185,16 @@ public class FightingThing extends LivingEntity implements Fighter, Breeder {
                 .toList();
     }
 
+    @Override
+    protected double[] decisionInput(double[] surroundingItems) {
+        return buildNeuralNetworkInputArray(surroundingItems, this.healthPoints, this.fightsWon);
+    }
+
+    @Override
+    protected double[] toNetworkInput(double[] surroundingItems, double[] stats) {
+        return buildNeuralNetworkInputArray(surroundingItems, stats[0], stats[1]);
+    }
+
     private double[] buildNeuralNetworkInputArray(double[] surroundingFighters, double healthPoints, double fightsWon) {
         return DoubleStream
                 .concat(
@@ -173,6 +207,18 @@ public class FightingThing extends LivingEntity implements Fighter, Breeder {
         return this.teamNumber;
     }
 
+    @Override
+    protected void writeOwnState(DataOutputStream out) throws IOException {
+        out.writeInt(healthPoints);
+        out.writeInt(fightsWon);
+    }
+
+    @Override
+    protected void readOwnState(DataInputStream in) throws IOException {
+        this.healthPoints = in.readInt();
+        this.fightsWon = in.readInt();
+    }
+
     @Override
     public void takeAHit() {
         this.healthPoints -= 10;
@@ -220,6 +266,11 @@ public class FightingThing extends LivingEntity implements Fighter, Breeder {
 
     @Override
     public Breeder copy() {
-        return new FightingThing(outsideWorld, this.getNeuralNetwork().copy(), 0.05, this.getTicks(), this.teamNumber);
+        return new FightingThing(outsideWorld, this.getBrain(), 0.05, this.getTicks(), this.teamNumber);
+    }
+
+    @Override
+    public Breeder offspringWith(Brain brain, RandomGenerator random) {
+        return new FightingThing(outsideWorld, brain, 0.05, this.getTicks(), this.teamNumber, random);
     }
 }
@@ -1,8 +1,12 @@
 package org.cooney.world.items.agents;
 
 import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.metrics.MetricsRegistry;
+import org.cooney.metrics.SimulationMetrics;
+import org.cooney.metrics.jfr.ActorStepEvent;
 import org.cooney.neural.InvalidTrainingDataException;
-import org.cooney.neural.NeuralNetwork;
+import org.cooney.neural.Brain;
+import org.cooney.recording.TrajectoryRecorder;
 import org.cooney.world.WorldEngine;
 import org.cooney.world.items.Actor;
 import org.cooney.world.items.Learner;
@@ -10,10 +14,15 @@ import org.cooney.world.items.WorldItem;
 import org.cooney.world.items.WorldItemIds;
 import org.cooney.world.map.GridItem;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.random.RandomGenerator;
 
 public abstract class LivingEntity implements Actor, Learner, WorldItem {
+    protected final AgentParameters parameters;
     protected final double learningDegradationRate;
     protected final int meditationCadenceInTicks;
     protected final int explorationDegradeCadenceInTicks;
@@ -23,25 +32,39 @@ public abstract class LivingEntity implements Actor, Learner, WorldItem {
     protected Direction currentDirection = Direction.DOWN;
     protected Direction previousDirection = Direction.DOWN;
     protected boolean alive = true;
-    protected final NeuralNetwork neuralNetwork;
+    protected final Brain brain;
     protected final List<LivingEntityMemory> memory = new ArrayList<>();
     protected final WorldEngine outsideWorld;
+    protected final RandomGenerator random;
+    protected final MetricsRegistry metrics;
+    protected final long actorId;
 
-    public LivingEntity(double learningDegradationRate, int meditationCadenceInTicks, int explorationDegradeCadenceInTicks, int maxMemorySize, NeuralNetwork neuralNetwork, WorldEngine outsideWorld, int ticks, double initialExplorationRate) {
-        this.learningDegradationRate = learningDegradationRate;
-        this.meditationCadenceInTicks = meditationCadenceInTicks;
-        this.explorationDegradeCadenceInTicks = explorationDegradeCadenceInTicks;
+    private List<GridItem> observation;
+    private double[] batchedQValues;
 
-        this.maxMemorySize = maxMemorySize;
-        this.neuralNetwork = neuralNetwork;
+    public LivingEntity(AgentParameters parameters, Brain brain, WorldEngine outsideWorld, int ticks, double initialExplorationRate) {
+        this(parameters, brain, outsideWorld, ticks, initialExplorationRate, outsideWorld.getRandomSource().split());
+    }
+
+    public LivingEntity(AgentParameters parameters, Brain brain, WorldEngine outsideWorld, int ticks, double initialExplorationRate, RandomGenerator random) {
+        this.parameters = parameters;
+        this.learningDegradationRate = parameters.learningDegradationRate();
+        this.meditationCadenceInTicks = parameters.meditationCadenceInTicks();
+        this.explorationDegradeCadenceInTicks = parameters.explorationDegradeCadenceInTicks();
+
+        this.maxMemorySize = parameters.maxMemorySize();
+        this.brain = brain;
         this.outsideWorld = outsideWorld;
         this.explorationRate = initialExplorationRate;
+        this.ticks = ticks;
+        this.random = random;
+        this.metrics = outsideWorld.getMetrics();
+        this.actorId = outsideWorld.nextActorId();
     }
 
     public void wakeUp() {
         while(alive) {
-            List<GridItem> gridItemsICanSee = outsideWorld.getGridItemsInActorLineOfSight(this);
-            act(gridItemsICanSee);
+            step();
             try {
                 Thread.sleep(10);
             } catch (InterruptedException e) {
@@ -54,9 +77,50 @@ public abstract class LivingEntity implements Actor, Learner, WorldItem {
         outsideWorld.cleanUpCorpse(this);
     }
 
+    public void step() {
+        if (alive) {
+            act(lookAround());
+        }
+    }
+
+    /**
+     * Looks around and works out what the brain should be asked about, without deciding anything yet. Lets a caller
+     * gather up many actors' inputs and put them through the brain in one batch, then hand each actor its answer with
+     * {@link #actOn(double[])}.
+     * @return The input the brain would be given this tick.
+     */
+    public double[] observe() {
+        this.observation = lookAround();
+        return decisionInput(gridItemsToNetworkInput(observation));
+    }
+
+    /**
+     * Takes this tick's step using what was seen in {@link #observe()}, going with the given Q values instead of
+     * asking the brain. The actor may still explore instead, just as it would when stepping on its own.
+     */
+    public void actOn(double[] qValues) {
+        List<GridItem> observed = this.observation;
+        this.observation = null;
+        this.batchedQValues = qValues;
+
+        try {
+            act(observed);
+        } finally {
+            this.batchedQValues = null;
+        }
+    }
+
+    /**
+     * Whether the next step will be spent learning from memories rather than making a move, i.e. doesn't need a
+     * decision.
+     */
+    public boolean willLearnNextTick() {
+        return isTimeToMeditate(ticks + 1);
+    }
+
     protected void degradeExplorationRate() {
         if (this.explorationRate > 0.05) {
-            this.explorationRate = this.explorationRate - 0.05;
+            this.explorationRate = Math.max(0.05, this.explorationRate - parameters.explorationDecay());
         }
     }
 
@@ -69,35 +133,65 @@ public abstract class LivingEntity implements Actor, Learner, WorldItem {
     }
 
     protected void rememberThisDecision(double[] input, double[] inputStats, double moveScore, double[] newSurroundingItems, double[] newStats, Direction direction) {
+        long start = System.nanoTime();
         this.memory.add(new LivingEntityMemory(input, inputStats, moveScore, newSurroundingItems, newStats, direction));
 
+        TrajectoryRecorder recorder = outsideWorld.getTrajectoryRecorder();
+        boolean brainLearnsFromTransitions = brain.learnsFromTransitions();
+        if (recorder != null || brainLearnsFromTransitions) {
+            double[] state = toNetworkInput(input, inputStats);
+            double[] nextState = toNetworkInput(newSurroundingItems, newStats);
+
+            if (recorder != null) {
+                recorder.recordTransition(actorId, ticks, state, direction.getIndex(), moveScore, nextState);
+            }
+
+            if (brainLearnsFromTransitions) {
+                brain.offerTransition(state, direction.getIndex(), moveScore, nextState);
+            }
+        }
+
         if (this.memory.size() > maxMemorySize) {
             // Get rid of the oldest memory from the working set.
             this.memory.remove(0);
         }
+
+        metrics.recordSince(SimulationMetrics.ACTOR_REMEMBER, start);
     }
 
     protected List<GridItem> lookAround() {
-        return outsideWorld.getGridItemsInActorLineOfSight(this);
+        long start = System.nanoTime();
+        List<GridItem> gridItemsICanSee = outsideWorld.getGridItemsInActorLineOfSight(this);
+        metrics.recordSince(SimulationMetrics.ACTOR_PERCEIVE, start);
+        return gridItemsICanSee;
     }
 
     protected void move(Direction direction) {
+        long start = System.nanoTime();
         int xDirection = direction.getXDirection();
         int yDirection = direction.getYDirection();
 
         outsideWorld.moveActor(this, xDirection, yDirection);
+        metrics.recordSince(SimulationMetrics.ACTOR_MOVE, start);
     }
 
     private boolean shouldSelectRandomDirection() {
-        return Math.random() < this.explorationRate;
+        return random.nextDouble() < this.explorationRate;
     }
 
     protected Direction decide(double[] networkInput) throws InvalidMatrixShapeException {
+        long start = System.nanoTime();
+        Direction decision = decideWithoutTiming(networkInput);
+        metrics.recordSince(SimulationMetrics.ACTOR_DECIDE, start);
+        return decision;
+    }
+
+    private Direction decideWithoutTiming(double[] networkInput) throws InvalidMatrixShapeException {
         if (shouldSelectRandomDirection()) {
-            return Direction.randomDirection();
+            return Direction.randomDirection(random);
         }
 
-        double[] possibleQValues = neuralNetwork.predict(networkInput);
+        double[] possibleQValues = batchedQValues != null ? batchedQValues : brain.predict(networkInput);
 
         int indexOfMax = -1;
         double temp = -1;
@@ -125,23 +219,117 @@ public abstract class LivingEntity implements Actor, Learner, WorldItem {
         return alive;
     }
 
-    public NeuralNetwork getNeuralNetwork() {
-        return this.neuralNetwork.copy();
+    public Brain getBrain() {
+        return this.brain.copy();
+    }
+
+    /**
+     * The brain this actor decides with - the brain itself, not a copy - so decisions for actors sharing a brain can
+     * be batched together.
+     */
+    public Brain getDecidingBrain() {
+        return this.brain;
     }
 
     public int getTicks() {
         return ticks;
     }
 
+    public double getExplorationRate() {
+        return explorationRate;
+    }
+
+    public AgentParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Writes what the actor has built up while living - which way it's facing, its memories and whatever the subclass
+     * keeps track of - so it can carry on in another world. The brain, ticks and exploration rate go to the
+     * constructor on the other side, so aren't written here. Observations and stats are written as floats.
+     */
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeByte(currentDirection.getIndex());
+        out.writeByte(previousDirection.getIndex());
+
+        out.writeInt(memory.size());
+        for (LivingEntityMemory remembered : memory) {
+            writeFloats(out, remembered.oldSurroundingItems());
+            writeFloats(out, remembered.stats());
+            out.writeDouble(remembered.score());
+            writeFloats(out, remembered.newSurroundingItems());
+            writeFloats(out, remembered.newStats());
+            out.writeByte(remembered.action().getIndex());
+        }
+
+        writeOwnState(out);
+    }
+
+    /**
+     * Restores state written by {@link #writeState(DataOutputStream)} onto a freshly built actor.
+     */
+    public void readState(DataInputStream in) throws IOException {
+        this.currentDirection = Direction.getFromIndex(in.readByte());
+        this.previousDirection = Direction.getFromIndex(in.readByte());
+
+        int memoryCount = in.readInt();
+        this.memory.clear();
+        for (int i = 0; i < memoryCount; i++) {
+            double[] oldSurroundingItems = readFloats(in);
+            double[] stats = readFloats(in);
+            double score = in.readDouble();
+            double[] newSurroundingItems = readFloats(in);
+            double[] newStats = readFloats(in);
+            Direction action = Direction.getFromIndex(in.readByte());
+            this.memory.add(new LivingEntityMemory(oldSurroundingItems, stats, score, newSurroundingItems, newStats, action));
+        }
+
+        readOwnState(in);
+    }
+
+    protected void writeOwnState(DataOutputStream out) throws IOException {
+    }
+
+    protected void readOwnState(DataInputStream in) throws IOException {
+    }
+
+    private static void writeFloats(DataOutputStream out, double[] values) throws IOException {
+        out.writeShort(values.length);
+        for (double value : values) {
+            out.writeFloat((float) value);
+        }
+    }
+
+    private static double[] readFloats(DataInputStream in) throws IOException {
+        double[] values = new double[in.readShort()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    @Override
+    public long getActorId() {
+        return actorId;
+    }
+
     public void act(List<GridItem> gridItems) {
+        long start = System.nanoTime();
+        ActorStepEvent stepEvent = new ActorStepEvent();
+        stepEvent.begin();
+
         double[] input = gridItemsToNetworkInput(gridItems);
 
         ticks ++;
+        boolean learnedThisTick = false;
 
         try {
             if (alive) {
-                if (ticks % meditationCadenceInTicks == 0) {
+                if (isTimeToMeditate(ticks)) {
+                    long learnStart = System.nanoTime();
                     learn();
+                    learnedThisTick = true;
+                    metrics.recordSince(SimulationMetrics.ACTOR_LEARN, learnStart);
                 } else {
                     makeAMove(input);
                     if (this.shouldBeDead()) {
@@ -156,9 +344,25 @@ public abstract class LivingEntity implements Actor, Learner, WorldItem {
             }
         } catch (InvalidMatrixShapeException | InvalidTrainingDataException e) {
             throw new RuntimeException(e);
+        } finally {
+            metrics.recordSince(SimulationMetrics.ACTOR_STEP, start);
+
+            stepEvent.end();
+            if (stepEvent.shouldCommit()) {
+                stepEvent.actorId = actorId;
+                stepEvent.tick = ticks;
+                stepEvent.actorType = getClass().getSimpleName();
+                stepEvent.learned = learnedThisTick;
+                stepEvent.commit();
+            }
         }
     }
 
+    private boolean isTimeToMeditate(int tick) {
+        // Brains which learn from each transition as it happens have no need for the agent to stop and learn.
+        return tick % meditationCadenceInTicks == 0 && !brain.learnsFromTransitions();
+    }
+
     protected void updateDirection(Direction newDirection) {
         this.previousDirection = this.currentDirection == Direction.STAY_STILL ? this.previousDirection : this.currentDirection;
         this.currentDirection = newDirection;
@@ -175,5 +379,15 @@ public abstract class LivingEntity implements Actor, Learner, WorldItem {
     }
 
     protected abstract void makeAMove(double[] input) throws InvalidMatrixShapeException;
+
+    /**
+     * Builds the input the brain decides on, from what the actor can see and its stats right now.
+     */
+    protected abstract double[] decisionInput(double[] surroundingItems);
+
+    /**
+     * Builds the input the brain is given from what the actor could see and its stats at the time, as remembered.
+     */
+    protected abstract double[] toNetworkInput(double[] surroundingItems, double[] stats);
     protected abstract boolean shouldBeDead();
 }
@@ -1,8 +1,10 @@
 package org.cooney.world.items.agents;
 
 import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.metrics.SimulationMetrics;
 import org.cooney.neural.InvalidTrainingDataException;
-import org.cooney.neural.NeuralNetwork;
+import org.cooney.neural.Brain;
+import org.cooney.neural.CategoricalInputs;
 import org.cooney.neural.NeuralNetworkTrainingData;
 import org.cooney.world.WorldEngine;
 import org.cooney.world.items.Breeder;
@@ -12,13 +14,22 @@ import org.cooney.world.items.resources.Food;
 import org.cooney.world.items.resources.Water;
 import org.cooney.world.map.GridItem;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.random.RandomGenerator;
 import java.util.stream.DoubleStream;
 
 public class SurvivingThing extends LivingEntity implements Breeder {
+    /**
+     * The first five inputs are the ids of what the agent can see; the priority and energy after them are amounts.
+     */
+    private static final CategoricalInputs CATEGORICAL_INPUTS = CategoricalInputs.of(WorldItemIds.ID_COUNT, 0, 1, 2, 3, 4);
+
     private double hunger;
     private double thirst;
     private double isolation;
@@ -26,14 +37,24 @@ public class SurvivingThing extends LivingEntity implements Breeder {
     private double energy;
 
     public SurvivingThing(WorldEngine outsideWorld) {
-        super(0.05,
-                100,
-                100,
-                1000,
-                new NeuralNetwork(7, 150, 5, 0.1),
+        this(outsideWorld, outsideWorld.getRandomSource().split());
+    }
+
+    /**
+     * Builds a brand new agent whose brain and decisions are all drawn from the given stream, e.g. one of the
+     * per-row streams handed out while a world is seeded in parallel.
+     */
+    public SurvivingThing(WorldEngine outsideWorld, RandomGenerator random) {
+        this(outsideWorld, outsideWorld.getAgentParameters(AgentParameters.SURVIVING_DEFAULTS), random);
+    }
+
+    private SurvivingThing(WorldEngine outsideWorld, AgentParameters parameters, RandomGenerator random) {
+        super(parameters,
+                outsideWorld.createBrain(7, parameters.hiddenCount(), 5, parameters.learningRate(), random, CATEGORICAL_INPUTS),
                 outsideWorld,
                 0,
-                0.95
+                parameters.initialExplorationRate(),
+                random
         );
 
         this.hunger = 0;
@@ -43,15 +64,17 @@ public class SurvivingThing extends LivingEntity implements Breeder {
         this.energy = 500;
     }
 
-    public SurvivingThing(WorldEngine outsideWorld, NeuralNetwork neuralNetwork, double explorationRate, int ticks) {
-        super(0.05,
-                100,
-                100,
-                1000,
-                neuralNetwork,
+    public SurvivingThing(WorldEngine outsideWorld, Brain brain, double explorationRate, int ticks) {
+        this(outsideWorld, brain, explorationRate, ticks, outsideWorld.getRandomSource().split());
+    }
+
+    public SurvivingThing(WorldEngine outsideWorld, Brain brain, double explorationRate, int ticks, RandomGenerator random) {
+        super(outsideWorld.getAgentParameters(AgentParameters.SURVIVING_DEFAULTS),
+                brain,
                 outsideWorld,
                 ticks,
-                explorationRate
+                explorationRate,
+                random
         );
 
         this.hunger = 0;
@@ -61,8 +84,7 @@ public class SurvivingThing extends LivingEntity implements Breeder {
     }
 
     protected void makeAMove(double[] surroundingItems) throws InvalidMatrixShapeException {
-        double[] stats = createStatsArray();
-        double[] networkInput = buildNeuralNetworkInputArray(surroundingItems, stats);
+        double[] networkInput = decisionInput(surroundingItems);
         Direction direction = energy == 0? Direction.STAY_STILL : decide(networkInput);
         move(direction);
 
@@ -71,8 +93,10 @@ public class SurvivingThing extends LivingEntity implements Breeder {
         updateDirection(direction);
 
         List<GridItem> surroundingGridItems = lookAround();
+        long consumeStart = System.nanoTime();
         List<GridItem> consumableGridItems = outsideWorld.getInteractableGridItems(this);
         double[] newStats = consumeResources(consumableGridItems);
+        metrics.recordSince(SimulationMetrics.ACTOR_CONSUME, consumeStart);
         double moveScore = scoreTheMoveIMade(newStats);
         rememberThisDecision(surroundingItems, createStatsArray(), moveScore, gridItemsToNetworkInput(surroundingGridItems), newStats, direction);
         updateMyStats(newStats);
@@ -152,32 +176,29 @@ public class SurvivingThing extends LivingEntity implements Breeder {
 
         double[] newStats = new double[4];
 
+        // Hunger and thirst keep growing unless something is actually eaten or drunk, empty sources included.
+        newStats[0] = this.hunger + 1;
+        newStats[1] = this.thirst + 1;
         newStats[3] = this.energy;
 
-        if (!mappedById.containsKey(WorldItemIds.FOOD_ID)) {
-            newStats[0] = this.hunger + 1;
-        } else if (this.hunger > 100) {
+        if (mappedById.containsKey(WorldItemIds.FOOD_ID) && this.hunger > 100) {
             mappedById.get(WorldItemIds.FOOD_ID).stream()
                     .map(worldItem -> (Food)worldItem)
                     .max((f1, f2) -> (int) (f1.getResourceCount() - f2.getResourceCount()))
                     .ifPresent((bestFoodSource) -> {
-                        if (bestFoodSource.getResourceCount() > 0) {
-                            bestFoodSource.consume(this);
+                        if (outsideWorld.consume(bestFoodSource, this)) {
                             newStats[0] = this.hunger - 20;
                             newStats[3] = this.energy + 20;
                         }
                     });
         }
 
-        if (!mappedById.containsKey(WorldItemIds.WATER_ID)) {
-            newStats[1] = this.thirst + 1;
-        } else if (this.thirst > 100) {
+        if (mappedById.containsKey(WorldItemIds.WATER_ID) && this.thirst > 100) {
             mappedById.get(WorldItemIds.WATER_ID).stream()
                     .map(worldItem -> (Water) worldItem)
                     .max((w1, w2) -> (int) (w1.getResourceCount() - w2.getResourceCount()))
                     .ifPresent((bestWaterSource) -> {
-                        if (bestWaterSource.getResourceCount() > 0) {
-                            bestWaterSource.consume(this);
+                        if (outsideWorld.consume(bestWaterSource, this)) {
                             newStats[1] = this.thirst - 20;
                         }
                     });
@@ -192,6 +213,16 @@ public class SurvivingThing extends LivingEntity implements Breeder {
         return newStats;
     }
 
+    @Override
+    protected double[] decisionInput(double[] surroundingItems) {
+        return buildNeuralNetworkInputArray(surroundingItems, createStatsArray());
+    }
+
+    @Override
+    protected double[] toNetworkInput(double[] surroundingItems, double[] stats) {
+        return buildNeuralNetworkInputArray(surroundingItems, stats);
+    }
+
     private double[] buildNeuralNetworkInputArray(double[] surroundingItemsNetworkInput, double[] statsArray) {
 
         double priorityConcernValue = 0;
@@ -232,7 +263,7 @@ public class SurvivingThing extends LivingEntity implements Breeder {
         }
 
         NeuralNetworkTrainingData neuralNetworkTrainingData = new NeuralNetworkTrainingData(inputs, scores, newSurroundingItems, actionsTaken);
-        neuralNetwork.fit(neuralNetworkTrainingData, 10);
+        brain.fit(neuralNetworkTrainingData, 10, random, parameters.discount());
     }
 
     @Override
@@ -270,6 +301,24 @@ public class SurvivingThing extends LivingEntity implements Breeder {
         return "#FFFFFF";
     }
 
+    @Override
+    protected void writeOwnState(DataOutputStream out) throws IOException {
+        out.writeDouble(hunger);
+        out.writeDouble(thirst);
+        out.writeDouble(isolation);
+        out.writeInt(totalScore);
+        out.writeDouble(energy);
+    }
+
+    @Override
+    protected void readOwnState(DataInputStream in) throws IOException {
+        this.hunger = in.readDouble();
+        this.thirst = in.readDouble();
+        this.isolation = in.readDouble();
+        this.totalScore = in.readInt();
+        this.energy = in.readDouble();
+    }
+
     public boolean isFitToBreed() {
         return true;
     }
@@ -280,7 +329,12 @@ public class SurvivingThing extends LivingEntity implements Breeder {
 
     @Override
     public Breeder copy() {
-        return new SurvivingThing(outsideWorld, this.getNeuralNetwork(), 0.05, this.getTicks());
+        return new SurvivingThing(outsideWorld, this.getBrain(), 0.05, this.getTicks());
+    }
+
+    @Override
+    public Breeder offspringWith(Brain brain, RandomGenerator random) {
+        return new SurvivingThing(outsideWorld, brain, 0.05, this.getTicks(), random);
     }
 }
 
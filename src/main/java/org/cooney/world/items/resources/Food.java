@@ -6,36 +6,38 @@ import org.cooney.world.items.WorldItem;
 import org.cooney.world.items.WorldItemIds;
 import org.cooney.world.utils.ChanceUtils;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
 public class Food implements WorldItem, Consumable {
 
     private static final double MAX_RESOURCE_COUNT = 10;
 
-    private int resourceCount = 30;
+    private final AtomicInteger resourceCount = new AtomicInteger(30);
 
     @Override
-    public void consume(Actor actor) {
-        if (resourceCount > 0) {
-            // resourceCount --;
-        } else {
-            System.out.println("FOOD SOURCE DEPLETED");
-        }
+    public boolean consume(Actor actor) {
+        return resourceCount.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0;
     }
 
     @Override
     public double getResourceCount() {
-        return resourceCount;
+        return resourceCount.get();
     }
 
     @Override
     public void regenerate() {
-        if (resourceCount < MAX_RESOURCE_COUNT) {
-            resourceCount += 5;
-        }
+        resourceCount.getAndUpdate(count -> count < MAX_RESOURCE_COUNT ? count + 5 : count);
+    }
+
+    @Override
+    public boolean shouldRegenerate(RandomGenerator random) {
+        return ChanceUtils.rollTheDice(random, 3);
     }
 
     @Override
-    public boolean shouldRegenerate() {
-        return ChanceUtils.rollTheDice(3);
+    public boolean needsRegeneration() {
+        return resourceCount.get() < MAX_RESOURCE_COUNT;
     }
 
     @Override
@@ -55,6 +57,6 @@ public class Food implements WorldItem, Consumable {
 
     @Override
     public String getColourCode() {
-        return resourceCount > 0 ? "GREEN" : "YELLOW";
+        return resourceCount.get() > 0 ? "GREEN" : "YELLOW";
     }
 }
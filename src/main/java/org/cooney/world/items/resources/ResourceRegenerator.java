@@ -0,0 +1,68 @@
+package org.cooney.world.items.resources;
+
+import org.cooney.metrics.MetricsRegistry;
+import org.cooney.metrics.SimulationMetrics;
+import org.cooney.world.items.Consumable;
+import org.cooney.world.utils.TimingWheel;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Brings depleted food and water back over time. Only resources that have been eaten or drunk below their full level
+ * are tracked, in a {@link TimingWheel}: each tick they're given their chance to {@link Consumable#regenerate()},
+ * and they stay scheduled until they're back to full. Full resources cost nothing, however big the map.
+ */
+public class ResourceRegenerator {
+    private static final int WHEEL_SLOTS = 64;
+
+    private final TimingWheel<Consumable> wheel = new TimingWheel<>(WHEEL_SLOTS);
+    private final Set<Consumable> pending = ConcurrentHashMap.newKeySet();
+    private final int delayInTicks;
+    private final RandomGenerator random;
+    private final MetricsRegistry metrics;
+
+    /**
+     * @param delayInTicks How many ticks apart each depleted resource gets its chance to regenerate.
+     * @param random The stream regeneration chances are rolled from. Only used by the ticking thread.
+     */
+    public ResourceRegenerator(int delayInTicks, RandomGenerator random, MetricsRegistry metrics) {
+        this.delayInTicks = delayInTicks;
+        this.random = random;
+        this.metrics = metrics;
+
+        metrics.gauge(SimulationMetrics.RESOURCES_PENDING_REGENERATION, pending::size);
+    }
+
+    /**
+     * Schedules the resource for regeneration if it's below full and not already scheduled. Safe to call from any
+     * actor.
+     */
+    public void depleted(Consumable consumable) {
+        if (consumable.needsRegeneration() && pending.add(consumable)) {
+            wheel.schedule(consumable, delayInTicks);
+        }
+    }
+
+    /**
+     * Moves regeneration on one tick. Must only be called from one thread at a time.
+     */
+    public void tick() {
+        for (Consumable consumable : wheel.advance()) {
+            if (consumable.shouldRegenerate(random)) {
+                consumable.regenerate();
+                metrics.counter(SimulationMetrics.RESOURCES_REGENERATED).increment();
+            }
+
+            // Take it out before checking, so an actor depleting it again in between reschedules it rather than
+            // finding it already pending.
+            pending.remove(consumable);
+            depleted(consumable);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+}
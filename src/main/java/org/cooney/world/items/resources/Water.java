@@ -6,30 +6,37 @@ import org.cooney.world.items.WorldItem;
 import org.cooney.world.items.WorldItemIds;
 import org.cooney.world.utils.ChanceUtils;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
 public class Water implements Consumable, WorldItem {
 
     private static final double MAX_RESOURCE_COUNT = 30;
-    private double resourceCount = 300;
+    private final AtomicInteger resourceCount = new AtomicInteger(300);
+
     @Override
-    public void consume(Actor actor) {
-        //this.resourceCount --;
+    public boolean consume(Actor actor) {
+        return resourceCount.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0;
     }
 
     @Override
     public double getResourceCount() {
-        return resourceCount;
+        return resourceCount.get();
     }
 
     @Override
     public void regenerate() {
-        if (resourceCount < MAX_RESOURCE_COUNT) {
-            resourceCount ++;
-        }
+        resourceCount.getAndUpdate(count -> count < MAX_RESOURCE_COUNT ? count + 1 : count);
+    }
+
+    @Override
+    public boolean shouldRegenerate(RandomGenerator random) {
+        return ChanceUtils.rollTheDice(random, 20);
     }
 
     @Override
-    public boolean shouldRegenerate() {
-        return ChanceUtils.rollTheDice(20);
+    public boolean needsRegeneration() {
+        return resourceCount.get() < MAX_RESOURCE_COUNT;
     }
 
     @Override
@@ -49,6 +56,6 @@ public class Water implements Consumable, WorldItem {
 
     @Override
     public String getColourCode() {
-        return resourceCount > 0 ? "BLUE": "GREY";
+        return resourceCount.get() > 0 ? "BLUE": "GREY";
     }
 }
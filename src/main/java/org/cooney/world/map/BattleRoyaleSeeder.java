@@ -5,27 +5,24 @@ import org.cooney.world.items.EmptyWorldItem;
 import org.cooney.world.items.WorldItem;
 import org.cooney.world.items.agents.FightingThing;
 
+import java.util.random.RandomGenerator.SplittableGenerator;
+
 public class BattleRoyaleSeeder implements Seeder {
     @Override
     public void seedWorld(WorldEngine worldEngine) {
-        for(int y = 0; y < worldEngine.getHeight(); y++) {
-            for(int x = 0; x < worldEngine.getWidth(); x++) {
-                WorldItem worldItem = randomlySelectFighter(worldEngine);
-                worldEngine.putItemAt(y, x, worldItem);
-            }
-        }
+        RowSeeding.seedRows(worldEngine, "seeder", (y, x, random) -> randomlySelectFighter(worldEngine, random));
     }
 
-    private WorldItem randomlySelectFighter(WorldEngine outsideWorld) {
+    private WorldItem randomlySelectFighter(WorldEngine outsideWorld, SplittableGenerator random) {
         double relativeLivingThingChance = 0.007/2;
 
-        double random = Math.random();
+        double roll = random.nextDouble();
 
-        if (random <= relativeLivingThingChance) {
-            int teamNumber = Math.random() > 0.5 ? 1 : 2;
-            return new FightingThing(outsideWorld, teamNumber);
+        if (roll <= relativeLivingThingChance) {
+            int teamNumber = random.nextDouble() > 0.5 ? 1 : 2;
+            return new FightingThing(outsideWorld, teamNumber, random.split());
         } else {
-            return new EmptyWorldItem();
+            return EmptyWorldItem.INSTANCE;
         }
     }
 
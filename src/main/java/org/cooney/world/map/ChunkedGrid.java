@@ -0,0 +1,151 @@
+package org.cooney.world.map;
+
+import org.cooney.world.items.EmptyWorldItem;
+import org.cooney.world.items.WorldItem;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The cells of a world, stored in square chunks which only exist once something other than empty space is put in
+ * them. Reading an empty cell - one in a chunk that was never needed, or one never written to - gives back a single
+ * shared empty cell, so a huge map that's mostly empty only pays for the chunks that have something in them.
+ *
+ * Chunks are created with a compare-and-set, so two actors writing to the same new chunk at once can't lose each
+ * other's writes. Writes to cells within a chunk aren't synchronised, just as with a plain array.
+ */
+public class ChunkedGrid {
+    public static final int CHUNK_SIZE = 64;
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Shared by every empty cell. Never change its world item.
+     */
+    private static final GridItem EMPTY_CELL = new GridItem(EmptyWorldItem.INSTANCE);
+
+    private final int height;
+    private final int width;
+    private final int chunksAcross;
+    private final AtomicReferenceArray<GridItem[]> chunks;
+
+    public ChunkedGrid(int height, int width) {
+        this.height = height;
+        this.width = width;
+        this.chunksAcross = (width + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+        int chunksDown = (height + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+        this.chunks = new AtomicReferenceArray<>(chunksDown * chunksAcross);
+    }
+
+    public GridItem get(int y, int x) {
+        GridItem[] chunk = chunks.get(chunkIndex(y, x));
+
+        if (chunk == null) {
+            return EMPTY_CELL;
+        }
+
+        GridItem cell = chunk[cellIndex(y, x)];
+        return cell == null ? EMPTY_CELL : cell;
+    }
+
+    public void put(int y, int x, WorldItem worldItem) {
+        int chunkIndex = chunkIndex(y, x);
+        GridItem[] chunk = chunks.get(chunkIndex);
+        boolean empty = worldItem instanceof EmptyWorldItem;
+
+        if (chunk == null) {
+            if (empty) {
+                // Already empty - no need to make a chunk just to say so.
+                return;
+            }
+
+            chunks.compareAndSet(chunkIndex, null, new GridItem[CHUNK_SIZE * CHUNK_SIZE]);
+            chunk = chunks.get(chunkIndex);
+        }
+
+        chunk[cellIndex(y, x)] = empty ? null : new GridItem(worldItem);
+    }
+
+    /**
+     * Calls the visitor for every cell that isn't empty, chunk by chunk.
+     */
+    public void forEachOccupied(CellVisitor visitor) {
+        for (int chunkIndex = 0; chunkIndex < chunks.length(); chunkIndex++) {
+            GridItem[] chunk = chunks.get(chunkIndex);
+
+            if (chunk == null) {
+                continue;
+            }
+
+            int top = (chunkIndex / chunksAcross) << CHUNK_SHIFT;
+            int left = (chunkIndex % chunksAcross) << CHUNK_SHIFT;
+
+            for (int cellIndex = 0; cellIndex < chunk.length; cellIndex++) {
+                if (chunk[cellIndex] != null) {
+                    visitor.visit(top + (cellIndex >> CHUNK_SHIFT), left + (cellIndex & CHUNK_MASK), chunk[cellIndex]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops chunks that have emptied out since they were created. Only safe while nothing else is reading or writing
+     * the grid, e.g. between ticks when the world is stepped a tick at a time.
+     * @return How many chunks were dropped.
+     */
+    public int compact() {
+        int dropped = 0;
+
+        for (int chunkIndex = 0; chunkIndex < chunks.length(); chunkIndex++) {
+            GridItem[] chunk = chunks.get(chunkIndex);
+
+            if (chunk != null && isEmpty(chunk)) {
+                chunks.set(chunkIndex, null);
+                dropped++;
+            }
+        }
+
+        return dropped;
+    }
+
+    private static boolean isEmpty(GridItem[] chunk) {
+        for (GridItem cell : chunk) {
+            if (cell != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getAllocatedChunkCount() {
+        int allocated = 0;
+
+        for (int chunkIndex = 0; chunkIndex < chunks.length(); chunkIndex++) {
+            if (chunks.get(chunkIndex) != null) {
+                allocated++;
+            }
+        }
+
+        return allocated;
+    }
+
+    private int chunkIndex(int y, int x) {
+        return (y >> CHUNK_SHIFT) * chunksAcross + (x >> CHUNK_SHIFT);
+    }
+
+    private static int cellIndex(int y, int x) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    @FunctionalInterface
+    public interface CellVisitor {
+        void visit(int y, int x, GridItem gridItem);
+    }
+}
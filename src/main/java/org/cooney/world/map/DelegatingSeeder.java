@@ -0,0 +1,76 @@
+package org.cooney.world.map;
+
+import org.cooney.evolution.EvolutionSettings;
+import org.cooney.matrix.Activation;
+import org.cooney.neural.Brain;
+import org.cooney.neural.BrainKind;
+import org.cooney.neural.NeuralNetwork;
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.agents.AgentParameters;
+
+/**
+ * Passes everything through to another seeder. Extend it to change one thing about how a world is seeded and keep
+ * the rest, e.g. the agent parameters or the brain they're given.
+ */
+public class DelegatingSeeder implements Seeder {
+    private final Seeder seeder;
+
+    public DelegatingSeeder(Seeder seeder) {
+        this.seeder = seeder;
+    }
+
+    @Override
+    public void seedWorld(WorldEngine worldEngine) {
+        seeder.seedWorld(worldEngine);
+    }
+
+    @Override
+    public int getPopulationCap() {
+        return seeder.getPopulationCap();
+    }
+
+    @Override
+    public int getReproduceRateInMillis() {
+        return seeder.getReproduceRateInMillis();
+    }
+
+    @Override
+    public int getNewGenerationCount() {
+        return seeder.getNewGenerationCount();
+    }
+
+    @Override
+    public BrainKind getBrainKind() {
+        return seeder.getBrainKind();
+    }
+
+    @Override
+    public Activation getActivation() {
+        return seeder.getActivation();
+    }
+
+    @Override
+    public int getPredictionCacheSize() {
+        return seeder.getPredictionCacheSize();
+    }
+
+    @Override
+    public NeuralNetwork getPretrainedBrain() {
+        return seeder.getPretrainedBrain();
+    }
+
+    @Override
+    public Brain getSharedBrain() {
+        return seeder.getSharedBrain();
+    }
+
+    @Override
+    public AgentParameters getAgentParameters(AgentParameters defaults) {
+        return seeder.getAgentParameters(defaults);
+    }
+
+    @Override
+    public EvolutionSettings getEvolutionSettings() {
+        return seeder.getEvolutionSettings();
+    }
+}
@@ -6,32 +6,29 @@ import org.cooney.world.items.WorldItem;
 import org.cooney.world.items.agents.SurvivingThing;
 import org.cooney.world.items.resources.Food;
 
+import java.util.random.RandomGenerator.SplittableGenerator;
+
 public class FoodOnlySeeder implements Seeder {
     private static final double LIVING_THING_CHANCE = 0.005;
     private static final double FOOD_CHANCE = 0.02;
 
     @Override
     public void seedWorld(WorldEngine worldEngine) {
-        for(int y = 0; y < worldEngine.getHeight(); y++) {
-            for(int x = 0; x < worldEngine.getWidth(); x++) {
-                WorldItem worldItem = decideWorldItemByChance(worldEngine);
-                worldEngine.putItemAt(y, x, worldItem);
-            }
-        }
+        RowSeeding.seedRows(worldEngine, "seeder", (y, x, random) -> decideWorldItemByChance(worldEngine, random));
     }
 
-    protected WorldItem decideWorldItemByChance(WorldEngine worldEngine) {
+    protected WorldItem decideWorldItemByChance(WorldEngine worldEngine, SplittableGenerator random) {
         double relativeLivingThingChance = LIVING_THING_CHANCE / 3;
         double relativeFoodChance = FOOD_CHANCE / 3;
 
-        double random = Math.random();
+        double roll = random.nextDouble();
 
-        if (random <= relativeLivingThingChance) {
-            return new SurvivingThing(worldEngine);
-        } else if (random <= (relativeLivingThingChance + relativeFoodChance)) {
+        if (roll <= relativeLivingThingChance) {
+            return new SurvivingThing(worldEngine, random.split());
+        } else if (roll <= (relativeLivingThingChance + relativeFoodChance)) {
             return new Food();
         } else {
-            return new EmptyWorldItem();
+            return EmptyWorldItem.INSTANCE;
         }
     }
 
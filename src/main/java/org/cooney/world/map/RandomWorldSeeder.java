@@ -7,6 +7,8 @@ import org.cooney.world.items.agents.SurvivingThing;
 import org.cooney.world.items.resources.Food;
 import org.cooney.world.items.resources.Water;
 
+import java.util.random.RandomGenerator.SplittableGenerator;
+
 public class RandomWorldSeeder implements Seeder {
 
     private static final double LIVING_THING_CHANCE = 0.005;
@@ -15,30 +17,24 @@ public class RandomWorldSeeder implements Seeder {
 
     @Override
     public void seedWorld(WorldEngine worldEngine) {
-
-        for(int y = 0; y < worldEngine.getHeight(); y++) {
-            for(int x = 0; x < worldEngine.getWidth(); x++) {
-                WorldItem worldItem = decideWorldItemByChance(worldEngine);
-                worldEngine.putItemAt(y, x, worldItem);
-            }
-        }
+        RowSeeding.seedRows(worldEngine, "seeder", (y, x, random) -> decideWorldItemByChance(worldEngine, random));
     }
 
-    protected WorldItem decideWorldItemByChance(WorldEngine worldEngine) {
+    protected WorldItem decideWorldItemByChance(WorldEngine worldEngine, SplittableGenerator random) {
         double relativeLivingThingChance = LIVING_THING_CHANCE / 4;
         double relativeFoodChance = FOOD_CHANCE / 4;
         double relativeWaterChance = WATER_CHANCE / 4;
 
-        double random = Math.random();
+        double roll = random.nextDouble();
 
-        if (random <= relativeLivingThingChance) {
-            return new SurvivingThing(worldEngine);
-        } else if (random <= (relativeLivingThingChance + relativeFoodChance)) {
+        if (roll <= relativeLivingThingChance) {
+            return new SurvivingThing(worldEngine, random.split());
+        } else if (roll <= (relativeLivingThingChance + relativeFoodChance)) {
             return new Food();
-        } else if (random <= (relativeLivingThingChance + relativeFoodChance + relativeWaterChance)) {
+        } else if (roll <= (relativeLivingThingChance + relativeFoodChance + relativeWaterChance)) {
             return new Water();
         } else {
-            return new EmptyWorldItem();
+            return EmptyWorldItem.INSTANCE;
         }
     }
 
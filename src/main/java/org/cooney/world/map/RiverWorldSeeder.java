@@ -7,30 +7,24 @@ import org.cooney.world.items.agents.SurvivingThing;
 import org.cooney.world.items.resources.Food;
 import org.cooney.world.items.resources.Water;
 
+import java.util.random.RandomGenerator.SplittableGenerator;
+
 public class RiverWorldSeeder implements Seeder {
 
     private static final int RIVER_WIDTH = 5;
 
     @Override
     public void seedWorld(WorldEngine worldEngine) {
-
         int riverStartIndex = findRiverStartIndex(worldEngine.getWidth());
         int riverEndIndex = riverStartIndex + RIVER_WIDTH;
 
-        for(int y = 0; y < worldEngine.getHeight(); y++) {
-            for(int x = 0; x < worldEngine.getWidth(); x++) {
-
-                WorldItem worldItem;
-
-                if (x >= riverStartIndex && x <= riverEndIndex) {
-                    worldItem = new Water();
-                } else {
-                    worldItem = randomlySelectWorldItem(worldEngine);
-                }
-
-                worldEngine.putItemAt(y, x, worldItem);
+        RowSeeding.seedRows(worldEngine, "seeder", (y, x, random) -> {
+            if (x >= riverStartIndex && x <= riverEndIndex) {
+                return new Water();
             }
-        }
+
+            return randomlySelectWorldItem(worldEngine, random);
+        });
     }
 
     public int getReproduceRateInMillis() {
@@ -47,18 +41,18 @@ public class RiverWorldSeeder implements Seeder {
         return 30;
     }
 
-    private WorldItem randomlySelectWorldItem(WorldEngine worldEngine) {
+    private WorldItem randomlySelectWorldItem(WorldEngine worldEngine, SplittableGenerator random) {
         double relativeLivingThingChance = 0.01/3;
         double relativeFoodChance = 0.015/3;
 
-        double random = Math.random();
+        double roll = random.nextDouble();
 
-        if (random <= relativeLivingThingChance) {
-            return new SurvivingThing(worldEngine);
-        } else if (random <= (relativeLivingThingChance + relativeFoodChance)) {
+        if (roll <= relativeLivingThingChance) {
+            return new SurvivingThing(worldEngine, random.split());
+        } else if (roll <= (relativeLivingThingChance + relativeFoodChance)) {
             return new Food();
         } else {
-            return new EmptyWorldItem();
+            return EmptyWorldItem.INSTANCE;
         }
     }
 
@@ -0,0 +1,39 @@
+package org.cooney.world.map;
+
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.WorldItem;
+
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Seeds a world a row at a time, with the rows spread across the common fork join pool. Each row gets its own random
+ * stream from the world seed and the row number, so the world comes out the same whichever thread seeds which row.
+ * Building the brains of the agents placed along the way is by far the slowest part, and that gets spread across the
+ * pool with the rows.
+ */
+public final class RowSeeding {
+    private RowSeeding() {
+    }
+
+    public static void seedRows(WorldEngine worldEngine, String subsystemName, CellChooser cellChooser) {
+        int width = worldEngine.getWidth();
+
+        IntStream.range(0, worldEngine.getHeight()).parallel().forEach(y -> {
+            SplittableGenerator rowRandom = worldEngine.getRandomSource().forSubsystem(subsystemName, y);
+
+            for(int x = 0; x < width; x++) {
+                worldEngine.putItemAt(y, x, cellChooser.choose(y, x, rowRandom));
+            }
+        });
+    }
+
+    @FunctionalInterface
+    public interface CellChooser {
+        /**
+         * Decides what goes in a cell.
+         * @param random The row's stream. Agents should be given their own stream split off it.
+         */
+        WorldItem choose(int y, int x, SplittableGenerator random);
+    }
+}
@@ -1,6 +1,13 @@
 package org.cooney.world.map;
 
+import org.cooney.evolution.EvolutionSettings;
+import org.cooney.matrix.Activation;
+import org.cooney.neural.Brain;
+import org.cooney.neural.BrainKind;
+import org.cooney.neural.CachingBrain;
+import org.cooney.neural.NeuralNetwork;
 import org.cooney.world.WorldEngine;
+import org.cooney.world.items.agents.AgentParameters;
 
 public interface Seeder {
     public void seedWorld(WorldEngine worldEngine);
@@ -8,4 +15,58 @@ public interface Seeder {
     public int getReproduceRateInMillis();
 
     public int getNewGenerationCount();
+
+    /**
+     * The kind of brain the agents in this world are given. Double precision unless a seeder says otherwise.
+     */
+    public default BrainKind getBrainKind() {
+        return BrainKind.DOUBLE;
+    }
+
+    /**
+     * How the agents' brains work out their sigmoid. Exact unless a seeder trades a little accuracy for speed.
+     */
+    public default Activation getActivation() {
+        return Activation.EXACT;
+    }
+
+    /**
+     * How many recent predictions each agent's brain should remember (see {@link CachingBrain}), or 0 for none. None
+     * by default.
+     */
+    public default int getPredictionCacheSize() {
+        return 0;
+    }
+
+    /**
+     * A network, e.g. one trained offline on recorded trajectories, that new agents should start out with instead of
+     * random weights. Only used for agents whose inputs and outputs match it. None by default.
+     */
+    public default NeuralNetwork getPretrainedBrain() {
+        return null;
+    }
+
+    /**
+     * One brain for every agent in the world to think with, instead of each growing its own. Agents all train the
+     * same brain too, so it has to cope with being trained from whichever threads step the world. None by default.
+     */
+    public default Brain getSharedBrain() {
+        return null;
+    }
+
+    /**
+     * The parameters agents in this world learn with.
+     * @param defaults The defaults for the kind of agent being built.
+     * @return The defaults, unless the seeder wants something else.
+     */
+    public default AgentParameters getAgentParameters(AgentParameters defaults) {
+        return defaults;
+    }
+
+    /**
+     * How each new generation is bred from the fittest of the current population.
+     */
+    public default EvolutionSettings getEvolutionSettings() {
+        return EvolutionSettings.DEFAULT;
+    }
 }
@@ -7,20 +7,18 @@ import org.cooney.world.items.agents.SurvivingThing;
 import org.cooney.world.items.resources.Food;
 import org.cooney.world.items.resources.Water;
 
+import java.util.random.RandomGenerator;
+
 public class SoloActorSeeder implements Seeder {
 
     @Override
     public void seedWorld(WorldEngine worldEngine) {
+        RowSeeding.seedRows(worldEngine, "seeder", (y, x, random) -> decideWorldItemByChance(worldEngine, random));
 
-        for(int y = 0; y < worldEngine.getHeight(); y++) {
-            for(int x = 0; x < worldEngine.getWidth(); x++) {
-                WorldItem worldItem = decideWorldItemByChance(worldEngine);
-                worldEngine.putItemAt(y, x, worldItem);
-            }
-        }
+        RandomGenerator random = worldEngine.getRandomSource().forSubsystem("seeder");
 
-        int xRand = (int) (Math.random() * worldEngine.getWidth());
-        int yRand = (int) (Math.random() * worldEngine.getHeight());
+        int xRand = random.nextInt(worldEngine.getWidth());
+        int yRand = random.nextInt(worldEngine.getHeight());
 
         worldEngine.putItemAt(yRand, xRand, new SurvivingThing(worldEngine));
     }
@@ -40,18 +38,18 @@ public class SoloActorSeeder implements Seeder {
         return 1;
     }
 
-    protected WorldItem decideWorldItemByChance(WorldEngine worldEngine) {
+    protected WorldItem decideWorldItemByChance(WorldEngine worldEngine, RandomGenerator random) {
         double relativeFoodChance = 0.05 / 3;
         double relativeWaterChance = 0.03 / 3;
 
-        double random = Math.random();
+        double roll = random.nextDouble();
 
-        if (random <= (relativeFoodChance)) {
+        if (roll <= (relativeFoodChance)) {
             return new Food();
-        } else if (random <= (relativeFoodChance + relativeWaterChance)) {
+        } else if (roll <= (relativeFoodChance + relativeWaterChance)) {
             return new Water();
         } else {
-            return new EmptyWorldItem();
+            return EmptyWorldItem.INSTANCE;
         }
     }
 }
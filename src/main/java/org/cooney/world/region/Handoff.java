@@ -0,0 +1,9 @@
+package org.cooney.world.region;
+
+import org.cooney.world.items.Actor;
+
+/**
+ * An actor on its way into a region, and the cell it should land on.
+ */
+record Handoff(Actor actor, int y, int x) {
+}
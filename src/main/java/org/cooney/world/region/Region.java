@@ -0,0 +1,193 @@
+package org.cooney.world.region;
+
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.Actor;
+import org.cooney.world.items.EmptyWorldItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A rectangle of the grid and the actors standing in it. Only the region's own worker steps its actors or writes to
+ * its cells. Cells just outside the rectangle (the halo an actor can see into, up to six cells away) are read but
+ * never written. Those reads are live and unsynchronised, so perception near a border may see a neighbour's cells
+ * part way through the neighbour's step.
+ *
+ * Actors walking over a border aren't written into the neighbour's cells, nor is the cell they're walking into
+ * looked at. They're queued on the neighbour's inbox for this boundary instead, and the neighbour places them itself
+ * at the start of its next tick. Each inbox only ever has one writer and one reader.
+ */
+public class Region {
+    private final int top;
+    private final int left;
+    private final int bottom;
+    private final int right;
+
+    private final List<Actor> actors = new ArrayList<>();
+    private final Map<Region, Queue<Handoff>> inboxes = new ConcurrentHashMap<>();
+    private final Queue<Handoff> spawns = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Arrivals that found no room last tick, tried again before anybody new. Only touched by this region's worker.
+     */
+    private final Queue<Handoff> waiting = new ArrayDeque<>();
+
+    private Actor departed;
+
+    Region(int top, int left, int bottom, int right) {
+        this.top = top;
+        this.left = left;
+        this.bottom = bottom;
+        this.right = right;
+    }
+
+    void addNeighbour(Region neighbour) {
+        if (neighbour != this) {
+            inboxFrom(neighbour);
+        }
+    }
+
+    Queue<Handoff> inboxFrom(Region neighbour) {
+        return inboxes.computeIfAbsent(neighbour, region -> new ConcurrentLinkedQueue<>());
+    }
+
+    void adopt(Actor actor) {
+        actors.add(actor);
+    }
+
+    void spawn(Handoff handoff) {
+        spawns.add(handoff);
+    }
+
+    /**
+     * Marks the actor being stepped as having left this region, so it's dropped once its step finishes.
+     */
+    void depart(Actor actor) {
+        departed = actor;
+    }
+
+    /**
+     * Places every actor that has been handed over from a neighbour, or newly born here, since the last tick.
+     * @return The number of actors that arrived.
+     */
+    int drain(WorldEngine world) {
+        Queue<Handoff> retries = new ArrayDeque<>(waiting);
+        waiting.clear();
+
+        int arrivals = drain(world, retries);
+
+        for (Queue<Handoff> inbox : inboxes.values()) {
+            arrivals += drain(world, inbox);
+        }
+
+        return arrivals + drain(world, spawns);
+    }
+
+    private int drain(WorldEngine world, Queue<Handoff> queue) {
+        int arrivals = 0;
+        Handoff handoff;
+
+        while ((handoff = queue.poll()) != null) {
+            if (!place(world, handoff)) {
+                waiting.add(handoff);
+                continue;
+            }
+
+            if (handoff.actor().isAlive()) {
+                actors.add(handoff.actor());
+            } else {
+                // It died on the way over. Leave the corpse where it fell.
+                world.cleanUpCorpse(handoff.actor());
+            }
+            arrivals++;
+        }
+
+        return arrivals;
+    }
+
+    /**
+     * Places the actor on the empty cell nearest to where it stepped, along the row or the column it stepped into.
+     * A move within the region swaps whatever the actor steps on into the cell it left, but that cell belongs to
+     * the region it came from, so the actor steps around other actors and food and water rather than writing over
+     * them - as it would coming over a shard border.
+     * @return false if there was no room along either, so the actor has to wait for a tick.
+     */
+    private boolean place(WorldEngine world, Handoff handoff) {
+        int y = handoff.y();
+        int x = handoff.x();
+
+        for (int offset = 0; offset < Math.max(right - left, bottom - top); offset++) {
+            for (int column : new int[]{x + offset, x - offset}) {
+                if (column >= left && column < right && isEmpty(world, y, column)) {
+                    world.placeActor(handoff.actor(), y, column);
+                    return true;
+                }
+            }
+
+            for (int row : new int[]{y + offset, y - offset}) {
+                if (row >= top && row < bottom && isEmpty(world, row, x)) {
+                    world.placeActor(handoff.actor(), row, x);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isEmpty(WorldEngine world, int y, int x) {
+        return world.getItemAt(y, x).getWorldItem() instanceof EmptyWorldItem;
+    }
+
+    /**
+     * Steps every actor in the region once, dropping the ones that died or walked out of it.
+     */
+    void stepActors(WorldEngine world) {
+        int kept = 0;
+
+        for (int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
+            departed = null;
+
+            actor.step();
+
+            if (!actor.isAlive()) {
+                world.cleanUpCorpse(actor);
+            } else if (departed != actor) {
+                actors.set(kept++, actor);
+            }
+        }
+
+        actors.subList(kept, actors.size()).clear();
+    }
+
+    boolean contains(int y, int x) {
+        return y >= top && y < bottom && x >= left && x < right;
+    }
+
+    public List<Actor> getActors() {
+        return Collections.unmodifiableList(actors);
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getBottom() {
+        return bottom;
+    }
+
+    public int getRight() {
+        return right;
+    }
+}
@@ -0,0 +1,175 @@
+package org.cooney.world.region;
+
+import org.cooney.metrics.MetricsRegistry;
+import org.cooney.metrics.SimulationMetrics;
+import org.cooney.world.BorderCrossing;
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.Actor;
+import org.cooney.world.items.EmptyWorldItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+
+/**
+ * Steps a world with one worker per rectangular region instead of one thread per actor.
+ *
+ * Every tick each worker first places the actors handed to it by its neighbours, waits for the others to do the same,
+ * then steps its own actors, and waits again. Actors inside a region never touch another region's cells, so the
+ * common case - actors spread out over a large map - needs no locking at all.
+ */
+public final class RegionScheduler implements BorderCrossing {
+    private final WorldEngine world;
+    private final MetricsRegistry metrics;
+    private final Region[][] regions;
+    private final int rowsPerRegion;
+    private final int columnsPerRegion;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private Phaser phaser;
+    private volatile boolean running;
+
+    /**
+     * Splits the world into roughly equal regions and hands each actor already in the world to the region it's
+     * standing in. Worlds build their scheduler through {@link WorldEngine#partition(int, int)}, which also tells the
+     * world to route border crossings through it.
+     * @param regionsDown How many regions to split the height into.
+     * @param regionsAcross How many regions to split the width into.
+     */
+    public RegionScheduler(WorldEngine world, int regionsDown, int regionsAcross) {
+        if (regionsDown < 1 || regionsDown > world.getHeight() || regionsAcross < 1 || regionsAcross > world.getWidth()) {
+            throw new IllegalArgumentException(String.format("Can't split a %dx%d world into %dx%d regions", world.getHeight(), world.getWidth(), regionsDown, regionsAcross));
+        }
+
+        this.world = world;
+        this.metrics = world.getMetrics();
+        this.rowsPerRegion = ceilingDivide(world.getHeight(), regionsDown);
+        this.columnsPerRegion = ceilingDivide(world.getWidth(), regionsAcross);
+
+        int down = ceilingDivide(world.getHeight(), rowsPerRegion);
+        int across = ceilingDivide(world.getWidth(), columnsPerRegion);
+        this.regions = new Region[down][across];
+
+        for (int r = 0; r < down; r++) {
+            for (int c = 0; c < across; c++) {
+                int top = r * rowsPerRegion;
+                int left = c * columnsPerRegion;
+                regions[r][c] = new Region(top, left, Math.min(top + rowsPerRegion, world.getHeight()), Math.min(left + columnsPerRegion, world.getWidth()));
+            }
+        }
+
+        // Actors only ever move one cell up, down, left or right, and the world wraps, so these are the only borders
+        // anyone can cross.
+        for (int r = 0; r < down; r++) {
+            for (int c = 0; c < across; c++) {
+                Region region = regions[r][c];
+                regions[Math.floorMod(r - 1, down)][c].addNeighbour(region);
+                regions[Math.floorMod(r + 1, down)][c].addNeighbour(region);
+                regions[r][Math.floorMod(c - 1, across)].addNeighbour(region);
+                regions[r][Math.floorMod(c + 1, across)].addNeighbour(region);
+            }
+        }
+
+        for (Actor actor : world.getActorsInWorld()) {
+            int[] coords = world.getActorCoords(actor);
+            regionAt(coords[0], coords[1]).adopt(actor);
+        }
+    }
+
+    private static int ceilingDivide(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    public Region regionAt(int y, int x) {
+        return regions[y / rowsPerRegion][x / columnsPerRegion];
+    }
+
+    @Override
+    public boolean crossesBorder(int fromY, int fromX, int toY, int toX) {
+        return !regionAt(fromY, fromX).contains(toY, toX);
+    }
+
+    /**
+     * Passes an actor that is walking out of its region over to the region it's walking into. Must be called from
+     * the worker stepping the actor.
+     */
+    @Override
+    public void handOff(Actor actor, int fromY, int fromX, int toY, int toX) {
+        Region from = regionAt(fromY, fromX);
+        Region to = regionAt(toY, toX);
+
+        // Only our own cell is touched. The destination belongs to the other region's worker, which may be writing it
+        // right now, so it's only looked at once that region drains the handoff (see Region#drain).
+        world.putItemAt(fromY, fromX, EmptyWorldItem.INSTANCE);
+
+        from.depart(actor);
+        to.inboxFrom(from).add(new Handoff(actor, toY, toX));
+        metrics.counter(SimulationMetrics.WORLD_REGION_HANDOFFS).increment();
+    }
+
+    /**
+     * Queues a newly born actor with the region it's been placed in. Safe to call from any thread.
+     */
+    public void spawn(Actor actor, int y, int x) {
+        regionAt(y, x).spawn(new Handoff(actor, y, x));
+    }
+
+    public void start() {
+        List<Region> allRegions = getRegions();
+        running = true;
+        phaser = new Phaser(allRegions.size());
+
+        for (int i = 0; i < allRegions.size(); i++) {
+            Region region = allRegions.get(i);
+            Thread worker = new Thread(() -> runRegion(region), "region-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    private void runRegion(Region region) {
+        try {
+            while (running) {
+                long start = System.nanoTime();
+                region.drain(world);
+                phaser.arriveAndAwaitAdvance();
+                region.stepActors(world);
+                phaser.arriveAndAwaitAdvance();
+                metrics.recordSince(SimulationMetrics.WORLD_REGION_TICK, start);
+            }
+        } finally {
+            // Let the other workers carry on without waiting for this one.
+            phaser.arriveAndDeregister();
+        }
+    }
+
+    /**
+     * Runs one tick on the calling thread, one region after another. The world is consistent when it returns: every
+     * actor that crossed a border has been placed in its new region.
+     */
+    public void stepOnce() {
+        List<Region> allRegions = getRegions();
+
+        for (Region region : allRegions) {
+            region.stepActors(world);
+        }
+
+        for (Region region : allRegions) {
+            region.drain(world);
+        }
+    }
+
+    public List<Region> getRegions() {
+        List<Region> allRegions = new ArrayList<>();
+
+        for (Region[] row : regions) {
+            allRegions.addAll(List.of(row));
+        }
+
+        return allRegions;
+    }
+}
@@ -0,0 +1,74 @@
+package org.cooney.world.shard;
+
+import org.cooney.neural.BrainSerializer;
+import org.cooney.neural.Brain;
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.agents.FightingThing;
+import org.cooney.world.items.agents.LivingEntity;
+import org.cooney.world.items.agents.SurvivingThing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Turns an actor into bytes and back, so it can move to a world in another process. The actor keeps its brain (in
+ * the {@link BrainSerializer} format), its memories and its stats, but gets a new id and random stream in the world
+ * it arrives in.
+ *
+ * <pre>
+ * byte   type (1 = surviving thing, 2 = fighting thing)
+ * int    team number (fighting things only)
+ * int    ticks
+ * double exploration rate
+ * ...    brain
+ * ...    {@link LivingEntity#writeState} state
+ * </pre>
+ */
+public class ActorCodec {
+    public static final byte SURVIVING_THING = 1;
+    public static final byte FIGHTING_THING = 2;
+
+    public static byte[] encode(LivingEntity actor) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        if (actor instanceof SurvivingThing) {
+            out.writeByte(SURVIVING_THING);
+        } else if (actor instanceof FightingThing fightingThing) {
+            out.writeByte(FIGHTING_THING);
+            out.writeInt(fightingThing.getTeamNumber());
+        } else {
+            throw new IllegalArgumentException("Don't know how to encode an actor of type " + actor.getClass().getSimpleName());
+        }
+
+        out.writeInt(actor.getTicks());
+        out.writeDouble(actor.getExplorationRate());
+        BrainSerializer.write(actor.getBrain(), out);
+        actor.writeState(out);
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    public static LivingEntity decode(byte[] encoded, WorldEngine world) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+
+        byte type = in.readByte();
+        int teamNumber = type == FIGHTING_THING ? in.readInt() : 0;
+        int ticks = in.readInt();
+        double explorationRate = in.readDouble();
+        Brain brain = BrainSerializer.read(in);
+
+        LivingEntity actor = switch (type) {
+            case SURVIVING_THING -> new SurvivingThing(world, brain, explorationRate, ticks);
+            case FIGHTING_THING -> new FightingThing(world, brain, explorationRate, ticks, teamNumber);
+            default -> throw new IOException("Unknown actor type " + type);
+        };
+
+        actor.readState(in);
+        return actor;
+    }
+}
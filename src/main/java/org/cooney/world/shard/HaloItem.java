@@ -0,0 +1,36 @@
+package org.cooney.world.shard;
+
+import org.cooney.world.items.WorldItem;
+import org.cooney.world.items.WorldItemIds;
+
+/**
+ * A read-only copy of a cell owned by a neighbouring shard. Only the id crosses the wire, which is all an actor's
+ * sight needs.
+ */
+public class HaloItem implements WorldItem {
+    private final double worldItemId;
+
+    public HaloItem(double worldItemId) {
+        this.worldItemId = worldItemId;
+    }
+
+    @Override
+    public String getCharacterCode() {
+        return worldItemId == WorldItemIds.EMPTY ? " " : "#";
+    }
+
+    @Override
+    public double getWorldItemId() {
+        return worldItemId;
+    }
+
+    @Override
+    public boolean getIsMovingWorldItem() {
+        return false;
+    }
+
+    @Override
+    public String getColourCode() {
+        return null;
+    }
+}
@@ -0,0 +1,76 @@
+package org.cooney.world.shard;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What one shard sends a neighbour each tick: the rows along the shared border, and the actors walking over it.
+ *
+ * <pre>
+ * int    magic ("DQSF")
+ * int    tick
+ * short  halo row count, int width
+ * byte[] halo cells, row by row, as world item ids
+ * int    migrant count
+ * then per migrant: int x, int length, byte[] {@link ActorCodec} encoded actor
+ * </pre>
+ */
+public record ShardFrame(int tick, byte[][] haloRows, List<Migrant> migrants) {
+    public static final int MAGIC = 0x44515346;
+
+    /**
+     * An encoded actor, and the column it crossed the border in.
+     */
+    public record Migrant(int x, byte[] encodedActor) {
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(tick);
+
+        int width = haloRows.length == 0 ? 0 : haloRows[0].length;
+        out.writeShort(haloRows.length);
+        out.writeInt(width);
+        for (byte[] row : haloRows) {
+            out.write(row);
+        }
+
+        out.writeInt(migrants.size());
+        for (Migrant migrant : migrants) {
+            out.writeInt(migrant.x());
+            out.writeInt(migrant.encodedActor().length);
+            out.write(migrant.encodedActor());
+        }
+
+        out.flush();
+    }
+
+    public static ShardFrame read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a shard frame - bad magic number");
+        }
+
+        int tick = in.readInt();
+
+        byte[][] haloRows = new byte[in.readShort()][];
+        int width = in.readInt();
+        for (int y = 0; y < haloRows.length; y++) {
+            haloRows[y] = new byte[width];
+            in.readFully(haloRows[y]);
+        }
+
+        int migrantCount = in.readInt();
+        List<Migrant> migrants = new ArrayList<>(migrantCount);
+        for (int i = 0; i < migrantCount; i++) {
+            int x = in.readInt();
+            byte[] encodedActor = new byte[in.readInt()];
+            in.readFully(encodedActor);
+            migrants.add(new Migrant(x, encodedActor));
+        }
+
+        return new ShardFrame(tick, haloRows, migrants);
+    }
+}
@@ -0,0 +1,82 @@
+package org.cooney.world.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A connection to a neighbouring shard, over TCP or a Unix domain socket depending on the address.
+ */
+public class ShardLink implements Closeable {
+    private static final int BUFFER_SIZE_IN_BYTES = 64 * 1024;
+    private static final int CONNECT_ATTEMPTS = 100;
+    private static final long CONNECT_RETRY_MILLIS = 100;
+
+    private final SocketChannel channel;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    private ShardLink(SocketChannel channel) {
+        this.channel = channel;
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE_IN_BYTES));
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE_IN_BYTES));
+    }
+
+    static ProtocolFamily familyOf(SocketAddress address) {
+        return address instanceof UnixDomainSocketAddress ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET;
+    }
+
+    /**
+     * Connects to a neighbour, retrying for a while in case it hasn't started listening yet.
+     */
+    public static ShardLink connect(SocketAddress address) throws IOException {
+        IOException lastFailure = null;
+
+        for (int attempt = 0; attempt < CONNECT_ATTEMPTS; attempt++) {
+            SocketChannel channel = SocketChannel.open(familyOf(address));
+            try {
+                channel.connect(address);
+                return new ShardLink(channel);
+            } catch (IOException e) {
+                channel.close();
+                lastFailure = e;
+            }
+
+            try {
+                Thread.sleep(CONNECT_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while connecting to " + address, e);
+            }
+        }
+
+        throw new IOException("Couldn't connect to shard at " + address, lastFailure);
+    }
+
+    public static ShardLink accept(ServerSocketChannel server) throws IOException {
+        return new ShardLink(server.accept());
+    }
+
+    public void send(ShardFrame frame) throws IOException {
+        frame.write(out);
+    }
+
+    public ShardFrame receive() throws IOException {
+        return ShardFrame.read(in);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
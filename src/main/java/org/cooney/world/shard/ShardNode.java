@@ -0,0 +1,360 @@
+package org.cooney.world.shard;
+
+import org.cooney.world.BorderCrossing;
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.Actor;
+import org.cooney.world.items.EmptyWorldItem;
+import org.cooney.world.items.agents.LivingEntity;
+import org.cooney.world.map.GridItem;
+import org.cooney.world.map.RandomWorldSeeder;
+import org.cooney.world.utils.RandomSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * One process's share of a world too big for one heap. The logical world is cut into bands of rows, one per shard,
+ * and the shards form a ring: each is connected to the shard above it and the shard below it (the world wraps, so the
+ * last shard's neighbour below is the first).
+ *
+ * Shards step in lockstep. At the start of each tick a shard sends each neighbour the {@link #HALO_ROWS} rows along
+ * their shared border, which become the neighbour's read-only {@link WorldEngine#setHalo halo} for sight lines, along
+ * with any actors that walked over that border last tick. Then it steps its own actors. Interactions at arm's length
+ * (eating, fighting) don't reach over the border.
+ *
+ * To try it locally, start one process per shard, e.g. for two shards over loopback TCP:
+ * <pre>
+ * java org.cooney.world.shard.ShardNode 0 2 400 200 42 1000 tcp:7400
+ * java org.cooney.world.shard.ShardNode 1 2 400 200 42 1000 tcp:7400
+ * </pre>
+ * or with {@code unix:/tmp/deepq} in place of {@code tcp:7400} for Unix domain sockets.
+ */
+public final class ShardNode implements BorderCrossing, Closeable {
+    public static final int HALO_ROWS = 6;
+
+    private final WorldEngine world;
+    private final int shardIndex;
+    private final int shardCount;
+    private final SocketAddress[] addresses;
+    private final ExecutorService senders = Executors.newFixedThreadPool(2);
+
+    private ServerSocketChannel server;
+    private ShardLink linkAbove;
+    private ShardLink linkBelow;
+
+    private List<ShardFrame.Migrant> leavingUpwards = new ArrayList<>();
+    private List<ShardFrame.Migrant> leavingDownwards = new ArrayList<>();
+
+    /**
+     * Actors that walked over the border but found no room on their side of it, waiting to try again next tick.
+     */
+    private List<Arrival> waiting = new ArrayList<>();
+
+    private Actor departing;
+    private boolean departingUpwards;
+    private int departingX;
+
+    private int tick = 0;
+
+    private record Arrival(Actor actor, int y, int x) {}
+
+    /**
+     * @param world This shard's band of the world. It must be taller than the halo.
+     * @param addresses Where every shard in the ring listens, indexed by shard.
+     */
+    public ShardNode(WorldEngine world, int shardIndex, SocketAddress[] addresses) {
+        if (addresses.length < 2) {
+            throw new IllegalArgumentException("A sharded world needs at least two shards");
+        }
+
+        if (world.getHeight() <= HALO_ROWS) {
+            throw new IllegalArgumentException("Each shard needs more than " + HALO_ROWS + " rows");
+        }
+
+        this.world = world;
+        this.shardIndex = shardIndex;
+        this.shardCount = addresses.length;
+        this.addresses = addresses;
+
+        world.setBorderCrossing(this);
+    }
+
+    /**
+     * Listens for the shard above, and connects to the shard below. Returns once both links are up.
+     */
+    public void connect() throws IOException {
+        SocketAddress ownAddress = addresses[shardIndex];
+        server = ServerSocketChannel.open(ShardLink.familyOf(ownAddress));
+        server.bind(ownAddress);
+
+        linkBelow = ShardLink.connect(addresses[(shardIndex + 1) % shardCount]);
+        linkAbove = ShardLink.accept(server);
+    }
+
+    /**
+     * Shards only wrap vertically into each other, so a move crosses a border when it jumps from one edge of the band
+     * to the other.
+     */
+    @Override
+    public boolean crossesBorder(int fromY, int fromX, int toY, int toX) {
+        return Math.abs(toY - fromY) > 1;
+    }
+
+    /**
+     * The rows past the top and bottom of the band belong to the neighbouring shards, not the other end of the band.
+     */
+    @Override
+    public boolean wrapsVertically() {
+        return false;
+    }
+
+    @Override
+    public void handOff(Actor actor, int fromY, int fromX, int toY, int toX) {
+        world.putItemAt(fromY, fromX, EmptyWorldItem.INSTANCE);
+
+        // The actor is in the middle of its step, so it's only sent on once the step is over.
+        departing = actor;
+        departingUpwards = toY > fromY;
+        departingX = toX;
+    }
+
+    public void runTicks(int ticks) throws IOException {
+        for (int i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    public void tick() throws IOException {
+        exchangeBorders();
+
+        for (Actor actor : new ArrayList<>(world.getActorsInWorld())) {
+            departing = null;
+            actor.step();
+
+            if (departing == actor) {
+                world.releaseActor(actor);
+
+                if (actor.isAlive()) {
+                    ShardFrame.Migrant migrant = new ShardFrame.Migrant(departingX, ActorCodec.encode((LivingEntity) actor));
+                    (departingUpwards ? leavingUpwards : leavingDownwards).add(migrant);
+                }
+            } else if (!actor.isAlive()) {
+                world.cleanUpCorpse(actor);
+            }
+        }
+
+        world.getResourceRegenerator().tick();
+        tick++;
+    }
+
+    private void exchangeBorders() throws IOException {
+        ShardFrame toAbove = new ShardFrame(tick, encodeRows(0), leavingUpwards);
+        ShardFrame toBelow = new ShardFrame(tick, encodeRows(world.getHeight() - HALO_ROWS), leavingDownwards);
+        leavingUpwards = new ArrayList<>();
+        leavingDownwards = new ArrayList<>();
+
+        // Both sides send before they receive, so the sends go on their own threads in case a frame is bigger than
+        // the socket buffers.
+        CompletableFuture<Void> sentAbove = sendAsync(linkAbove, toAbove);
+        CompletableFuture<Void> sentBelow = sendAsync(linkBelow, toBelow);
+
+        ShardFrame fromAbove = linkAbove.receive();
+        ShardFrame fromBelow = linkBelow.receive();
+
+        try {
+            CompletableFuture.allOf(sentAbove, sentBelow).join();
+        } catch (CompletionException e) {
+            throw new IOException("Failed to send to a neighbouring shard", e.getCause());
+        }
+
+        world.setHalo(decodeRows(fromAbove.haloRows()), decodeRows(fromBelow.haloRows()));
+
+        List<Arrival> arrivals = waiting;
+        waiting = new ArrayList<>();
+
+        for (ShardFrame.Migrant migrant : fromAbove.migrants()) {
+            arrivals.add(new Arrival(ActorCodec.decode(migrant.encodedActor(), world), 0, migrant.x()));
+        }
+
+        for (ShardFrame.Migrant migrant : fromBelow.migrants()) {
+            arrivals.add(new Arrival(ActorCodec.decode(migrant.encodedActor(), world), world.getHeight() - 1, migrant.x()));
+        }
+
+        for (Arrival arrival : arrivals) {
+            arrive(arrival.actor(), arrival.y(), arrival.x());
+        }
+    }
+
+    /**
+     * Places an actor that has walked over the border on the free cell nearest to where it stepped, along the border
+     * row. A move within the band swaps whatever the actor steps on into the cell it left, but that cell is on the
+     * other shard, so the actor steps around other actors and food and water rather than writing over them. If the
+     * whole row is taken, it waits for a tick.
+     */
+    void arrive(Actor actor, int y, int x) {
+        int width = world.getWidth();
+
+        for (int offset = 0; offset <= width / 2; offset++) {
+            int right = Math.floorMod(x + offset, width);
+            int left = Math.floorMod(x - offset, width);
+
+            if (isEmpty(y, right)) {
+                world.addActorAt(actor, y, right);
+                return;
+            }
+
+            if (isEmpty(y, left)) {
+                world.addActorAt(actor, y, left);
+                return;
+            }
+        }
+
+        waiting.add(new Arrival(actor, y, x));
+    }
+
+    private boolean isEmpty(int y, int x) {
+        return world.getItemAt(y, x).getWorldItem() instanceof EmptyWorldItem;
+    }
+
+    private CompletableFuture<Void> sendAsync(ShardLink link, ShardFrame frame) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                link.send(frame);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, senders);
+    }
+
+    private byte[][] encodeRows(int firstRow) {
+        byte[][] rows = new byte[HALO_ROWS][world.getWidth()];
+
+        for (int y = 0; y < HALO_ROWS; y++) {
+            for (int x = 0; x < world.getWidth(); x++) {
+                rows[y][x] = (byte) world.getItemAt(firstRow + y, x).getWorldItem().getWorldItemId();
+            }
+        }
+
+        return rows;
+    }
+
+    private static GridItem[][] decodeRows(byte[][] rows) {
+        GridItem[][] gridItems = new GridItem[rows.length][];
+
+        for (int y = 0; y < rows.length; y++) {
+            gridItems[y] = new GridItem[rows[y].length];
+            for (int x = 0; x < rows[y].length; x++) {
+                gridItems[y][x] = new GridItem(new HaloItem(rows[y][x]));
+            }
+        }
+
+        return gridItems;
+    }
+
+    public WorldEngine getWorld() {
+        return world;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * How many actors are waiting to arrive on a border row that was full.
+     */
+    public int getWaitingCount() {
+        return waiting.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        senders.shutdown();
+
+        if (linkAbove != null) {
+            linkAbove.close();
+        }
+
+        if (linkBelow != null) {
+            linkBelow.close();
+        }
+
+        if (server != null) {
+            server.close();
+        }
+
+        if (addresses[shardIndex] instanceof UnixDomainSocketAddress unixAddress) {
+            Files.deleteIfExists(unixAddress.getPath());
+        }
+    }
+
+    /**
+     * Works out where each of the shards listens: consecutive ports on loopback for {@code tcp:<first port>}, or
+     * one socket file per shard in the directory for {@code unix:<directory>}.
+     */
+    public static SocketAddress[] addressesFor(String transport, int shardCount) {
+        SocketAddress[] addresses = new SocketAddress[shardCount];
+
+        for (int i = 0; i < shardCount; i++) {
+            if (transport.startsWith("tcp:")) {
+                int firstPort = Integer.parseInt(transport.substring("tcp:".length()));
+                addresses[i] = new InetSocketAddress(InetAddress.getLoopbackAddress(), firstPort + i);
+            } else if (transport.startsWith("unix:")) {
+                addresses[i] = UnixDomainSocketAddress.of(Path.of(transport.substring("unix:".length()), "shard-" + i + ".sock"));
+            } else {
+                throw new IllegalArgumentException("Transport should be tcp:<first port> or unix:<directory>, not " + transport);
+            }
+        }
+
+        return addresses;
+    }
+
+    /**
+     * Builds the band of the logical world a shard owns. Every shard gets an equal share of the rows, with the last
+     * one taking any left over, and its own stream of the world seed.
+     */
+    public static WorldEngine createBand(int shardIndex, int shardCount, int worldHeight, int worldWidth, long seed) {
+        int bandHeight = worldHeight / shardCount;
+        if (shardIndex == shardCount - 1) {
+            bandHeight += worldHeight % shardCount;
+        }
+
+        long bandSeed = new RandomSource(seed).forSubsystem("shard-" + shardIndex).nextLong();
+        return new WorldEngine(bandHeight, worldWidth, new RandomWorldSeeder(), bandSeed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 7) {
+            System.out.println("Usage: ShardNode <shard index> <shard count> <world height> <world width> <seed> <ticks> <tcp:first port | unix:directory>");
+            return;
+        }
+
+        int shardIndex = Integer.parseInt(args[0]);
+        int shardCount = Integer.parseInt(args[1]);
+        int worldHeight = Integer.parseInt(args[2]);
+        int worldWidth = Integer.parseInt(args[3]);
+        long seed = Long.parseLong(args[4]);
+        int ticks = Integer.parseInt(args[5]);
+
+        WorldEngine band = createBand(shardIndex, shardCount, worldHeight, worldWidth, seed);
+
+        try (ShardNode node = new ShardNode(band, shardIndex, addressesFor(args[6], shardCount))) {
+            node.connect();
+            node.runTicks(ticks);
+            System.out.println("Shard " + shardIndex + " finished " + node.getTick() + " ticks with " + band.getActorsInWorld().size() + " actors");
+        }
+    }
+}
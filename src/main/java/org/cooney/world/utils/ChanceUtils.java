@@ -1,11 +1,22 @@
 package org.cooney.world.utils;
 
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
 public class ChanceUtils {
     /**
      * Utility function for chance based events.
      * @return A boolean value indicating if the win scenario has happened or not.
      */
     public static boolean rollTheDice(double winPercentageChance) {
+        return rollTheDice(ThreadLocalRandom.current(), winPercentageChance);
+    }
+
+    /**
+     * Utility function for chance based events, using a specific random stream.
+     * @return A boolean value indicating if the win scenario has happened or not.
+     */
+    public static boolean rollTheDice(RandomGenerator random, double winPercentageChance) {
         if (winPercentageChance >= 100) {
             return true;
         }
@@ -14,7 +25,7 @@ public class ChanceUtils {
             return false;
         }
 
-        double outcome = Math.random() * 100;
+        double outcome = random.nextDouble() * 100;
 
         return outcome <= winPercentageChance;
     }
@@ -0,0 +1,59 @@
+package org.cooney.world.utils;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+/**
+ * The single source of randomness for a world. Everything random in a world is derived from one seed, so two worlds
+ * built from the same seed (and stepped the same way) behave the same.
+ *
+ * Rather than everybody sharing one generator, each consumer takes its own independent stream: actors call
+ * {@link #split()} once when they are created, and world subsystems (seeding, placement...) ask for a named stream
+ * with {@link #forSubsystem(String)}. Streams are never shared between threads, so there is nothing to contend on.
+ */
+public class RandomSource {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private final SplittableRandom root;
+
+    public RandomSource(long seed) {
+        this.seed = seed;
+        this.root = new SplittableRandom(seed);
+    }
+
+    /**
+     * Splits off a new independent stream. The root generator is shared, so splitting is synchronised, but the
+     * returned stream belongs to the caller alone.
+     * @return A new stream which should be owned by a single actor or thread.
+     */
+    public synchronized SplittableGenerator split() {
+        return root.split();
+    }
+
+    /**
+     * Builds a stream for a named part of the world. The stream only depends on the world seed and the name, so it
+     * is the same no matter how many actors have split from the root before it is asked for.
+     * @param subsystemName A stable name for the subsystem, e.g. "seeder" or "placement".
+     * @return A new stream dedicated to that subsystem.
+     */
+    public SplittableGenerator forSubsystem(String subsystemName) {
+        return new SplittableRandom(seed + GOLDEN_GAMMA * subsystemName.hashCode()).split();
+    }
+
+    /**
+     * Builds one of many numbered streams for a subsystem, e.g. one per row of the map, so the work can be split
+     * across threads and still come out the same for the same seed no matter which thread does which part.
+     * @param subsystemName A stable name for the subsystem.
+     * @param index Which of the subsystem's streams to build.
+     * @return A new stream dedicated to that part of the subsystem.
+     */
+    public SplittableGenerator forSubsystem(String subsystemName, long index) {
+        long subsystemSeed = seed + GOLDEN_GAMMA * subsystemName.hashCode();
+        return new SplittableRandom(new SplittableRandom(subsystemSeed).nextLong() + GOLDEN_GAMMA * index).split();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
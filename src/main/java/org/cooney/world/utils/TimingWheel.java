@@ -0,0 +1,78 @@
+package org.cooney.world.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A hashed timing wheel: a ring of slots, one per tick, with each scheduled item dropped into the slot for the tick
+ * it's due on. Advancing the wheel only looks at one slot, so the cost of a tick depends on how many items are due
+ * around then - not on how many things exist that could one day need scheduling. Items due further away than one
+ * turn of the wheel wait in their slot for the extra turns.
+ *
+ * Any thread can schedule; new items wait in a lock-free queue and are only put in their slots by the thread that
+ * advances the wheel, so the slots themselves are never shared.
+ * @param <T> The type of item scheduled.
+ */
+public class TimingWheel<T> {
+    private final List<List<Entry<T>>> slots = new ArrayList<>();
+    private final Queue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final int mask;
+
+    private long currentTick = 0;
+
+    /**
+     * @param slotCount How many ticks one turn of the wheel covers. Rounded up to a power of two.
+     */
+    public TimingWheel(int slotCount) {
+        int size = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules the item to come due the given number of ticks after the wheel next picks up new items.
+     * @param delayInTicks At least 1.
+     */
+    public void schedule(T item, int delayInTicks) {
+        incoming.add(new Entry<>(item, Math.max(1, delayInTicks), 0));
+    }
+
+    /**
+     * Moves the wheel on one tick.
+     * @return Everything that has come due.
+     */
+    public List<T> advance() {
+        Entry<T> scheduled;
+        while ((scheduled = incoming.poll()) != null) {
+            long dueTick = currentTick + scheduled.delayInTicks();
+            slots.get((int) (dueTick & mask)).add(new Entry<>(scheduled.item(), 0, dueTick));
+        }
+
+        currentTick++;
+        List<Entry<T>> slot = slots.get((int) (currentTick & mask));
+        List<T> due = new ArrayList<>();
+
+        // Anything still here for a later turn of the wheel stays put.
+        slot.removeIf(entry -> {
+            if (entry.dueTick() <= currentTick) {
+                due.add(entry.item());
+                return true;
+            }
+            return false;
+        });
+
+        return due;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    private record Entry<T>(T item, int delayInTicks, long dueTick) {
+    }
+}
@@ -0,0 +1,141 @@
+package org.cooney.world.vector;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.metrics.MetricsRegistry;
+import org.cooney.metrics.SimulationMetrics;
+import org.cooney.neural.Brain;
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.Actor;
+import org.cooney.world.items.agents.LivingEntity;
+import org.cooney.world.map.DelegatingSeeder;
+import org.cooney.world.map.Seeder;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Steps several small, independent worlds in lockstep on one thread, with every agent's decision for the tick made
+ * in one batch.
+ *
+ * Each tick goes in three passes: every agent that's going to move looks around and says what it would ask its
+ * brain; each brain is asked about all of its agents at once with {@link Brain#predictBatch(double[][])}; then every
+ * agent takes its step with its answer. Agents which spend the tick learning just step. Worlds built with
+ * {@link #withSharedBrain} give every agent in every world the same brain, so a tick's decisions are a single pass
+ * through one network.
+ */
+public class VectorEnvironment {
+    private final List<WorldEngine> worlds;
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private long ticks;
+    private long decisions;
+
+    public VectorEnvironment(List<WorldEngine> worlds) {
+        this.worlds = List.copyOf(worlds);
+    }
+
+    /**
+     * Builds the given number of worlds, seeded one after another from the base seed, whose agents all share the
+     * given brain.
+     */
+    public static VectorEnvironment withSharedBrain(int worldCount, int height, int width, Supplier<Seeder> seederFactory, Brain brain, long seed) {
+        List<WorldEngine> worlds = new ArrayList<>(worldCount);
+
+        for (int i = 0; i < worldCount; i++) {
+            Seeder seeder = new DelegatingSeeder(seederFactory.get()) {
+                @Override
+                public Brain getSharedBrain() {
+                    return brain;
+                }
+            };
+            worlds.add(new WorldEngine(height, width, seeder, seed + i));
+        }
+
+        return new VectorEnvironment(worlds);
+    }
+
+    /**
+     * Steps every agent in every world once.
+     */
+    public void step() throws InvalidMatrixShapeException {
+        long start = System.nanoTime();
+
+        List<Actor> actors = new ArrayList<>();
+        for (WorldEngine world : worlds) {
+            actors.addAll(world.getActorsInWorld());
+        }
+
+        Map<Brain, Batch> batches = new IdentityHashMap<>();
+        Batch[] batchOfActor = new Batch[actors.size()];
+        int[] indexInBatch = new int[actors.size()];
+
+        for (int i = 0; i < actors.size(); i++) {
+            if (actors.get(i) instanceof LivingEntity agent && agent.isAlive() && !agent.willLearnNextTick()) {
+                Batch batch = batches.computeIfAbsent(agent.getDecidingBrain(), brain -> new Batch());
+                batchOfActor[i] = batch;
+                indexInBatch[i] = batch.inputs.size();
+                batch.inputs.add(agent.observe());
+            }
+        }
+
+        long decideStart = System.nanoTime();
+        for (Map.Entry<Brain, Batch> entry : batches.entrySet()) {
+            Batch batch = entry.getValue();
+            batch.qValues = entry.getKey().predictBatch(batch.inputs.toArray(new double[0][]));
+            decisions += batch.qValues.length;
+        }
+        metrics.recordSince(SimulationMetrics.VECTOR_DECIDE, decideStart);
+
+        for (int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
+
+            if (batchOfActor[i] != null) {
+                ((LivingEntity) actor).actOn(batchOfActor[i].qValues[indexInBatch[i]]);
+            } else {
+                actor.step();
+            }
+        }
+
+        for (WorldEngine world : worlds) {
+            for (Actor actor : world.getActorsInWorld()) {
+                if (!actor.isAlive()) {
+                    world.cleanUpCorpse(actor);
+                }
+            }
+            world.getResourceRegenerator().tick();
+        }
+
+        ticks++;
+        metrics.recordSince(SimulationMetrics.VECTOR_STEP, start);
+    }
+
+    public List<WorldEngine> getWorlds() {
+        return worlds;
+    }
+
+    public int getPopulation() {
+        return worlds.stream().mapToInt(world -> world.getActorsInWorld().size()).sum();
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * How many decisions have been made in batches so far.
+     */
+    public long getDecisions() {
+        return decisions;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    private static class Batch {
+        private final List<double[]> inputs = new ArrayList<>();
+        private double[][] qValues;
+    }
+}
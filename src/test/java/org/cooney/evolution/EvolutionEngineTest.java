@@ -0,0 +1,103 @@
+package org.cooney.evolution;
+
+import org.cooney.neural.Brain;
+import org.cooney.neural.NeuralNetwork;
+import org.cooney.world.items.Breeder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+public class EvolutionEngineTest {
+
+    private record TestBreeder(int fitness, Brain brain) implements Breeder {
+        @Override
+        public boolean isFitToBreed() {
+            return true;
+        }
+
+        @Override
+        public int getFitnessScore() {
+            return fitness;
+        }
+
+        @Override
+        public Breeder copy() {
+            return new TestBreeder(fitness, brain.copy());
+        }
+
+        @Override
+        public Brain getBrain() {
+            return brain.copy();
+        }
+
+        @Override
+        public Breeder offspringWith(Brain brain, RandomGenerator random) {
+            return new TestBreeder(0, brain);
+        }
+    }
+
+    private static List<Breeder> population(int size) {
+        SplittableRandom random = new SplittableRandom(5);
+        List<Breeder> population = new ArrayList<>();
+
+        for (int x = 0; x < size; x++) {
+            population.add(new TestBreeder(x, new NeuralNetwork(3, 4, 2, 0.1, random.split())));
+        }
+
+        return population;
+    }
+
+    @Test
+    public void testEliteAreCarriedOverUnchanged() {
+        List<Breeder> population = population(10);
+        EvolutionEngine engine = new EvolutionEngine(new EvolutionSettings(SelectionStrategy.TOURNAMENT, 3, 2, 0.7, 0.5, 0.1), ForkJoinPool.commonPool());
+
+        List<Breeder> children = engine.breedNextGeneration(population, 6, new SplittableRandom(1));
+
+        Assert.assertEquals(6, children.size());
+        Assert.assertEquals(9, children.get(0).getFitnessScore());
+        Assert.assertEquals(8, children.get(1).getFitnessScore());
+        Assert.assertArrayEquals(population.get(9).getBrain().toParameterVector(), children.get(0).getBrain().toParameterVector(), 0);
+    }
+
+    @Test
+    public void testGenerationIsReproducibleFromSeed() {
+        List<Breeder> population = population(20);
+        List<Breeder> first;
+        List<Breeder> second;
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            EvolutionEngine engine = new EvolutionEngine(EvolutionSettings.DEFAULT, pool);
+            first = engine.breedNextGeneration(population, 15, new SplittableRandom(99));
+            second = engine.breedNextGeneration(population, 15, new SplittableRandom(99));
+        }
+
+        for (int x = 0; x < first.size(); x++) {
+            Assert.assertArrayEquals(first.get(x).getBrain().toParameterVector(), second.get(x).getBrain().toParameterVector(), 0);
+        }
+    }
+
+    @Test
+    public void testRankSelectionFavoursTheFittest() {
+        EvolutionEngine engine = new EvolutionEngine(new EvolutionSettings(SelectionStrategy.RANK, 3, 0, 0, 0, 0), ForkJoinPool.commonPool());
+        SplittableRandom random = new SplittableRandom(3);
+        int[] picks = new int[10];
+
+        for (int x = 0; x < 10000; x++) {
+            picks[engine.selectParent(10, random)]++;
+        }
+
+        Assert.assertTrue(picks[0] > picks[9] * 5);
+    }
+
+    @Test
+    public void testEmptyPopulationBreedsNothing() {
+        EvolutionEngine engine = new EvolutionEngine(EvolutionSettings.DEFAULT, ForkJoinPool.commonPool());
+
+        Assert.assertTrue(engine.breedNextGeneration(List.of(), 5, new SplittableRandom(1)).isEmpty());
+    }
+}
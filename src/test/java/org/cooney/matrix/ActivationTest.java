@@ -0,0 +1,51 @@
+package org.cooney.matrix;
+
+import org.cooney.neural.NeuralNetwork;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+public class ActivationTest {
+
+    private static double maxErrorFromExact(Activation activation) {
+        double maxError = 0;
+
+        for (double x = -40; x <= 40; x += 0.0007) {
+            maxError = Math.max(maxError, Math.abs(activation.sigmoid(x) - Activation.EXACT.sigmoid(x)));
+        }
+
+        return maxError;
+    }
+
+    @Test
+    public void testLookupTableStaysWithinDocumentedError() {
+        Assert.assertTrue(maxErrorFromExact(Activation.LOOKUP_TABLE) <= 3e-6);
+    }
+
+    @Test
+    public void testRationalStaysWithinDocumentedError() {
+        Assert.assertTrue(maxErrorFromExact(Activation.RATIONAL) <= 5e-5);
+    }
+
+    @Test
+    public void testApproximationsStayInsideZeroToOne() {
+        for (Activation activation : Activation.values()) {
+            for (double x = -1000; x <= 1000; x += 0.5) {
+                double value = activation.sigmoid(x);
+                Assert.assertTrue(activation + " gave " + value + " for " + x, value >= 0 && value <= 1);
+            }
+        }
+    }
+
+    @Test
+    public void testNetworkWithApproximateSigmoidPredictsLikeExactOne() throws InvalidMatrixShapeException {
+        NeuralNetwork exact = new NeuralNetwork(4, 8, 3, 0.1, new SplittableRandom(3));
+        NeuralNetwork approximate = exact.withActivation(Activation.RATIONAL);
+        double[] input = {1, -0.5, 0.25, 2};
+
+        Assert.assertSame(Activation.RATIONAL, approximate.getActivation());
+        Assert.assertSame(Activation.RATIONAL, approximate.copy().getActivation());
+        Assert.assertArrayEquals(exact.predict(input), approximate.predict(input), 1e-3);
+    }
+}
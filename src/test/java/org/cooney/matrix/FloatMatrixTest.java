@@ -0,0 +1,48 @@
+package org.cooney.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FloatMatrixTest {
+
+    @Test
+    public void testFromMatrixNarrowsValues() {
+        Matrix m = new Matrix(3, 4, true);
+        FloatMatrix f = FloatMatrix.fromMatrix(m);
+
+        for(int x = 0; x < m.getRows(); x++) {
+            for(int y = 0; y < m.getColumns(); y++) {
+                Assert.assertEquals((float) m.getData()[x][y], f.getData()[x][y], 0);
+            }
+        }
+    }
+
+    @Test
+    public void testPerformDotProductValidShape() throws InvalidMatrixShapeException {
+        FloatMatrix m1 = new FloatMatrix(2, 2, true);
+        FloatMatrix m2 = new FloatMatrix(2, 2, true);
+
+        float expectedSample = (m1.getData()[0][0] * m2.getData()[0][0]) + (m1.getData()[0][1] * m2.getData()[1][0]);
+
+        FloatMatrix output = m1.dotProduct(m2);
+
+        Assert.assertEquals(expectedSample, output.getData()[0][0], 1e-6);
+    }
+
+    @Test
+    public void testPerformDotProductInvalidShape() {
+        FloatMatrix m1 = new FloatMatrix(5, 19, true);
+        FloatMatrix m2 = new FloatMatrix(7, 12, true);
+
+        Assert.assertThrows(InvalidMatrixShapeException.class, () -> m1.dotProduct(m2));
+    }
+
+    @Test
+    public void testSigmoidMatchesDoublePrecision() {
+        FloatMatrix m = new FloatMatrix(5, 5, true);
+
+        double expectedSigmoidOutput = 1/(1 + Math.exp(-m.getData()[3][4]));
+
+        Assert.assertEquals(expectedSigmoidOutput, m.sigmoid().getData()[3][4], 1e-6);
+    }
+}
@@ -3,8 +3,7 @@ package org.cooney.matrix;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.SplittableRandom;
 
 public class MatrixTest {
 
@@ -22,6 +21,14 @@ public class MatrixTest {
         }
     }
 
+    @Test
+    public void testMatrixInitFromSameSeedIsReproducible() {
+        Matrix m1 = new Matrix(6, 4, new SplittableRandom(42));
+        Matrix m2 = new Matrix(6, 4, new SplittableRandom(42));
+
+        Assert.assertArrayEquals(m1.toFlatArray(), m2.toFlatArray(), 0);
+    }
+
     @Test
     public void testMatrixFromSeedArray() {
         double[] seedArray = new double[]{4,5,6,7};
@@ -223,4 +230,45 @@ public class MatrixTest {
 
         Assert.assertArrayEquals(expectedOutput, output, 0);
     }
+
+    @Test
+    public void testDenseLayerMatchesSeparateSteps() throws InvalidMatrixShapeException {
+        Matrix weights = new Matrix(5, 3, new SplittableRandom(7));
+        Matrix bias = new Matrix(5, 1, new SplittableRandom(8));
+        double[] input = {0.5, -1, 2};
+
+        double[] fused = new double[5];
+        weights.denseLayer(input, bias, Activation.EXACT, fused);
+
+        Assert.assertArrayEquals(weights.dotProduct(new Matrix(input)).add(bias).sigmoid().toFlatArray(), fused, 0);
+    }
+
+    @Test(expected = InvalidMatrixShapeException.class)
+    public void testDenseLayerRejectsWrongSizedInput() throws InvalidMatrixShapeException {
+        new Matrix(5, 3, new SplittableRandom(7)).denseLayer(new double[4], new Matrix(5, 1, false), Activation.EXACT, new double[5]);
+    }
+
+    @Test
+    public void testAddOuterProductMatchesSeparateSteps() throws InvalidMatrixShapeException {
+        Matrix m = new Matrix(3, 4, new SplittableRandom(9));
+        double[] column = {1, -2, 0.5};
+        double[] row = {0.25, 3, -1, 2};
+
+        Matrix expected = m.add(new Matrix(column).dotProduct(new Matrix(row).transpose()));
+
+        Assert.assertArrayEquals(expected.toFlatArray(), m.addOuterProduct(column, row).toFlatArray(), 0);
+        Assert.assertArrayEquals(m.transpose().dotProduct(new Matrix(column)).toFlatArray(), m.transposeDotProduct(column), 1e-12);
+    }
+
+    @Test
+    public void testAddInPlaceMatchesAdd() throws InvalidMatrixShapeException {
+        Matrix m = new Matrix(3, 4, new SplittableRandom(9));
+        Matrix m2 = new Matrix(3, 4, new SplittableRandom(10));
+
+        Matrix expected = m.add(m2);
+
+        Assert.assertSame(m, m.addInPlace(m2));
+        Assert.assertArrayEquals(expected.toFlatArray(), m.toFlatArray(), 0);
+        Assert.assertThrows(InvalidMatrixShapeException.class, () -> m.addInPlace(new Matrix(4, 3)));
+    }
 }
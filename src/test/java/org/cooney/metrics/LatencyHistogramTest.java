@@ -0,0 +1,55 @@
+package org.cooney.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int x = 1; x <= 10; x++) {
+            histogram.record(x);
+        }
+
+        Assert.assertEquals(10, histogram.getCount());
+        Assert.assertEquals(5, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(10, histogram.getValueAtPercentile(100));
+        Assert.assertEquals(5.5, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void testLargeValuesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long x = 1; x <= 100_000; x++) {
+            histogram.record(x * 1000);
+        }
+
+        long expectedP99 = 99_000_000L;
+        long p99 = histogram.getValueAtPercentile(99);
+
+        Assert.assertTrue("p99 was " + p99, Math.abs(p99 - expectedP99) <= expectedP99 / 16);
+        Assert.assertEquals(100_000_000L, histogram.getMax());
+    }
+
+    @Test
+    public void testBucketsCoverTheWholeRange() {
+        Assert.assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueInBucket(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+
+        for (long value : new long[]{0, 15, 16, 17, 1000, 123_456_789L, Long.MAX_VALUE / 3}) {
+            Assert.assertTrue(LatencyHistogram.highestValueInBucket(LatencyHistogram.bucketIndex(value)) >= value);
+        }
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(500);
+        histogram.reset();
+
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,57 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+public class BrainSerializerTest {
+
+    private static Brain roundTrip(Brain brain) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BrainSerializer.write(brain, new DataOutputStream(bytes));
+        return BrainSerializer.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testDoubleBrainRoundTrip() throws IOException, InvalidMatrixShapeException {
+        NeuralNetwork original = new NeuralNetwork(7, 12, 5, 0.1, new SplittableRandom(1));
+        Brain restored = roundTrip(original);
+
+        double[] input = new double[]{0, 1, 2, 3, 4, 1, 500};
+
+        Assert.assertTrue(restored instanceof NeuralNetwork);
+        Assert.assertArrayEquals(original.predict(input), restored.predict(input), 0);
+    }
+
+    @Test
+    public void testFloatBrainRoundTrip() throws IOException, InvalidMatrixShapeException {
+        FloatNeuralNetwork original = new FloatNeuralNetwork(7, 12, 5, 0.1, new SplittableRandom(1));
+        Brain restored = roundTrip(original);
+
+        double[] input = new double[]{0, 1, 2, 3, 4, 1, 500};
+
+        Assert.assertTrue(restored instanceof FloatNeuralNetwork);
+        Assert.assertArrayEquals(original.predict(input), restored.predict(input), 0);
+    }
+
+    @Test
+    public void testFloatBrainIsHalfTheSize() throws IOException {
+        ByteArrayOutputStream doubleBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream floatBytes = new ByteArrayOutputStream();
+
+        BrainSerializer.write(new NeuralNetwork(7, 150, 5, 0.1, new SplittableRandom(1)), new DataOutputStream(doubleBytes));
+        BrainSerializer.write(new FloatNeuralNetwork(7, 150, 5, 0.1, new SplittableRandom(1)), new DataOutputStream(floatBytes));
+
+        int doublePayload = doubleBytes.size() - BrainSerializer.HEADER_SIZE_IN_BYTES;
+        int floatPayload = floatBytes.size() - BrainSerializer.HEADER_SIZE_IN_BYTES;
+
+        Assert.assertEquals(doublePayload / 2, floatPayload);
+    }
+}
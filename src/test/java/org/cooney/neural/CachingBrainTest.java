@@ -0,0 +1,65 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+public class CachingBrainTest {
+    private static final double[] EMPTY_VIEW = {0, 0, 0, 0, 0, 1, 0.5};
+    private static final double[] FOOD_AHEAD = {2, 0, 0, 0, 0, 1, 0.5};
+
+    @Test
+    public void testRepeatedInputsAreAnsweredFromTheCache() throws InvalidMatrixShapeException {
+        NeuralNetwork network = new NeuralNetwork(7, 5, 4, 0.1, new SplittableRandom(1));
+        CachingBrain brain = new CachingBrain(network, 16);
+
+        double[] first = brain.predict(EMPTY_VIEW);
+        double[] second = brain.predict(EMPTY_VIEW);
+        brain.predict(FOOD_AHEAD);
+
+        Assert.assertArrayEquals(network.predict(EMPTY_VIEW), second, 0);
+        Assert.assertArrayEquals(first, second, 0);
+        Assert.assertEquals(1, brain.getHits());
+        Assert.assertEquals(2, brain.getMisses());
+        Assert.assertEquals(1.0 / 3, brain.getHitRate(), 1e-12);
+    }
+
+    @Test
+    public void testTrainingInvalidatesCachedPredictions() throws InvalidMatrixShapeException {
+        NeuralNetwork network = new NeuralNetwork(7, 5, 4, 0.5, new SplittableRandom(2));
+        CachingBrain brain = new CachingBrain(network, 16);
+
+        double[] before = brain.predict(EMPTY_VIEW);
+        brain.train(EMPTY_VIEW, new double[]{1, 1, 1, 1});
+        double[] after = brain.predict(EMPTY_VIEW);
+
+        Assert.assertEquals(0, brain.getHits());
+        Assert.assertArrayEquals(network.predict(EMPTY_VIEW), after, 0);
+        Assert.assertNotEquals(before[0], after[0], 0);
+    }
+
+    @Test
+    public void testCallersCantChangeWhatIsCached() throws InvalidMatrixShapeException {
+        CachingBrain brain = new CachingBrain(new NeuralNetwork(7, 5, 4, 0.1, new SplittableRandom(3)), 16);
+
+        double[] expected = brain.predict(EMPTY_VIEW).clone();
+        brain.predict(EMPTY_VIEW)[0] = 42;
+
+        Assert.assertArrayEquals(expected, brain.predict(EMPTY_VIEW), 0);
+    }
+
+    @Test
+    public void testCopiesStartEmptyButShareTheCounts() throws InvalidMatrixShapeException {
+        CachingBrain brain = new CachingBrain(new NeuralNetwork(7, 5, 4, 0.1, new SplittableRandom(4)), 16);
+        brain.predict(EMPTY_VIEW);
+
+        CachingBrain copy = brain.copy();
+        copy.predict(EMPTY_VIEW);
+        copy.predict(EMPTY_VIEW);
+
+        Assert.assertEquals(1, brain.getHits());
+        Assert.assertEquals(2, brain.getMisses());
+    }
+}
@@ -0,0 +1,82 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class CategoricalInputNetworkTest {
+    private static final CategoricalInputs SIGHT_LINES = CategoricalInputs.of(6, 0, 1, 2, 3, 4);
+    private static final double[] INPUT = {0, 1, 0, 5, 3, 2, 0.75};
+    private static final double[] NEXT_INPUT = {2, 0, 0, 0, 4, 1, 0.5};
+
+    @Test
+    public void testEncodesEachSightLineAsOneHot() throws InvalidMatrixShapeException {
+        CategoricalInputNetwork network = new CategoricalInputNetwork(7, 4, 5, SIGHT_LINES, 0.1, new SplittableRandom(1));
+
+        double[] encoded = network.encode(INPUT);
+
+        Assert.assertEquals(32, network.encodedInputCount());
+        Assert.assertEquals(32, encoded.length);
+        Assert.assertEquals(1, encoded[0], 0);
+        Assert.assertEquals(1, encoded[6 + 1], 0);
+        Assert.assertEquals(1, encoded[18 + 5], 0);
+        Assert.assertEquals(2, encoded[30], 0);
+        Assert.assertEquals(0.75, encoded[31], 0);
+        Assert.assertEquals(5 + 2 + 0.75, Arrays.stream(encoded).sum(), 1e-12);
+    }
+
+    @Test
+    public void testPredictsAndTrainsExactlyLikeTheDenseNetworkOverEncodedInputs() throws InvalidMatrixShapeException {
+        CategoricalInputNetwork sparse = new CategoricalInputNetwork(7, 6, 5, SIGHT_LINES, 0.3, new SplittableRandom(2));
+        NeuralNetwork dense = sparse.toNeuralNetwork();
+
+        Assert.assertArrayEquals(dense.predict(sparse.encode(INPUT)), sparse.predict(INPUT), 0);
+
+        for (int i = 0; i < 5; i++) {
+            sparse.train(INPUT, new double[]{1, 0, 0, 0, 1});
+            dense.train(sparse.encode(INPUT), new double[]{1, 0, 0, 0, 1});
+            sparse.trainOnTransition(INPUT, 3, 0.5, NEXT_INPUT, 0.9);
+            dense.trainOnTransition(sparse.encode(INPUT), 3, 0.5, sparse.encode(NEXT_INPUT), 0.9);
+        }
+
+        Assert.assertArrayEquals(dense.toParameterVector(), sparse.toParameterVector(), 0);
+    }
+
+    @Test
+    public void testCopiesDontSeeEachOthersTraining() throws InvalidMatrixShapeException {
+        CategoricalInputNetwork parent = new CategoricalInputNetwork(7, 6, 5, SIGHT_LINES, 0.3, new SplittableRandom(3));
+        CategoricalInputNetwork child = parent.copy();
+        double[] parentWeightsBefore = parent.toParameterVector();
+
+        child.train(INPUT, new double[]{1, 1, 1, 1, 1});
+
+        Assert.assertArrayEquals(parentWeightsBefore, parent.toParameterVector(), 0);
+        Assert.assertNotEquals(parentWeightsBefore[0], child.toParameterVector()[0], 0);
+    }
+
+    @Test(expected = InvalidMatrixShapeException.class)
+    public void testRejectsInputsThatArentCategories() throws InvalidMatrixShapeException {
+        new CategoricalInputNetwork(7, 4, 5, SIGHT_LINES, 0.1, new SplittableRandom(4)).predict(new double[]{0, 1, 6, 0, 0, 1, 1});
+    }
+
+    @Test
+    public void testSurvivesASaveAndLoad() throws IOException, InvalidMatrixShapeException {
+        CategoricalInputNetwork network = new CategoricalInputNetwork(7, 4, 5, SIGHT_LINES, 0.1, new SplittableRandom(5));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BrainSerializer.write(network, new DataOutputStream(bytes));
+
+        Brain loaded = BrainSerializer.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        Assert.assertTrue(loaded instanceof CategoricalInputNetwork);
+        Assert.assertEquals(SIGHT_LINES, ((CategoricalInputNetwork) loaded).getCategoricalInputs());
+        Assert.assertArrayEquals(network.predict(INPUT), loaded.predict(INPUT), 0);
+    }
+}
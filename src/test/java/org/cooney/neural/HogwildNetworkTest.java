@@ -0,0 +1,59 @@
+package org.cooney.neural;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HogwildNetworkTest {
+
+    @Test
+    public void testPredictsLikeTheNetworkItWasBuiltFrom() throws Exception {
+        NeuralNetwork network = new NeuralNetwork(3, 5, 2, 0.2, new SplittableRandom(1));
+        HogwildNetwork hogwild = HogwildNetwork.from(network);
+
+        assertArrayEquals(network.predict(new double[]{1, -0.5, 2}), hogwild.predict(new double[]{1, -0.5, 2}), 1e-12);
+    }
+
+    @Test
+    public void testOneThreadTrainsLikeAppliedGradients() throws Exception {
+        NeuralNetwork network = new NeuralNetwork(3, 5, 2, 0.2, new SplittableRandom(1));
+        HogwildNetwork hogwild = HogwildNetwork.from(network);
+        double[] input = {1, 0, 2};
+        double[] target = {1, 0};
+
+        network.applyGradients(network.computeGradients(input, target));
+        hogwild.train(input, target);
+
+        assertArrayEquals(network.toParameterVector(), hogwild.toParameterVector(), 1e-12);
+    }
+
+    @Test
+    public void testSnapshotsStayPutWhileTrainingCarriesOn() throws Exception {
+        HogwildNetwork hogwild = HogwildNetwork.from(new NeuralNetwork(3, 5, 2, 0.2, new SplittableRandom(1)));
+        ExecutorService trainers = Executors.newFixedThreadPool(4);
+
+        for (int thread = 0; thread < 4; thread++) {
+            trainers.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    hogwild.train(new double[]{1, 0, 1}, new double[]{1, 0});
+                }
+                return null;
+            });
+        }
+
+        NeuralNetwork snapshot = hogwild.publishSnapshot();
+        double[] frozen = snapshot.toParameterVector();
+
+        trainers.shutdown();
+        assertTrue(trainers.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertSame(snapshot, hogwild.getPublishedSnapshot());
+        assertArrayEquals(frozen, snapshot.toParameterVector(), 0);
+        assertTrue(hogwild.predict(new double[]{1, 0, 1})[0] > hogwild.predict(new double[]{1, 0, 1})[1]);
+    }
+}
@@ -23,4 +23,47 @@ public class NeuralNetworkTest {
         Assert.assertEquals(inputValuesCount, inputToHiddenLayerWeights.getRows(), 0);
         Assert.assertEquals(hiddenValuesCount, inputToHiddenLayerWeights.getColumns(), 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCopySharesWeightsUntilTrained() throws InvalidMatrixShapeException {
+        NeuralNetwork parent = new NeuralNetwork(3, 4, 2, 0.5);
+        NeuralNetwork child = parent.copy();
+
+        Assert.assertSame(parent.getInputHiddenLayerWeights(), child.getInputHiddenLayerWeights());
+
+        double[] parentWeightsBefore = parent.getInputHiddenLayerWeights().toFlatArray();
+        child.train(new double[]{1, 0, 1}, new double[]{1, 0});
+
+        Assert.assertNotSame(parent.getInputHiddenLayerWeights(), child.getInputHiddenLayerWeights());
+        Assert.assertArrayEquals(parentWeightsBefore, parent.getInputHiddenLayerWeights().toFlatArray(), 0);
+    }
+
+    @Test
+    public void testBatchedPredictionsMatchSinglePredictions() throws InvalidMatrixShapeException {
+        NeuralNetwork nn = new NeuralNetwork(3, 6, 2, 0.1, new java.util.SplittableRandom(5));
+        double[][] inputs = {{1, 0, 1}, {0.5, -2, 3}, {0, 0, 0}};
+
+        double[][] batched = nn.predictBatch(inputs);
+
+        Assert.assertEquals(inputs.length, batched.length);
+        for (int i = 0; i < inputs.length; i++) {
+            Assert.assertArrayEquals(nn.predict(inputs[i]), batched[i], 1e-12);
+        }
+    }
+
+    @Test
+    public void testTrainingOnATransitionMatchesPredictingThenTraining() throws InvalidMatrixShapeException {
+        NeuralNetwork fused = new NeuralNetwork(3, 5, 2, 0.3, new java.util.SplittableRandom(11));
+        NeuralNetwork separate = fused.deepCopy();
+        double[] state = {1, 0, -1};
+        double[] nextState = {0, 1, 0.5};
+
+        fused.trainOnTransition(state, 1, 0.7, nextState, 0.9);
+
+        double[] target = separate.predict(state);
+        target[1] = 0.7 + 0.9 * Math.max(separate.predict(nextState)[0], separate.predict(nextState)[1]);
+        separate.train(state, target);
+
+        Assert.assertArrayEquals(separate.toParameterVector(), fused.toParameterVector(), 0);
+    }
+}
@@ -0,0 +1,83 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+public class OffHeapNeuralNetworkTest {
+    private static final double[] INPUT = {1, 0, -0.5, 2};
+    private static final double[] TARGET = {1, 0, 0.5};
+    private static final double[] NEXT_INPUT = {0, 1, 0, 1};
+
+    @Test
+    public void testPredictsAndTrainsExactlyLikeNeuralNetwork() throws InvalidMatrixShapeException {
+        NeuralNetwork onHeap = new NeuralNetwork(4, 6, 3, 0.2, new SplittableRandom(17));
+        OffHeapNeuralNetwork offHeap = OffHeapNeuralNetwork.from(onHeap);
+
+        Assert.assertArrayEquals(onHeap.predict(INPUT), offHeap.predict(INPUT), 0);
+
+        for (int i = 0; i < 5; i++) {
+            onHeap.train(INPUT, TARGET);
+            offHeap.train(INPUT, TARGET);
+            onHeap.trainOnTransition(INPUT, 2, 0.4, NEXT_INPUT, 0.9);
+            offHeap.trainOnTransition(INPUT, 2, 0.4, NEXT_INPUT, 0.9);
+        }
+
+        Assert.assertArrayEquals(onHeap.toParameterVector(), offHeap.toParameterVector(), 0);
+        Assert.assertArrayEquals(onHeap.toParameterVector(), offHeap.toNeuralNetwork().toParameterVector(), 0);
+    }
+
+    @Test
+    public void testCopiesDontSeeEachOthersTraining() throws InvalidMatrixShapeException {
+        OffHeapNeuralNetwork parent = OffHeapNeuralNetwork.from(new NeuralNetwork(4, 6, 3, 0.2, new SplittableRandom(3)));
+        OffHeapNeuralNetwork child = parent.copy();
+        double[] parentWeightsBefore = parent.toParameterVector();
+
+        child.train(INPUT, TARGET);
+        child.train(INPUT, TARGET);
+
+        Assert.assertArrayEquals(parentWeightsBefore, parent.toParameterVector(), 0);
+        Assert.assertNotEquals(parentWeightsBefore[0], child.toParameterVector()[0], 0);
+    }
+
+    @Test
+    public void testMapsASavedBrainAndTrainsWithoutChangingTheFile() throws IOException, InvalidMatrixShapeException {
+        NeuralNetwork network = new NeuralNetwork(4, 6, 3, 0.2, new SplittableRandom(5));
+        Path file = Files.createTempFile("brain", ".dqbr");
+
+        try {
+            BrainSerializer.save(network, file);
+            byte[] savedBytes = Files.readAllBytes(file);
+
+            OffHeapNeuralNetwork mapped = OffHeapNeuralNetwork.map(file);
+
+            Assert.assertTrue(mapped.isMapped());
+            Assert.assertArrayEquals(network.toParameterVector(), mapped.toParameterVector(), 0);
+            Assert.assertArrayEquals(network.predict(INPUT), mapped.predict(INPUT), 0);
+
+            mapped.train(INPUT, TARGET);
+
+            Assert.assertFalse(mapped.isMapped());
+            Assert.assertArrayEquals(savedBytes, Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRefusesToMapAFloatBrain() throws IOException {
+        Path file = Files.createTempFile("brain", ".dqbr");
+
+        try {
+            BrainSerializer.save(FloatNeuralNetwork.fromNeuralNetwork(new NeuralNetwork(2, 2, 2, 0.1)), file);
+            OffHeapNeuralNetwork.map(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
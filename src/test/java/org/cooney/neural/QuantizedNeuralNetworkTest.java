@@ -0,0 +1,65 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+public class QuantizedNeuralNetworkTest {
+
+    @Test
+    public void testQuantizedPredictionsAreCloseToFullPrecision() throws InvalidMatrixShapeException {
+        NeuralNetwork nn = new NeuralNetwork(7, 150, 5, 0.1, new SplittableRandom(7));
+        QuantizedNeuralNetwork quantized = QuantizedNeuralNetwork.quantize(nn);
+
+        SplittableRandom random = new SplittableRandom(11);
+
+        for (int sample = 0; sample < 100; sample++) {
+            double[] input = new double[]{random.nextInt(6), random.nextInt(6), random.nextInt(6), random.nextInt(6), random.nextInt(6), random.nextInt(4), random.nextDouble()};
+            Assert.assertArrayEquals(nn.predict(input), quantized.predict(input), 0.05);
+        }
+    }
+
+    @Test
+    public void testQuantizedWeightsAreAnEighthOfDoubleWeights() {
+        NeuralNetwork nn = new NeuralNetwork(7, 150, 5, 0.1, new SplittableRandom(7));
+        QuantizedNeuralNetwork quantized = QuantizedNeuralNetwork.quantize(nn);
+
+        int doubleWeightBytes = (7 * 150 + 150 * 5) * Double.BYTES;
+
+        Assert.assertEquals(doubleWeightBytes / 8, quantized.getWeightSizeInBytes());
+    }
+
+    @Test
+    public void testActingBrainRequantizesAfterTraining() throws InvalidMatrixShapeException {
+        QuantizedActingBrain brain = new QuantizedActingBrain(new NeuralNetwork(3, 8, 2, 0.5, new SplittableRandom(3)));
+        QuantizedNeuralNetwork before = brain.getActingNetwork();
+
+        brain.train(new double[]{1, 0, 1}, new double[]{1, 0});
+
+        Assert.assertNotSame(before, brain.getActingNetwork());
+    }
+
+    @Test
+    public void testActingBrainLearnsInFullPrecision() throws InvalidMatrixShapeException {
+        NeuralNetwork reference = new NeuralNetwork(3, 8, 2, 0.5, new SplittableRandom(3));
+        QuantizedActingBrain brain = new QuantizedActingBrain(reference.deepCopy());
+        double[] state = {1, 0, 1};
+        double[] nextState = {0, 1, 0};
+
+        Assert.assertArrayEquals(reference.qLearningTarget(state, 1, 0.5, nextState, 0.9), brain.qLearningTarget(state, 1, 0.5, nextState, 0.9), 0);
+
+        reference.trainOnTransition(state, 1, 0.5, nextState, 0.9);
+        brain.trainOnTransition(state, 1, 0.5, nextState, 0.9);
+
+        Assert.assertArrayEquals(reference.toParameterVector(), brain.toParameterVector(), 0);
+    }
+
+    @Test
+    public void testInvalidInputShape() {
+        QuantizedNeuralNetwork quantized = QuantizedNeuralNetwork.quantize(new NeuralNetwork(3, 8, 2, 0.5));
+
+        Assert.assertThrows(InvalidMatrixShapeException.class, () -> quantized.predict(new double[]{1, 2}));
+    }
+}
@@ -0,0 +1,64 @@
+package org.cooney.neural;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ShardedGradientsTest {
+
+    private static NeuralNetworkTrainingData trainingData() throws Exception {
+        SplittableRandom random = new SplittableRandom(7);
+        double[][] inputs = new double[200][3];
+        double[][] newStates = new double[200][3];
+        double[] rewards = new double[200];
+        int[] actions = new int[200];
+
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < 3; j++) {
+                inputs[i][j] = random.nextDouble();
+                newStates[i][j] = random.nextDouble();
+            }
+            actions[i] = random.nextInt(2);
+            rewards[i] = actions[i] == 0 ? 1 : 0;
+        }
+
+        return new NeuralNetworkTrainingData(inputs, rewards, newStates, actions);
+    }
+
+    @Test
+    public void testShardedSumMatchesSequentialSum() throws Exception {
+        NeuralNetwork network = new NeuralNetwork(3, 6, 2, 0.3, new SplittableRandom(1));
+        double[][] inputs = {{1, 0, 0}, {0, 1, 0}, {0, 0, 1}, {1, 1, 1}, {0.5, 0.5, 0}};
+
+        NetworkGradients sequential = network.computeGradients(inputs[0], new double[]{1, 0});
+        for (int i = 1; i < inputs.length; i++) {
+            sequential = sequential.add(network.computeGradients(inputs[i], new double[]{1, 0}));
+        }
+
+        NetworkGradients sharded;
+        try (ForkJoinPool pool = new ForkJoinPool(3)) {
+            sharded = ShardedGradients.sum(pool, 0, inputs.length, 3,
+                    position -> network.computeGradients(inputs[position], new double[]{1, 0}));
+        }
+
+        assertArrayEquals(sequential.inputHiddenLayerWeights().toFlatArray(), sharded.inputHiddenLayerWeights().toFlatArray(), 1e-12);
+        assertArrayEquals(sequential.outputLayerBias().toFlatArray(), sharded.outputLayerBias().toFlatArray(), 1e-12);
+    }
+
+    @Test
+    public void testDataParallelFitIsExactlyReproducibleWhateverThePoolSize() throws Exception {
+        NeuralNetworkTrainingData data = trainingData();
+        NeuralNetwork onOneThread = new NeuralNetwork(3, 6, 2, 0.3, new SplittableRandom(1));
+        NeuralNetwork onEightThreads = onOneThread.deepCopy();
+
+        try (ForkJoinPool onePool = new ForkJoinPool(1); ForkJoinPool eightPool = new ForkJoinPool(8)) {
+            onOneThread.fitDataParallel(data, 30, 64, onePool, 4, new SplittableRandom(9), Brain.DISCOUNT);
+            onEightThreads.fitDataParallel(data, 30, 64, eightPool, 4, new SplittableRandom(9), Brain.DISCOUNT);
+        }
+
+        assertArrayEquals(onOneThread.toParameterVector(), onEightThreads.toParameterVector(), 0);
+    }
+}
@@ -0,0 +1,80 @@
+package org.cooney.neural;
+
+import org.cooney.matrix.InvalidMatrixShapeException;
+import org.cooney.world.map.RandomWorldSeeder;
+import org.cooney.world.vector.VectorEnvironment;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class SharedBrainTest {
+
+    @Test
+    public void testLearnerPublishesNewWeightsFromOfferedTransitions() throws Exception {
+        try (SharedBrain brain = new SharedBrain(new NeuralNetwork(3, 8, 2, 0.5, new SplittableRandom(1)), 0.9, 1_000, 32, 5, 2L)) {
+            double[] before = brain.predict(new double[]{1, 0, 1});
+
+            for (int i = 0; i < 500; i++) {
+                brain.offerTransition(new double[]{1, 0, 1}, 0, 1.0, new double[]{0, 1, 0});
+            }
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (brain.getVersion() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(500, brain.getTransitionsReceived());
+            assertTrue(brain.getTrainingSteps() > 0);
+            assertTrue(brain.getVersion() > 0);
+            assertNotEquals(before[0], brain.predict(new double[]{1, 0, 1})[0], 0);
+        }
+    }
+
+    @Test
+    public void testLearnerFailureIsThrownToTheAgents() throws Exception {
+        SharedBrain brain = new SharedBrain(new NeuralNetwork(3, 8, 2, 0.5, new SplittableRandom(1)), 0.9, 1_000, 2, 5, 2L);
+        boolean thrown = false;
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!thrown && System.currentTimeMillis() < deadline) {
+            try {
+                // The network takes three inputs, so the learner can't train on these.
+                brain.offerTransition(new double[]{1, 0}, 0, 1.0, new double[]{0, 1});
+                Thread.sleep(10);
+            } catch (IllegalStateException e) {
+                assertTrue(e.getCause() instanceof InvalidMatrixShapeException);
+                thrown = true;
+            }
+        }
+
+        assertTrue(thrown);
+        assertThrows(IllegalStateException.class, brain::close);
+    }
+
+    @Test
+    public void testAgentsDoNotTrainTheSharedBrainThemselves() throws Exception {
+        try (SharedBrain brain = new SharedBrain(new NeuralNetwork(3, 8, 2, 0.5, new SplittableRandom(1)), 3L)) {
+            double[] before = brain.predict(new double[]{1, 0, 1});
+
+            brain.train(new double[]{1, 0, 1}, new double[]{1, 1});
+
+            assertArrayEquals(before, brain.predict(new double[]{1, 0, 1}), 0);
+            assertSame(brain, brain.copy());
+            assertTrue(brain.learnsFromTransitions());
+        }
+    }
+
+    @Test
+    public void testAgentsOfferEveryMoveToTheSharedBrain() throws Exception {
+        try (SharedBrain brain = new SharedBrain(new NeuralNetwork(7, 20, 5, 0.1, new SplittableRandom(1)), 4L)) {
+            VectorEnvironment environment = VectorEnvironment.withSharedBrain(2, 60, 60, RandomWorldSeeder::new, brain, 5L);
+            int population = environment.getPopulation();
+
+            environment.step();
+
+            assertEquals(population, brain.getTransitionsReceived());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.cooney.recording;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TrajectoryRecorderTest {
+
+    @Test
+    public void testRecordsCanBeReadBackInOrder() throws Exception {
+        Path directory = Files.createTempDirectory("trajectories");
+
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(directory)) {
+            recorder.recordEvent(WorldEvent.Type.BORN, 7, 0);
+            recorder.recordTransition(7, 1, new double[]{1, 0, 3}, 2, 10, new double[]{0, 2, 1});
+            recorder.recordEvent(WorldEvent.Type.DIED, 7, 2);
+        }
+
+        List<Path> logs = TrajectoryReader.logsIn(directory);
+        assertEquals(1, logs.size());
+
+        List<TrajectoryRecord> records = new ArrayList<>();
+        TrajectoryReader.open(logs.get(0)).forEachRemaining(records::add);
+
+        assertEquals(3, records.size());
+        assertEquals(new WorldEvent(WorldEvent.Type.BORN, 7, 0), records.get(0));
+        assertEquals(new WorldEvent(WorldEvent.Type.DIED, 7, 2), records.get(2));
+
+        Transition transition = (Transition) records.get(1);
+        assertEquals(7, transition.actorId());
+        assertEquals(2, transition.action());
+        assertEquals(10, transition.reward(), 0);
+        assertArrayEquals(new float[]{1, 0, 3}, transition.state(), 0);
+        assertArrayEquals(new float[]{0, 2, 1}, transition.nextState(), 0);
+    }
+
+    @Test
+    public void testRotatesOnceAFileIsFull() throws Exception {
+        Path directory = Files.createTempDirectory("trajectories");
+
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(directory, 16, 256, 1024)) {
+            for (int tick = 0; tick < 200; tick++) {
+                recorder.recordTransition(1, tick, new double[7], 0, 0, new double[7]);
+            }
+        }
+
+        List<Path> logs = TrajectoryReader.logsIn(directory);
+        assertTrue(logs.size() > 1);
+
+        int transitions = 0;
+        for (Path log : logs) {
+            TrajectoryReader reader = TrajectoryReader.open(log);
+            while (reader.hasNext()) {
+                assertEquals(transitions, ((Transition) reader.next()).tick());
+                transitions++;
+            }
+        }
+
+        assertEquals(200, transitions);
+    }
+
+    @Test
+    public void testTransitionsTooBigForTheBufferAreRejected() throws Exception {
+        Path directory = Files.createTempDirectory("trajectories");
+
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(directory, 16, 64, 1024)) {
+            assertThrows(IllegalArgumentException.class, () -> recorder.recordTransition(1, 0, new double[8], 0, 0, new double[8]));
+            assertThrows(IllegalArgumentException.class, () -> recorder.recordTransition(1, 0, new double[Short.MAX_VALUE + 1], 0, 0, new double[Short.MAX_VALUE + 1]));
+
+            recorder.recordTransition(1, 1, new double[2], 0, 0, new double[2]);
+        }
+
+        TrajectoryReader reader = TrajectoryReader.open(TrajectoryReader.logsIn(directory).get(0));
+        assertEquals(1, ((Transition) reader.next()).tick());
+        assertFalse(reader.hasNext());
+    }
+}
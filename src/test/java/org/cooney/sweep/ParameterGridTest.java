@@ -0,0 +1,40 @@
+package org.cooney.sweep;
+
+import org.cooney.world.items.agents.AgentParameters;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParameterGridTest {
+
+    @Test
+    public void testEveryCombinationIsExpanded() {
+        List<AgentParameters> grid = new ParameterGrid(AgentParameters.SURVIVING_DEFAULTS)
+                .learningRates(0.01, 0.1)
+                .hiddenCounts(50, 100, 150)
+                .expand();
+
+        assertEquals(6, grid.size());
+        assertEquals(0.01, grid.get(0).learningRate(), 0);
+        assertEquals(50, grid.get(0).hiddenCount());
+        assertEquals(150, grid.get(2).hiddenCount());
+        assertEquals(0.1, grid.get(5).learningRate(), 0);
+        assertEquals(150, grid.get(5).hiddenCount());
+    }
+
+    @Test
+    public void testParametersThatArentSweptKeepTheBaseValue() {
+        List<AgentParameters> grid = new ParameterGrid(AgentParameters.SURVIVING_DEFAULTS)
+                .discounts(0.9)
+                .expand();
+
+        assertEquals(List.of(AgentParameters.SURVIVING_DEFAULTS.withDiscount(0.9)), grid);
+    }
+
+    @Test
+    public void testAnEmptyGridIsJustTheBase() {
+        assertEquals(List.of(AgentParameters.FIGHTING_DEFAULTS), new ParameterGrid(AgentParameters.FIGHTING_DEFAULTS).expand());
+    }
+}
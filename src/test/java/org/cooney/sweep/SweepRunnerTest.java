@@ -0,0 +1,47 @@
+package org.cooney.sweep;
+
+import org.cooney.world.items.agents.AgentParameters;
+import org.cooney.world.map.RandomWorldSeeder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SweepRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEveryConfigurationGetsAResultInOrder() throws Exception {
+        List<AgentParameters> grid = new ParameterGrid(AgentParameters.SURVIVING_DEFAULTS)
+                .hiddenCounts(10, 20, 30)
+                .expand();
+
+        List<SweepResult> results;
+        try (SweepRunner runner = new SweepRunner(60, 60, 40, 10, RandomWorldSeeder::new, 2)) {
+            results = runner.run(grid, 11L);
+        }
+
+        assertEquals(3, results.size());
+        for (int i = 0; i < grid.size(); i++) {
+            SweepResult result = results.get(i);
+            assertEquals(grid.get(i), result.parameters());
+            assertTrue(result.actorSteps() > 0);
+            assertTrue(result.extinct() ? result.survivalTicks() < 40 : result.survivalTicks() == 40);
+        }
+
+        Path output = folder.getRoot().toPath().resolve("results.csv");
+        SweepRunner.writeCsv(output, results);
+
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(SweepResult.CSV_HEADER, lines.get(0));
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(1).startsWith("0.1,10,"));
+    }
+}
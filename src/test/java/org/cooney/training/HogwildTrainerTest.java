@@ -0,0 +1,43 @@
+package org.cooney.training;
+
+import org.cooney.neural.HogwildNetwork;
+import org.cooney.neural.NeuralNetwork;
+import org.cooney.recording.TrajectoryReader;
+import org.cooney.recording.TrajectoryRecorder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class HogwildTrainerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTrainingFromEveryCoreFavoursTheRewardedAction() throws Exception {
+        Path directory = folder.newFolder("trajectories").toPath();
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(directory)) {
+            for (int tick = 0; tick < 400; tick++) {
+                recorder.recordTransition(1, tick, new double[]{1, 0}, tick % 2, tick % 2 == 0 ? 1 : 0, new double[]{0, 1});
+            }
+        }
+        TrajectoryDataset dataset = TrajectoryDataset.load(TrajectoryReader.logsIn(directory));
+
+        HogwildNetwork network = HogwildNetwork.from(new NeuralNetwork(2, 8, 2, 0.5, new SplittableRandom(1)));
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            new HogwildTrainer(pool, 3L, 100).train(network, dataset, 20);
+        }
+
+        double[] qValues = network.predict(new double[]{1, 0});
+        assertTrue(qValues[0] > qValues[1]);
+
+        double[] snapshotQValues = network.getPublishedSnapshot().predict(new double[]{1, 0});
+        assertTrue(snapshotQValues[0] > snapshotQValues[1]);
+    }
+}
@@ -0,0 +1,96 @@
+package org.cooney.training;
+
+import org.cooney.neural.NeuralNetwork;
+import org.cooney.recording.TrajectoryReader;
+import org.cooney.recording.TrajectoryRecorder;
+import org.cooney.recording.WorldEvent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class OfflineTrainerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TrajectoryDataset recordDataset() throws Exception {
+        return recordDataset(100);
+    }
+
+    private TrajectoryDataset recordDataset(int transitions) throws Exception {
+        Path directory = folder.newFolder().toPath();
+
+        try (TrajectoryRecorder recorder = new TrajectoryRecorder(directory)) {
+            recorder.recordEvent(WorldEvent.Type.BORN, 1, 0);
+            for (int tick = 0; tick < transitions; tick++) {
+                // Action 0 pays off in this state, action 1 doesn't.
+                recorder.recordTransition(1, tick, new double[]{1, 0}, tick % 2, tick % 2 == 0 ? 1 : 0, new double[]{0, 1});
+            }
+            recorder.recordTransition(2, 0, new double[]{1, 0, 0}, 0, 0, new double[]{0, 0, 0});
+        }
+
+        return TrajectoryDataset.load(TrajectoryReader.logsIn(directory));
+    }
+
+    @Test
+    public void testDatasetKeepsTransitionsOfOneShape() throws Exception {
+        TrajectoryDataset dataset = recordDataset();
+
+        assertEquals(100, dataset.size());
+        assertEquals(1, dataset.getSkipped());
+        assertEquals(2, dataset.getStateLength());
+        assertEquals(1, dataset.get(1).action());
+        assertArrayEquals(new float[]{0, 1}, dataset.get(1).nextState(), 0);
+    }
+
+    @Test
+    public void testTrainingFavoursTheRewardedAction() throws Exception {
+        TrajectoryDataset dataset = recordDataset();
+        NeuralNetwork network = new NeuralNetwork(2, 8, 2, 0.5, new SplittableRandom(1));
+
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            new OfflineTrainer(16, pool, 3L).train(network, dataset, 100);
+        }
+
+        double[] qValues = network.predict(new double[]{1, 0});
+        assertTrue(qValues[0] > qValues[1]);
+    }
+
+    @Test
+    public void testBatchThatDoesntSplitEvenlyAcrossThePool() throws Exception {
+        TrajectoryDataset dataset = recordDataset(9);
+        NeuralNetwork network = new NeuralNetwork(2, 8, 2, 0.5, new SplittableRandom(1));
+        double[] before = network.toParameterVector();
+
+        List<EpochStats> stats;
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            stats = new OfflineTrainer(9, pool, 3L).train(network, dataset, 1);
+        }
+
+        assertEquals(1, stats.size());
+        assertEquals(9, stats.get(0).samples());
+        assertFalse(Arrays.equals(before, network.toParameterVector()));
+    }
+
+    @Test
+    public void testTrainingIsReproducibleOnOneThread() throws Exception {
+        TrajectoryDataset dataset = recordDataset();
+        NeuralNetwork first = new NeuralNetwork(2, 8, 2, 0.5, new SplittableRandom(1));
+        NeuralNetwork second = first.deepCopy();
+
+        try (ForkJoinPool firstPool = new ForkJoinPool(1); ForkJoinPool secondPool = new ForkJoinPool(1)) {
+            new OfflineTrainer(16, firstPool, 3L).train(first, dataset, 5);
+            new OfflineTrainer(16, secondPool, 3L).train(second, dataset, 5);
+        }
+
+        assertArrayEquals(first.toParameterVector(), second.toParameterVector(), 0);
+    }
+}
@@ -0,0 +1,98 @@
+package org.cooney.training.supervised;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DatasetTest {
+
+    private static List<Example> readAll(SupervisedDataset dataset) throws IOException {
+        List<Example> examples = new ArrayList<>();
+
+        try (ExampleReader reader = dataset.open()) {
+            Example example;
+            while ((example = reader.read()) != null) {
+                examples.add(example);
+            }
+        }
+
+        return examples;
+    }
+
+    @Test
+    public void testCsvSkipsHeaderAndBlankLines() throws IOException {
+        Path file = Files.createTempFile("examples", ".csv");
+        Files.writeString(file, "a,b,target\n1,2,3\n\n4, 5, 6\n");
+
+        List<Example> examples = readAll(new CsvDataset(file, 2, 1));
+
+        assertEquals(2, examples.size());
+        assertArrayEquals(new double[]{4, 5}, examples.get(1).input(), 0);
+        assertArrayEquals(new double[]{6}, examples.get(1).target(), 0);
+        Files.delete(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testCsvRejectsLinesOfTheWrongLength() throws IOException {
+        Path file = Files.createTempFile("examples", ".csv");
+
+        try {
+            Files.writeString(file, "1,2,3\n1,2\n");
+            readAll(new CsvDataset(file, 2, 1));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testColumnarRoundTripsAcrossBlocks() throws IOException {
+        Path file = Files.createTempFile("examples", ".dqsd");
+
+        try (ColumnarDataset.Writer writer = new ColumnarDataset.Writer(file, 3, 2, 4)) {
+            for (int i = 0; i < 10; i++) {
+                writer.write(new double[]{i, i * 0.5, -i}, new double[]{i % 2, 1});
+            }
+        }
+
+        ColumnarDataset dataset = ColumnarDataset.open(file);
+        List<Example> examples = readAll(dataset);
+
+        assertEquals(3, dataset.getInputCount());
+        assertEquals(2, dataset.getTargetCount());
+        assertEquals(10, examples.size());
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(new double[]{i, i * 0.5, -i}, examples.get(i).input(), 0);
+            assertArrayEquals(new double[]{i % 2, 1}, examples.get(i).target(), 0);
+        }
+
+        // A second pass starts from the beginning again.
+        assertEquals(10, readAll(dataset).size());
+        Files.delete(file);
+    }
+
+    @Test
+    public void testColumnarFileCutShortReadsUpToItsLastWholeBlock() throws IOException {
+        Path file = Files.createTempFile("examples", ".dqsd");
+
+        try (ColumnarDataset.Writer writer = new ColumnarDataset.Writer(file, 1, 1, 4)) {
+            for (int i = 0; i < 8; i++) {
+                writer.write(new double[]{i}, new double[]{i});
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertEquals(4, readAll(ColumnarDataset.open(file)).size());
+        Files.delete(file);
+    }
+}
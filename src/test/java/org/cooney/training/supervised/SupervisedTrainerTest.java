@@ -0,0 +1,113 @@
+package org.cooney.training.supervised;
+
+import org.cooney.neural.NeuralNetwork;
+import org.cooney.training.EpochStats;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class SupervisedTrainerTest {
+
+    /**
+     * The first input, copied to the output.
+     */
+    private static SupervisedDataset copyFirstInput(int size) {
+        return new SupervisedDataset() {
+            @Override
+            public ExampleReader open() {
+                return new ExampleReader() {
+                    private int next = 0;
+
+                    @Override
+                    public Example read() {
+                        if (next == size) {
+                            return null;
+                        }
+
+                        int value = next++ % 2;
+                        return new Example(new double[]{value, 1 - value, 0.5}, new double[]{value});
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+
+            @Override
+            public int getInputCount() {
+                return 3;
+            }
+
+            @Override
+            public int getTargetCount() {
+                return 1;
+            }
+        };
+    }
+
+    @Test
+    public void testShuffleBufferHandsOutEveryExampleOnce() throws IOException {
+        ShuffleBuffer shuffled = new ShuffleBuffer(copyFirstInput(50).open(), 8, new SplittableRandom(4));
+        List<double[]> inputs = new ArrayList<>();
+
+        Example example;
+        while ((example = shuffled.read()) != null) {
+            inputs.add(example.input());
+        }
+
+        assertEquals(50, inputs.size());
+        assertEquals(25, inputs.stream().filter(input -> input[0] == 1).count());
+    }
+
+    @Test
+    public void testPrefetcherHandsOutBatchesInOrder() throws IOException {
+        try (BatchPrefetcher batches = new BatchPrefetcher(copyFirstInput(10).open(), 4, 2)) {
+            assertEquals(4, batches.next().size());
+            assertEquals(4, batches.next().size());
+            assertEquals(2, batches.next().size());
+            assertNull(batches.next());
+            assertNull(batches.next());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testPrefetcherPassesOnReadFailures() throws IOException {
+        ExampleReader failing = new ExampleReader() {
+            @Override
+            public Example read() throws IOException {
+                throw new IOException("disk on fire");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (BatchPrefetcher batches = new BatchPrefetcher(failing, 4, 2)) {
+            batches.next();
+        }
+    }
+
+    @Test
+    public void testTrainingLearnsTheTargets() throws Exception {
+        NeuralNetwork network = new NeuralNetwork(3, 6, 1, 0.5, new SplittableRandom(2));
+
+        List<EpochStats> stats;
+        try (ForkJoinPool pool = new ForkJoinPool(2)) {
+            stats = new SupervisedTrainer(8, 16, 2, pool, 5L).train(network, copyFirstInput(64), 200);
+        }
+
+        assertEquals(200, stats.size());
+        assertEquals(64, stats.get(199).samples());
+        assertTrue(Arrays.toString(network.predict(new double[]{1, 0, 0.5})), network.predict(new double[]{1, 0, 0.5})[0] > 0.8);
+        assertTrue(Arrays.toString(network.predict(new double[]{0, 1, 0.5})), network.predict(new double[]{0, 1, 0.5})[0] < 0.2);
+    }
+}
@@ -0,0 +1,75 @@
+package org.cooney.world.items.agents;
+
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.EmptyWorldItem;
+import org.cooney.world.items.resources.Food;
+import org.cooney.world.items.resources.Water;
+import org.cooney.world.map.RandomWorldSeeder;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class SurvivingThingTest {
+
+    @Test
+    public void testHungerAndThirstGrowNextToEmptySources() throws IOException {
+        WorldEngine world = new WorldEngine(20, 20, new RandomWorldSeeder(), 3L);
+        SurvivingThing agent = new SurvivingThing(world);
+
+        for (int y = 9; y <= 11; y++) {
+            for (int x = 9; x <= 11; x++) {
+                world.putItemAt(y, x, EmptyWorldItem.INSTANCE);
+            }
+        }
+
+        Food food = new Food();
+        while (food.consume(null)) {
+            // Eat it all.
+        }
+        Water water = new Water();
+        while (water.consume(null)) {
+            // Drink it all.
+        }
+
+        world.putItemAt(9, 10, food);
+        world.putItemAt(11, 10, water);
+        world.placeActor(agent, 10, 10);
+
+        // Hungry and thirsty enough to go for them, and too tired to walk away.
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(Direction.DOWN.getIndex());
+        out.writeByte(Direction.DOWN.getIndex());
+        out.writeInt(0);
+        out.writeDouble(150);
+        out.writeDouble(150);
+        out.writeDouble(0);
+        out.writeInt(0);
+        out.writeDouble(0);
+        agent.readState(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        agent.step();
+
+        double[] stats = ownState(agent);
+        assertEquals(151, stats[0], 0);
+        assertEquals(151, stats[1], 0);
+    }
+
+    /**
+     * @return The hunger and thirst the agent writes at the end of its state.
+     */
+    private static double[] ownState(SurvivingThing agent) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        agent.writeState(new DataOutputStream(bytes));
+        byte[] state = bytes.toByteArray();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(state, state.length - 36, 36));
+        return new double[]{in.readDouble(), in.readDouble()};
+    }
+}
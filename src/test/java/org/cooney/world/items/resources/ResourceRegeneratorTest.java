@@ -0,0 +1,45 @@
+package org.cooney.world.items.resources;
+
+import org.cooney.metrics.MetricsRegistry;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class ResourceRegeneratorTest {
+
+    @Test
+    public void testConsumptionStopsAtZero() {
+        Food food = new Food();
+
+        int eaten = 0;
+        while (food.consume(null)) {
+            eaten++;
+        }
+
+        assertEquals(30, eaten);
+        assertEquals(0, food.getResourceCount(), 0);
+    }
+
+    @Test
+    public void testDepletedResourcesRegenerateBackToFull() {
+        ResourceRegenerator regenerator = new ResourceRegenerator(1, new SplittableRandom(1), new MetricsRegistry());
+        Water water = new Water();
+        Food untouched = new Food();
+
+        while (water.consume(null)) {
+            regenerator.depleted(water);
+        }
+        regenerator.depleted(untouched);
+
+        assertEquals(1, regenerator.getPendingCount());
+
+        for (int tick = 0; tick < 1000 && regenerator.getPendingCount() > 0; tick++) {
+            regenerator.tick();
+        }
+
+        assertEquals(0, regenerator.getPendingCount());
+        assertFalse(water.needsRegeneration());
+    }
+}
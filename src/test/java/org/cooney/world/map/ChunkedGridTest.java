@@ -0,0 +1,65 @@
+package org.cooney.world.map;
+
+import org.cooney.world.items.EmptyWorldItem;
+import org.cooney.world.items.resources.Food;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChunkedGridTest {
+
+    @Test
+    public void testEmptyGridAllocatesNoChunks() {
+        ChunkedGrid grid = new ChunkedGrid(10_000, 10_000);
+
+        assertEquals(0, grid.getAllocatedChunkCount());
+        assertSame(EmptyWorldItem.INSTANCE, grid.get(9_999, 9_999).getWorldItem());
+    }
+
+    @Test
+    public void testPuttingEmptySpaceDoesNotAllocate() {
+        ChunkedGrid grid = new ChunkedGrid(1_000, 1_000);
+        grid.put(500, 500, EmptyWorldItem.INSTANCE);
+
+        assertEquals(0, grid.getAllocatedChunkCount());
+    }
+
+    @Test
+    public void testItemsAreStoredInTheirOwnChunk() {
+        ChunkedGrid grid = new ChunkedGrid(1_000, 1_000);
+        Food food = new Food();
+        grid.put(130, 70, food);
+
+        assertEquals(1, grid.getAllocatedChunkCount());
+        assertSame(food, grid.get(130, 70).getWorldItem());
+        assertSame(EmptyWorldItem.INSTANCE, grid.get(130, 71).getWorldItem());
+    }
+
+    @Test
+    public void testForEachOccupiedVisitsOnlyOccupiedCells() {
+        ChunkedGrid grid = new ChunkedGrid(200, 100);
+        grid.put(0, 0, new Food());
+        grid.put(199, 99, new Food());
+        grid.put(65, 3, new Food());
+
+        List<String> visited = new ArrayList<>();
+        grid.forEachOccupied((y, x, gridItem) -> visited.add(y + "," + x));
+
+        assertEquals(List.of("0,0", "65,3", "199,99"), visited);
+    }
+
+    @Test
+    public void testCompactDropsChunksThatHaveEmptiedOut() {
+        ChunkedGrid grid = new ChunkedGrid(1_000, 1_000);
+        grid.put(10, 10, new Food());
+        grid.put(900, 900, new Food());
+        grid.put(10, 10, EmptyWorldItem.INSTANCE);
+
+        assertEquals(1, grid.compact());
+        assertEquals(1, grid.getAllocatedChunkCount());
+        assertSame(EmptyWorldItem.INSTANCE, grid.get(10, 10).getWorldItem());
+    }
+}
@@ -0,0 +1,45 @@
+package org.cooney.world.map;
+
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.WorldItem;
+import org.cooney.world.items.agents.LivingEntity;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RowSeedingTest {
+
+    @Test
+    public void testTheSameSeedGivesTheSameWorldWhicheverThreadSeedsEachRow() {
+        WorldEngine first = new WorldEngine(120, 80, new RandomWorldSeeder(), 42L);
+        WorldEngine second = new WorldEngine(120, 80, new RandomWorldSeeder(), 42L);
+
+        int agents = 0;
+        for (int y = 0; y < first.getHeight(); y++) {
+            for (int x = 0; x < first.getWidth(); x++) {
+                WorldItem firstItem = first.getItemAt(y, x).getWorldItem();
+                WorldItem secondItem = second.getItemAt(y, x).getWorldItem();
+
+                assertEquals(firstItem.getWorldItemId(), secondItem.getWorldItemId(), 0);
+
+                if (firstItem instanceof LivingEntity firstAgent) {
+                    agents++;
+                    assertArrayEquals(firstAgent.getBrain().toParameterVector(),
+                            ((LivingEntity) secondItem).getBrain().toParameterVector(), 0);
+                }
+            }
+        }
+
+        assertTrue("Expected the world to have some agents in it", agents > 0);
+    }
+
+    @Test
+    public void testDifferentRowsGetDifferentStreams() {
+        WorldEngine world = new WorldEngine(2, 2, new RandomWorldSeeder(), 1L);
+
+        assertNotEquals(world.getRandomSource().forSubsystem("seeder", 0).nextLong(),
+                world.getRandomSource().forSubsystem("seeder", 1).nextLong());
+        assertEquals(world.getRandomSource().forSubsystem("seeder", 5).nextLong(),
+                world.getRandomSource().forSubsystem("seeder", 5).nextLong());
+    }
+}
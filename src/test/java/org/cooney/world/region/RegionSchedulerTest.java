@@ -0,0 +1,89 @@
+package org.cooney.world.region;
+
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.Actor;
+import org.cooney.world.items.EmptyWorldItem;
+import org.cooney.world.map.RandomWorldSeeder;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RegionSchedulerTest {
+
+    @Test
+    public void testRegionsCoverTheGrid() {
+        WorldEngine world = new WorldEngine(30, 20, new RandomWorldSeeder(), 1L);
+        RegionScheduler scheduler = world.partition(3, 2);
+
+        assertEquals(6, scheduler.getRegions().size());
+        assertSame(scheduler.regionAt(0, 0), scheduler.regionAt(9, 9));
+        assertNotSame(scheduler.regionAt(9, 9), scheduler.regionAt(10, 9));
+        assertNotSame(scheduler.regionAt(9, 9), scheduler.regionAt(9, 10));
+        assertTrue(scheduler.crossesBorder(9, 9, 10, 9));
+        assertFalse(scheduler.crossesBorder(8, 9, 9, 9));
+    }
+
+    @Test
+    public void testEveryActorStaysInTheRegionItIsStandingIn() {
+        WorldEngine world = new WorldEngine(40, 40, new RandomWorldSeeder(), 7L);
+        RegionScheduler scheduler = world.partition(4, 4);
+
+        for (int tick = 0; tick < 30; tick++) {
+            scheduler.stepOnce();
+        }
+
+        int actorsInRegions = 0;
+
+        for (Region region : scheduler.getRegions()) {
+            for (Actor actor : region.getActors()) {
+                int[] coords = world.getActorCoords(actor);
+                assertSame(region, scheduler.regionAt(coords[0], coords[1]));
+                assertSame(actor, world.getItemAt(coords[0], coords[1]).getWorldItem());
+            }
+            actorsInRegions += region.getActors().size();
+        }
+
+        assertEquals(world.getActorsInWorld().size(), actorsInRegions);
+    }
+
+    @Test
+    public void testTwoActorsCrossingIntoTheSameCellBothGetACell() {
+        WorldEngine world = new WorldEngine(40, 40, new RandomWorldSeeder(), 7L);
+        Actor fromAbove = world.getActorsInWorld().get(0);
+        Actor fromTheLeft = world.getActorsInWorld().get(1);
+        moveTo(world, fromAbove, 19, 20);
+        moveTo(world, fromTheLeft, 20, 19);
+        world.putItemAt(20, 20, EmptyWorldItem.INSTANCE);
+
+        RegionScheduler scheduler = world.partition(2, 2);
+        world.moveActor(fromAbove, 0, 1);
+        world.moveActor(fromTheLeft, 1, 0);
+
+        Region destination = scheduler.regionAt(20, 20);
+        destination.drain(world);
+
+        int[] aboveCoords = world.getActorCoords(fromAbove);
+        int[] leftCoords = world.getActorCoords(fromTheLeft);
+        assertFalse(Arrays.equals(aboveCoords, leftCoords));
+
+        for (Actor actor : new Actor[]{fromAbove, fromTheLeft}) {
+            int[] coords = world.getActorCoords(actor);
+            assertSame(destination, scheduler.regionAt(coords[0], coords[1]));
+            assertSame(actor, world.getItemAt(coords[0], coords[1]).getWorldItem());
+            assertTrue(destination.getActors().contains(actor));
+        }
+    }
+
+    private static void moveTo(WorldEngine world, Actor actor, int y, int x) {
+        int[] coords = world.getActorCoords(actor);
+        world.putItemAt(coords[0], coords[1], EmptyWorldItem.INSTANCE);
+        world.placeActor(actor, y, x);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCannotHaveMoreRegionsThanRows() {
+        new WorldEngine(4, 4, new RandomWorldSeeder(), 1L).partition(5, 1);
+    }
+}
@@ -0,0 +1,150 @@
+package org.cooney.world.shard;
+
+import org.cooney.metrics.SimulationMetrics;
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.Actor;
+import org.cooney.world.items.EmptyWorldItem;
+import org.cooney.world.items.WorldItem;
+import org.cooney.world.items.agents.LivingEntity;
+import org.cooney.world.items.agents.SurvivingThing;
+import org.cooney.world.items.resources.Food;
+import org.cooney.world.map.GridItem;
+import org.cooney.world.map.RandomWorldSeeder;
+import org.junit.Test;
+
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class ShardNodeTest {
+
+    @Test
+    public void testActorSurvivesTheRoundTrip() throws Exception {
+        WorldEngine world = new WorldEngine(20, 20, new RandomWorldSeeder(), 3L);
+        LivingEntity actor = (LivingEntity) world.getActorsInWorld().get(0);
+
+        for (int tick = 0; tick < 20; tick++) {
+            actor.step();
+        }
+
+        LivingEntity arrived = ActorCodec.decode(ActorCodec.encode(actor), world);
+
+        assertTrue(arrived instanceof SurvivingThing);
+        assertEquals(actor.getTicks(), arrived.getTicks());
+        assertEquals(actor.getExplorationRate(), arrived.getExplorationRate(), 0);
+        assertEquals(actor.getDirectionIamFacing(), arrived.getDirectionIamFacing());
+        assertArrayEquals(actor.getBrain().toParameterVector(), arrived.getBrain().toParameterVector(), 0);
+        assertArrayEquals(ActorCodec.encode(actor), ActorCodec.encode(arrived));
+    }
+
+    @Test
+    public void testTwoShardsKeepEveryActor() throws Exception {
+        Path socketDirectory = Files.createTempDirectory("shards");
+        SocketAddress[] addresses = ShardNode.addressesFor("unix:" + socketDirectory, 2);
+
+        WorldEngine top = ShardNode.createBand(0, 2, 40, 30, 11L);
+        WorldEngine bottom = ShardNode.createBand(1, 2, 40, 30, 11L);
+        int population = top.getActorsInWorld().size() + bottom.getActorsInWorld().size();
+
+        try (ShardNode topNode = new ShardNode(top, 0, addresses); ShardNode bottomNode = new ShardNode(bottom, 1, addresses)) {
+            CompletableFuture<Void> topRun = CompletableFuture.runAsync(() -> run(topNode));
+            CompletableFuture<Void> bottomRun = CompletableFuture.runAsync(() -> run(bottomNode));
+            CompletableFuture.allOf(topRun, bottomRun).join();
+
+            assertEquals(30, topNode.getTick());
+            assertEquals(30, bottomNode.getTick());
+        }
+
+        assertEquals(population, top.getActorsInWorld().size() + bottom.getActorsInWorld().size());
+    }
+
+    @Test
+    public void testEatenFoodComesBack() throws Exception {
+        Path socketDirectory = Files.createTempDirectory("shards");
+        SocketAddress[] addresses = ShardNode.addressesFor("unix:" + socketDirectory, 2);
+
+        WorldEngine top = ShardNode.createBand(0, 2, 40, 30, 11L);
+        WorldEngine bottom = ShardNode.createBand(1, 2, 40, 30, 11L);
+
+        Food food = new Food();
+        top.putItemAt(10, 15, food);
+        while (top.consume(food, null)) {
+            // Eat it all.
+        }
+
+        try (ShardNode topNode = new ShardNode(top, 0, addresses); ShardNode bottomNode = new ShardNode(bottom, 1, addresses)) {
+            CompletableFuture<Void> topRun = CompletableFuture.runAsync(() -> run(topNode, 300));
+            CompletableFuture<Void> bottomRun = CompletableFuture.runAsync(() -> run(bottomNode, 300));
+            CompletableFuture.allOf(topRun, bottomRun).join();
+        }
+
+        assertTrue(top.getMetrics().counter(SimulationMetrics.RESOURCES_REGENERATED).sum() > 0);
+        assertTrue(food.getResourceCount() > 0);
+    }
+
+    @Test
+    public void testActorsOnABorderRowDontReachTheFarRow() {
+        WorldEngine world = ShardNode.createBand(0, 2, 40, 30, 11L);
+        new ShardNode(world, 0, ShardNode.addressesFor("tcp:7400", 2));
+
+        Actor actor = world.getActorsInWorld().get(0);
+        int[] coords = world.getActorCoords(actor);
+        world.putItemAt(coords[0], coords[1], EmptyWorldItem.INSTANCE);
+        world.placeActor(actor, 0, 5);
+
+        Food farRow = new Food();
+        Food nextRow = new Food();
+        world.putItemAt(world.getHeight() - 1, 5, farRow);
+        world.putItemAt(1, 5, nextRow);
+
+        List<WorldItem> reachable = world.getInteractableGridItems(actor).stream().map(GridItem::getWorldItem).toList();
+
+        assertFalse(reachable.contains(farRow));
+        assertTrue(reachable.contains(nextRow));
+    }
+
+    @Test
+    public void testArrivalsDontWriteOverWhatsOnTheBorder() throws Exception {
+        WorldEngine world = ShardNode.createBand(0, 2, 40, 30, 11L);
+        ShardNode node = new ShardNode(world, 0, ShardNode.addressesFor("tcp:7400", 2));
+
+        Actor resident = world.getActorsInWorld().get(0);
+        int[] residentCoords = world.getActorCoords(resident).clone();
+        Food food = new Food();
+        int foodX = Math.floorMod(residentCoords[1] + 10, world.getWidth());
+        world.putItemAt(residentCoords[0], foodX, food);
+
+        LivingEntity ontoActor = ActorCodec.decode(ActorCodec.encode((LivingEntity) resident), world);
+        LivingEntity ontoFood = ActorCodec.decode(ActorCodec.encode((LivingEntity) resident), world);
+        node.arrive(ontoActor, residentCoords[0], residentCoords[1]);
+        node.arrive(ontoFood, residentCoords[0], foodX);
+
+        assertSame(resident, world.getItemAt(residentCoords[0], residentCoords[1]).getWorldItem());
+        assertArrayEquals(residentCoords, world.getActorCoords(resident));
+        assertSame(food, world.getItemAt(residentCoords[0], foodX).getWorldItem());
+
+        for (Actor arrived : new Actor[]{ontoActor, ontoFood}) {
+            int[] coords = world.getActorCoords(arrived);
+            assertEquals(residentCoords[0], coords[0]);
+            assertSame(arrived, world.getItemAt(coords[0], coords[1]).getWorldItem());
+            assertTrue(world.getActorsInWorld().contains(arrived));
+        }
+    }
+
+    private static void run(ShardNode node) {
+        run(node, 30);
+    }
+
+    private static void run(ShardNode node, int ticks) {
+        try {
+            node.connect();
+            node.runTicks(ticks);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
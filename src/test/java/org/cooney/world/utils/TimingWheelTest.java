@@ -0,0 +1,34 @@
+package org.cooney.world.utils;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testItemsComeDueOnTheirTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        wheel.schedule("soon", 1);
+        wheel.schedule("later", 3);
+
+        assertEquals(List.of("soon"), wheel.advance());
+        assertEquals(List.of(), wheel.advance());
+        assertEquals(List.of("later"), wheel.advance());
+        assertEquals(List.of(), wheel.advance());
+    }
+
+    @Test
+    public void testItemsFurtherAwayThanOneTurnWaitForTheirTurn() {
+        TimingWheel<String> wheel = new TimingWheel<>(4);
+        wheel.schedule("far", 10);
+
+        for (int tick = 1; tick < 10; tick++) {
+            assertTrue("Came due on tick " + tick, wheel.advance().isEmpty());
+        }
+
+        assertEquals(List.of("far"), wheel.advance());
+    }
+}
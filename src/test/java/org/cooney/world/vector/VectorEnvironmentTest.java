@@ -0,0 +1,63 @@
+package org.cooney.world.vector;
+
+import org.cooney.neural.NeuralNetwork;
+import org.cooney.world.WorldEngine;
+import org.cooney.world.items.Actor;
+import org.cooney.world.items.agents.LivingEntity;
+import org.cooney.world.map.RandomWorldSeeder;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class VectorEnvironmentTest {
+
+    @Test
+    public void testEveryAgentInEveryWorldSharesTheBrain() {
+        NeuralNetwork brain = new NeuralNetwork(7, 20, 5, 0.1, new SplittableRandom(1));
+        VectorEnvironment environment = VectorEnvironment.withSharedBrain(3, 60, 60, RandomWorldSeeder::new, brain, 9L);
+
+        assertTrue(environment.getPopulation() > 0);
+        for (WorldEngine world : environment.getWorlds()) {
+            for (Actor actor : world.getActorsInWorld()) {
+                assertSame(brain, ((LivingEntity) actor).getDecidingBrain());
+            }
+        }
+    }
+
+    @Test
+    public void testSteppingMakesADecisionForEveryMovingAgent() throws Exception {
+        NeuralNetwork brain = new NeuralNetwork(7, 20, 5, 0.1, new SplittableRandom(1));
+        VectorEnvironment environment = VectorEnvironment.withSharedBrain(3, 60, 60, RandomWorldSeeder::new, brain, 9L);
+        int population = environment.getPopulation();
+
+        environment.step();
+
+        assertEquals(1, environment.getTicks());
+        assertEquals(population, environment.getDecisions());
+        for (WorldEngine world : environment.getWorlds()) {
+            for (Actor actor : world.getActorsInWorld()) {
+                assertEquals(1, actor.getTicks());
+            }
+        }
+    }
+
+    @Test
+    public void testTheSameSeedsStepTheSameWay() throws Exception {
+        VectorEnvironment first = VectorEnvironment.withSharedBrain(2, 60, 60, RandomWorldSeeder::new, new NeuralNetwork(7, 20, 5, 0.1, new SplittableRandom(1)), 4L);
+        VectorEnvironment second = VectorEnvironment.withSharedBrain(2, 60, 60, RandomWorldSeeder::new, new NeuralNetwork(7, 20, 5, 0.1, new SplittableRandom(1)), 4L);
+
+        for (int tick = 0; tick < 150; tick++) {
+            first.step();
+            second.step();
+        }
+
+        assertEquals(first.getDecisions(), second.getDecisions());
+        assertEquals(first.getPopulation(), second.getPopulation());
+        for (int i = 0; i < first.getWorlds().size(); i++) {
+            assertArrayEquals(first.getWorlds().get(i).getActorsInWorld().stream().mapToInt(Actor::getTicks).toArray(),
+                    second.getWorlds().get(i).getActorsInWorld().stream().mapToInt(Actor::getTicks).toArray());
+        }
+    }
+}